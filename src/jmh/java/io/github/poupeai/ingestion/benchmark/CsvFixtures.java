@@ -0,0 +1,91 @@
+package io.github.poupeai.ingestion.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+/**
+ * Gera extratos CSV sintéticos em disco nos layouts mais comuns dos bancos atendidos.
+ */
+public final class CsvFixtures {
+
+    /**
+     * {@code INTER}: ponto e vírgula, vírgula decimal, Windows-1252 e preâmbulo antes do cabeçalho.
+     * {@code NUBANK}: vírgula, ponto decimal, UTF-8 e identificador por linha.
+     */
+    public enum Layout { INTER, NUBANK }
+
+    private static final String[] MERCHANTS = {
+            "Pix enviado", "Pix recebido", "Uber *Trip", "iFood *Restaurante", "Pag*Padaria Central",
+            "Tarifa pacote serviços", "IOF compra internacional", "Rendimento poupança", "Salário",
+            "Supermercado Extra", "Posto Shell", "Netflix.com", "Drogaria São Paulo", "TED recebida"
+    };
+
+    private static final DateTimeFormatter BR_DATE = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private CsvFixtures() {
+    }
+
+    public static Path generate(Layout layout, int transactions) {
+        Charset charset = layout == Layout.INTER ? Charset.forName("windows-1252") : StandardCharsets.UTF_8;
+        try {
+            Path file = Files.createTempFile("bench-" + layout.name().toLowerCase() + "-" + transactions + "-", ".csv");
+            file.toFile().deleteOnExit();
+            try (BufferedWriter writer = Files.newBufferedWriter(file, charset)) {
+                if (layout == Layout.INTER) {
+                    writeInter(writer, transactions);
+                } else {
+                    writeNubank(writer, transactions);
+                }
+            }
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeInter(BufferedWriter out, int transactions) throws IOException {
+        out.write("Extrato Conta Corrente\nConta ;123456\nPeríodo ;01/01/2020 a 31/12/2024\n\n");
+        out.write("Data Lançamento;Histórico;Descrição;Valor;Saldo\n");
+        Random random = new Random(42);
+        for (int i = 0; i < transactions; i++) {
+            String merchant = MERCHANTS[random.nextInt(MERCHANTS.length)];
+            long cents = signedCents(random, merchant);
+            out.write(date(i).format(BR_DATE) + ";" + merchant + ";" + merchant.toUpperCase() + " " + (random.nextInt(900) + 100)
+                    + ";" + formatBr(cents) + ";" + formatBr(random.nextInt(10_000_000)) + "\n");
+        }
+    }
+
+    private static void writeNubank(BufferedWriter out, int transactions) throws IOException {
+        out.write("Data,Valor,Identificador,Descrição\n");
+        Random random = new Random(42);
+        for (int i = 0; i < transactions; i++) {
+            String merchant = MERCHANTS[random.nextInt(MERCHANTS.length)];
+            long cents = signedCents(random, merchant);
+            out.write(date(i).format(BR_DATE) + "," + (cents < 0 ? "-" : "") + Math.abs(cents) / 100 + "."
+                    + String.format("%02d", Math.abs(cents) % 100) + ",id-" + i + ",\"" + merchant + " - " + (random.nextInt(900) + 100) + "\"\n");
+        }
+    }
+
+    private static long signedCents(Random random, String merchant) {
+        boolean credit = merchant.contains("recebid") || merchant.startsWith("Salário") || merchant.startsWith("Rendimento");
+        long cents = 100 + random.nextInt(500_000);
+        return credit ? cents : -cents;
+    }
+
+    private static String formatBr(long cents) {
+        long abs = Math.abs(cents);
+        return (cents < 0 ? "-" : "") + String.format("%,d", abs / 100).replace(',', '.') + "," + String.format("%02d", abs % 100);
+    }
+
+    private static LocalDate date(int index) {
+        return LocalDate.of(2020, 1, 1).plusDays(index / 50);
+    }
+}
@@ -0,0 +1,53 @@
+package io.github.poupeai.ingestion.benchmark;
+
+import io.github.poupeai.ingestion.service.parser.CsvParserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput do parse CSV em streaming, incluindo a detecção de layout (arquivos por segundo;
+ * multiplique por {@code transactions} para obter linhas/s).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class CsvParserBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    public int transactions;
+
+    @Param({"INTER", "NUBANK"})
+    public CsvFixtures.Layout layout;
+
+    private final CsvParserService parser = new CsvParserService();
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        file = CsvFixtures.generate(layout, transactions);
+    }
+
+    @Benchmark
+    public int streamingParse(Blackhole blackhole) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 64 * 1024)) {
+            return parser.parse(in, blackhole::consume);
+        }
+    }
+}
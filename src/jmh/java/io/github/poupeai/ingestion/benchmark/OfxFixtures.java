@@ -0,0 +1,93 @@
+package io.github.poupeai.ingestion.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Gera extratos OFX sintéticos em disco, com descrições recorrentes como nos extratos reais.
+ */
+public final class OfxFixtures {
+
+    public enum Format { SGML, XML }
+
+    private static final String[] MERCHANTS = {
+            "PIX ENVIADO", "PIX RECEBIDO", "UBER *TRIP", "IFOOD *RESTAURANTE", "PAG*PADARIA CENTRAL",
+            "TARIFA PACOTE SERVICOS", "IOF COMPRA INTERNACIONAL", "RENDIMENTO POUPANCA", "SALARIO",
+            "SUPERMERCADO EXTRA", "POSTO SHELL", "NETFLIX.COM", "DROGARIA SAO PAULO", "TED RECEBIDA",
+            "AÇOUGUE SÃO JOÃO", "PADARIA CORAÇÃO"
+    };
+
+    private OfxFixtures() {
+    }
+
+    public static Path generate(Format format, int transactions) {
+        return generate(format, transactions, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * O cabeçalho SGML sempre declara {@code CHARSET:1252}, como na maioria dos bancos, mesmo quando o
+     * arquivo é gravado em UTF-8; no XML a declaração acompanha {@code charset}.
+     */
+    public static Path generate(Format format, int transactions, Charset charset) {
+        try {
+            Path file = Files.createTempFile("bench-" + format.name().toLowerCase() + "-" + transactions + "-", ".ofx");
+            file.toFile().deleteOnExit();
+            try (BufferedWriter writer = Files.newBufferedWriter(file, charset)) {
+                if (format == Format.SGML) {
+                    writeSgml(writer, transactions);
+                } else {
+                    writeXml(writer, transactions, charset);
+                }
+            }
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeSgml(BufferedWriter out, int transactions) throws IOException {
+        out.write("OFXHEADER:100\nDATA:OFXSGML\nVERSION:102\nSECURITY:NONE\nENCODING:USASCII\nCHARSET:1252\n\n");
+        out.write("<OFX>\n<BANKMSGSRSV1>\n<STMTTRNRS>\n<STMTRS>\n<CURDEF>BRL\n");
+        out.write("<BANKACCTFROM>\n<BANKID>0341\n<ACCTID>123456\n<ACCTTYPE>CHECKING\n</BANKACCTFROM>\n<BANKTRANLIST>\n");
+        Random random = new Random(42);
+        for (int i = 0; i < transactions; i++) {
+            Row row = row(random, i);
+            out.write("<STMTTRN>\n<TRNTYPE>" + row.type + "\n<DTPOSTED>" + row.date + "120000[-3:BRT]\n<TRNAMT>" + row.amount
+                    + "\n<FITID>" + row.fitId + "\n<NAME>" + row.name + "\n<MEMO>" + row.memo + "\n</STMTTRN>\n");
+        }
+        out.write("</BANKTRANLIST>\n</STMTRS>\n</STMTTRNRS>\n</BANKMSGSRSV1>\n</OFX>\n");
+    }
+
+    private static void writeXml(BufferedWriter out, int transactions, Charset charset) throws IOException {
+        out.write("<?xml version=\"1.0\" encoding=\"" + charset.name() + "\" standalone=\"no\"?>\n");
+        out.write("<?OFX OFXHEADER=\"200\" VERSION=\"220\" SECURITY=\"NONE\" OLDFILEUID=\"NONE\" NEWFILEUID=\"NONE\"?>\n");
+        out.write("<OFX><BANKMSGSRSV1><STMTTRNRS><STMTRS><CURDEF>BRL</CURDEF>");
+        out.write("<BANKACCTFROM><BANKID>0341</BANKID><ACCTID>123456</ACCTID><ACCTTYPE>CHECKING</ACCTTYPE></BANKACCTFROM><BANKTRANLIST>\n");
+        Random random = new Random(42);
+        for (int i = 0; i < transactions; i++) {
+            Row row = row(random, i);
+            out.write("<STMTTRN><TRNTYPE>" + row.type + "</TRNTYPE><DTPOSTED>" + row.date + "120000</DTPOSTED><TRNAMT>" + row.amount
+                    + "</TRNAMT><FITID>" + row.fitId + "</FITID><NAME>" + row.name + "</NAME><MEMO>" + row.memo + "</MEMO></STMTTRN>\n");
+        }
+        out.write("</BANKTRANLIST></STMTRS></STMTTRNRS></BANKMSGSRSV1></OFX>\n");
+    }
+
+    private static Row row(Random random, int index) {
+        String merchant = MERCHANTS[random.nextInt(MERCHANTS.length)];
+        boolean credit = merchant.contains("RECEB") || merchant.startsWith("SALARIO") || merchant.startsWith("RENDIMENTO");
+        long cents = 100 + random.nextInt(500_000);
+        String amount = (credit ? "" : "-") + (cents / 100) + "." + String.format("%02d", cents % 100);
+        String date = LocalDate.of(2020, 1, 1).plusDays(index / 50).toString().replace("-", "");
+        String memo = merchant + " " + (random.nextInt(900) + 100);
+        return new Row(credit ? "CREDIT" : "DEBIT", date, amount, "FIT" + index, merchant, memo);
+    }
+
+    private record Row(String type, String date, String amount, String fitId, String name, String memo) { }
+}
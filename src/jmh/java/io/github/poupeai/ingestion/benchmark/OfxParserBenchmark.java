@@ -0,0 +1,86 @@
+package io.github.poupeai.ingestion.benchmark;
+
+import io.github.poupeai.ingestion.service.parser.OfxParserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput do parse OFX em streaming (arquivos por segundo; multiplique por {@code transactions}
+ * para obter linhas/s). Use {@code -prof gc} para a taxa de alocação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class OfxParserBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    public int transactions;
+
+    @Param({"SGML", "XML"})
+    public OfxFixtures.Format format;
+
+    /**
+     * {@code true} usa os limites padrão (trechos em paralelo a partir de 4 MB); {@code false} força
+     * o parse inteiro na thread chamadora.
+     */
+    @Param({"true", "false"})
+    public boolean parallel;
+
+    /**
+     * Encoding em que o arquivo é gravado; o parser detecta pelo cabeçalho e pelos bytes.
+     */
+    @Param({"UTF-8", "windows-1252"})
+    public String charset;
+
+    private OfxParserService parser;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        file = OfxFixtures.generate(format, transactions, Charset.forName(charset));
+        parser = parallel
+                ? new OfxParserService()
+                : new OfxParserService(DataSize.ofGigabytes(64), DataSize.ofMegabytes(1));
+    }
+
+    @Benchmark
+    public int streamingParse(Blackhole blackhole) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 64 * 1024)) {
+            return parser.parse(in, blackhole::consume);
+        }
+    }
+
+    /**
+     * Parse direto do arquivo mapeado em memória (caminho de arquivos já em disco).
+     */
+    @Benchmark
+    public int mappedParse(Blackhole blackhole) {
+        return parser.parse(file, blackhole::consume);
+    }
+
+    @Benchmark
+    public Object parseToList() throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 64 * 1024)) {
+            return parser.parse(in);
+        }
+    }
+}
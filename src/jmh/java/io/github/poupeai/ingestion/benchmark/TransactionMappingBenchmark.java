@@ -0,0 +1,106 @@
+package io.github.poupeai.ingestion.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.github.poupeai.ingestion.client.TransactionBatchJsonWriter;
+import io.github.poupeai.ingestion.client.dto.CreateTransactionRequest;
+import io.github.poupeai.ingestion.config.RabbitMQConfig;
+import io.github.poupeai.ingestion.domain.model.BankTransaction;
+import io.github.poupeai.ingestion.domain.model.IngestionJobContext;
+import io.github.poupeai.ingestion.domain.model.PersistenceTarget;
+import io.github.poupeai.ingestion.domain.model.TransactionBatch;
+import io.github.poupeai.ingestion.service.TransactionPersistenceService;
+import io.github.poupeai.ingestion.service.parser.OfxParserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de preparar e serializar um lote para o POST ao Core Service: conversão para o
+ * {@link TransactionBatch} colunar, escrita do JSON direto das colunas (caminho em streaming) e, para
+ * comparação, a montagem dos {@link CreateTransactionRequest} serializados pelo Jackson (caminho Feign).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class TransactionMappingBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    public int transactions;
+
+    private final TransactionPersistenceService persistenceService = new TransactionPersistenceService(null, null);
+    private final PersistenceTarget target = PersistenceTarget.from(new IngestionJobContext(
+            "job", UUID.randomUUID().toString(), UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(), UUID.randomUUID().toString()));
+
+    private ObjectMapper mapper;
+    private ObjectWriter writer;
+    private TransactionBatchJsonWriter batchWriter;
+    private List<BankTransaction> parsed;
+    private TransactionBatch batch;
+    private List<CreateTransactionRequest> requests;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mapper = new RabbitMQConfig().objectMapper();
+        writer = mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, CreateTransactionRequest.class));
+        batchWriter = new TransactionBatchJsonWriter(mapper);
+
+        Path file = OfxFixtures.generate(OfxFixtures.Format.SGML, transactions);
+        try (InputStream in = Files.newInputStream(file)) {
+            parsed = new OfxParserService().parse(in);
+        }
+        batch = encodeBatch();
+        requests = mapToRequests();
+    }
+
+    @Benchmark
+    public TransactionBatch encodeBatch() {
+        return TransactionBatch.of(parsed);
+    }
+
+    @Benchmark
+    public void writeColumnarJson() throws IOException {
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(OutputStream.nullOutputStream())) {
+            batchWriter.write(generator, batch, target);
+        }
+    }
+
+    /**
+     * Caminho completo em streaming: colunar a partir das transações categorizadas e escrita do JSON.
+     */
+    @Benchmark
+    public void encodeAndWriteColumnarJson() throws IOException {
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(OutputStream.nullOutputStream())) {
+            batchWriter.write(generator, encodeBatch(), target);
+        }
+    }
+
+    @Benchmark
+    public List<CreateTransactionRequest> mapToRequests() {
+        return persistenceService.toCreateRequests(batch, target);
+    }
+
+    @Benchmark
+    public void serializeRequests() throws IOException {
+        writer.writeValue(OutputStream.nullOutputStream(), requests);
+    }
+}
@@ -0,0 +1,113 @@
+package io.github.poupeai.ingestion.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.poupeai.ingestion.client.TransactionBatchJsonWriter;
+import io.github.poupeai.ingestion.client.WireCompression;
+import io.github.poupeai.ingestion.client.WireFormat;
+import io.github.poupeai.ingestion.config.RabbitMQConfig;
+import io.github.poupeai.ingestion.domain.model.IngestionJobContext;
+import io.github.poupeai.ingestion.domain.model.PersistenceTarget;
+import io.github.poupeai.ingestion.domain.model.TransactionBatch;
+import io.github.poupeai.ingestion.service.parser.OfxParserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU e bytes no fio do corpo do lote enviado ao Core Service, por formato e compressão.
+ * <p>
+ * A métrica principal é a vazão de serialização (+ compressão); o tamanho do corpo, que não muda entre
+ * invocações, é impresso ao fim de cada combinação de parâmetros ({@code wire bytes}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class WireFormatBenchmark {
+
+    @Param({"1000", "100000"})
+    public int transactions;
+
+    @Param({"JSON", "COLUMNAR_JSON"})
+    public WireFormat format;
+
+    @Param({"NONE", "GZIP", "ZSTD"})
+    public WireCompression compression;
+
+    private final PersistenceTarget target = PersistenceTarget.from(new IngestionJobContext(
+            "job", UUID.randomUUID().toString(), UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(), UUID.randomUUID().toString()));
+
+    private ObjectMapper mapper;
+    private TransactionBatchJsonWriter batchWriter;
+    private TransactionBatch batch;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mapper = new RabbitMQConfig().objectMapper();
+        batchWriter = new TransactionBatchJsonWriter(mapper);
+
+        Path file = OfxFixtures.generate(OfxFixtures.Format.SGML, transactions);
+        try (InputStream in = Files.newInputStream(file)) {
+            batch = TransactionBatch.of(new OfxParserService().parse(in));
+        }
+    }
+
+    @Benchmark
+    public long write() throws IOException {
+        CountingOutputStream wire = new CountingOutputStream();
+        try (OutputStream body = compression.wrap(wire);
+             JsonGenerator generator = mapper.getFactory().createGenerator(body)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            if (format == WireFormat.COLUMNAR_JSON) {
+                batchWriter.writeColumnar(generator, batch, target);
+            } else {
+                batchWriter.write(generator, batch, target);
+            }
+        }
+        return wire.count;
+    }
+
+    @TearDown(Level.Trial)
+    public void reportWireBytes() throws IOException {
+        long bytes = write();
+        System.out.printf("%nwire bytes [%s/%s, %d transações]: %d (%.1f bytes/transação)%n",
+                format, compression, transactions, bytes, (double) bytes / transactions);
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream() {
+            super(OutputStream.nullOutputStream());
+        }
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
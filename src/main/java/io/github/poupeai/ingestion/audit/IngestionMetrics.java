@@ -0,0 +1,171 @@
+package io.github.poupeai.ingestion.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.slf4j.Logger;
+import org.slf4j.MDC;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Métricas por estágio do job de ingestão.
+ * <p>
+ * A duração do job e de cada estágio é medida por {@link Observation}s: sem tracer, viram os timers
+ * {@code ingestion.job} e {@code ingestion.stage}; com um bridge do Micrometer Tracing no classpath,
+ * viram também spans (e exemplars no Prometheus), com o {@code trace.id} nos logs ECS. Os eventos emitidos
+ * por {@link #event} dentro de uma observação são anexados a ela.
+ * <p>
+ * O estágio {@code download} mede só a abertura do objeto no storage; o tempo bloqueado esperando os
+ * bytes fica em {@code ingestion.download.read}, com a tag {@code access}: em {@code stream} é a soma das
+ * leituras bloqueadas durante o parse; em {@code mapped} é a espera pelas partes ainda em download antes
+ * do mapeamento, já que o parse do arquivo mapeado não lê mais do storage. As duas séries não se somam.
+ * <p>
+ * Todas as tags têm cardinalidade limitada (estágio, formato, origem, resultado); o {@code job.id}
+ * só entra como chave de alta cardinalidade, que não vira tag de métrica.
+ */
+@Component
+public class IngestionMetrics {
+
+    public static final String DOWNLOAD = "download";
+    public static final String PARSE = "parse";
+    public static final String CATEGORIZE = "categorize";
+    public static final String PERSIST = "persist";
+    public static final String NOTIFY = "notify";
+
+    public static final String STREAM_ACCESS = "stream";
+    public static final String MAPPED_ACCESS = "mapped";
+
+    private final MeterRegistry meterRegistry;
+    private final ObservationRegistry observationRegistry;
+
+    private final DistributionSummary downloadedBytes;
+    private final Counter persistedRows;
+    private final ConcurrentMap<String, Timer> downloadReads = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counter> parsedRows = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, DistributionSummary> parseThroughput = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counter> categorizedRows = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Timer> waits = new ConcurrentHashMap<>();
+
+    public IngestionMetrics(MeterRegistry meterRegistry, ObservationRegistry observationRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.observationRegistry = observationRegistry;
+        this.downloadedBytes = DistributionSummary.builder("ingestion.download.bytes")
+                .description("Bytes lidos do storage por job")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.persistedRows = Counter.builder("ingestion.persisted.rows")
+                .description("Transações aceitas pelo Core Service")
+                .register(meterRegistry);
+    }
+
+    /**
+     * {@link Log#event} que também anexa o evento à observação corrente da thread (span ou contador
+     * {@code <observação>.<evento>}), ligando métricas e traces aos logs do mesmo tipo.
+     */
+    public void event(Logger logger, String eventType, String message, Object... args) {
+        Observation current = observationRegistry.getCurrentObservation();
+        if (current != null) {
+            current.event(Observation.Event.of(eventType.toLowerCase(Locale.ROOT).replace('_', '.'), eventType));
+        }
+        Log.event(logger, eventType, message, args);
+    }
+
+    /**
+     * Observação do job inteiro; quem chama define a tag {@code result} antes de {@code stop()}.
+     */
+    public Observation job() {
+        return Observation.createNotStarted("ingestion.job", observationRegistry)
+                .contextualName("ingestion job")
+                .highCardinalityKeyValue("job.id", String.valueOf(MDC.get("job.id")));
+    }
+
+    /**
+     * Observação de um estágio; {@code parent} liga o estágio ao job quando ele roda em outra thread.
+     */
+    public Observation stage(String stage, Observation parent) {
+        return Observation.createNotStarted("ingestion.stage", observationRegistry)
+                .contextualName("ingestion " + stage)
+                .parentObservation(parent)
+                .lowCardinalityKeyValue("stage", stage)
+                .highCardinalityKeyValue("job.id", String.valueOf(MDC.get("job.id")));
+    }
+
+    /**
+     * Observação corrente da thread, para ser usada como {@code parent} em estágios de outras threads.
+     */
+    public Observation current() {
+        return observationRegistry.getCurrentObservation();
+    }
+
+    /**
+     * @param access    {@link #STREAM_ACCESS} ou {@link #MAPPED_ACCESS}
+     * @param readNanos tempo bloqueado esperando o conteúdo do storage
+     */
+    public void downloaded(String access, long bytes, long readNanos) {
+        downloadedBytes.record(bytes);
+        downloadReads.computeIfAbsent(access, key -> Timer.builder("ingestion.download.read")
+                        .description("Tempo bloqueado esperando o arquivo do storage por job")
+                        .tag("access", key)
+                        .register(meterRegistry))
+                .record(readNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void parsed(String format, int rows, long elapsedNanos) {
+        String tag = format.toLowerCase(Locale.ROOT);
+        parsedRows.computeIfAbsent(tag, key -> Counter.builder("ingestion.parse.rows")
+                        .description("Transações lidas dos extratos")
+                        .tag("format", key)
+                        .register(meterRegistry))
+                .increment(rows);
+        if (elapsedNanos > 0) {
+            parseThroughput.computeIfAbsent(tag, key -> DistributionSummary.builder("ingestion.parse.throughput")
+                            .description("Transações lidas por segundo em cada extrato")
+                            .baseUnit("rows/s")
+                            .tag("format", key)
+                            .register(meterRegistry))
+                    .record(rows * 1e9 / elapsedNanos);
+        }
+    }
+
+    /**
+     * @param source {@code rule}, {@code cache}, {@code ai} ou {@code none}
+     */
+    public void categorized(String source, int rows) {
+        if (rows == 0) return;
+        categorizedRows.computeIfAbsent(source, key -> Counter.builder("ingestion.categorized.rows")
+                        .description("Transações por origem da categoria")
+                        .tag("source", key)
+                        .register(meterRegistry))
+                .increment(rows);
+    }
+
+    public void persisted(int rows) {
+        persistedRows.increment(rows);
+    }
+
+    /**
+     * Tempo que o estágio passou parado nas filas do pipeline: em {@code input}, esperando o estágio
+     * anterior; em {@code output}, esperando espaço no seguinte. Espera alta em {@code output} aponta o
+     * gargalo para o estágio seguinte, não para este.
+     */
+    public void waited(String stage, long inputNanos, long outputNanos) {
+        waitTimer(stage, "input").record(inputNanos, TimeUnit.NANOSECONDS);
+        waitTimer(stage, "output").record(outputNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer waitTimer(String stage, String queue) {
+        return waits.computeIfAbsent(stage + '/' + queue, key -> Timer.builder("ingestion.stage.wait")
+                .description("Tempo parado aguardando outro estágio do pipeline")
+                .tag("stage", stage)
+                .tag("queue", queue)
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,68 @@
+package io.github.poupeai.ingestion.audit;
+
+import org.slf4j.MDC;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+/**
+ * Propaga o MDC da thread que agenda a tarefa para a thread que a executa,
+ * para que os logs ECS de estágios assíncronos mantenham {@code job.id}, {@code profile.id} etc.
+ */
+public final class MdcContext {
+
+    private MdcContext() {
+    }
+
+    public static Runnable wrap(Runnable task) {
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        return () -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            apply(context);
+            try {
+                task.run();
+            } finally {
+                apply(previous);
+            }
+        };
+    }
+
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        return () -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            apply(context);
+            try {
+                return task.call();
+            } finally {
+                apply(previous);
+            }
+        };
+    }
+
+    /**
+     * Executor que aplica em todas as tarefas o MDC capturado no momento da criação,
+     * inclusive as agendadas depois a partir de threads sem contexto (timeouts, retries).
+     */
+    public static Executor propagating(Executor delegate) {
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        return task -> delegate.execute(() -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            apply(context);
+            try {
+                task.run();
+            } finally {
+                apply(previous);
+            }
+        });
+    }
+
+    private static void apply(Map<String, String> context) {
+        if (context == null) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(context);
+        }
+    }
+}
@@ -1,15 +1,20 @@
 package io.github.poupeai.ingestion.client;
 
 import io.github.poupeai.ingestion.client.dto.CreateTransactionRequest;
+import io.github.poupeai.ingestion.client.dto.ExistingTransaction;
+import io.github.poupeai.ingestion.client.dto.TransactionLookupRequest;
 import io.github.poupeai.ingestion.client.dto.UpdateIngestionJobRequest;
 import io.github.poupeai.ingestion.config.CoreFeignConfig;
 import io.github.poupeai.ingestion.dto.CategoryDTO;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import java.util.List;
@@ -20,12 +25,20 @@ import java.util.List;
         configuration = CoreFeignConfig.class
 )
 public interface CoreServiceClient {
+    /**
+     * Com {@code ifNoneMatch} informado, o Core responde 304 (lançado como {@code FeignException})
+     * quando a lista não mudou.
+     */
     @GetMapping("/api/internal/categories")
-    List<CategoryDTO> getCategories(@RequestParam("profileId") String profileId);
+    ResponseEntity<List<CategoryDTO>> getCategories(@RequestParam("profileId") String profileId,
+                                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch);
 
     @PostMapping("/api/internal/transactions/batch")
     void createTransactionsBatch(@RequestBody List<CreateTransactionRequest> transactions);
 
+    @PostMapping("/api/internal/transactions/lookup")
+    List<ExistingTransaction> lookupTransactions(@RequestBody TransactionLookupRequest request);
+
     @PatchMapping("/api/internal/ingestion-jobs/{id}")
     void updateStatus(@PathVariable("id") String id, @RequestBody UpdateIngestionJobRequest request);
 }
@@ -2,6 +2,7 @@ package io.github.poupeai.ingestion.client;
 
 import io.github.poupeai.ingestion.client.dto.CategorizationRequest;
 import io.github.poupeai.ingestion.client.dto.CategorizationResponse;
+import feign.Request;
 import io.github.poupeai.ingestion.config.CoreFeignConfig;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -13,6 +14,9 @@ import org.springframework.web.bind.annotation.RequestBody;
         configuration = CoreFeignConfig.class
 )
 public interface ReportServiceClient {
+    /**
+     * @param options timeouts desta chamada, no lugar dos configurados para o client
+     */
     @PostMapping("/api/internal/categorization/predict")
-    CategorizationResponse predictCategories(@RequestBody CategorizationRequest request);
+    CategorizationResponse predictCategories(@RequestBody CategorizationRequest request, Request.Options options);
 }
@@ -0,0 +1,217 @@
+package io.github.poupeai.ingestion.client;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import io.github.poupeai.ingestion.client.dto.CreateTransactionRequest;
+import io.github.poupeai.ingestion.client.dto.TransactionType;
+import io.github.poupeai.ingestion.domain.model.PersistenceTarget;
+import io.github.poupeai.ingestion.domain.model.TransactionBatch;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Escreve um {@link TransactionBatch} como o array JSON de {@link CreateTransactionRequest} esperado pelo
+ * Core Service, direto das colunas do lote: sem DTO por linha, sem {@link java.math.BigDecimal} para os
+ * valores em centavos e com os UUIDs do job e das categorias do lote renderizados uma vez só.
+ * <p>
+ * Os nomes dos campos seguem a {@link PropertyNamingStrategy} do {@link ObjectMapper} recebido, então o
+ * corpo é o mesmo que o Jackson geraria para a lista de DTOs.
+ * <p>
+ * {@link #writeColumnar} gera a forma compacta ({@link WireFormat#COLUMNAR_JSON}): as constantes do job
+ * uma vez só, a lista de colunas e cada transação como um array de valores nessa ordem.
+ */
+public final class TransactionBatchJsonWriter {
+
+    private final SerializedString profileIdField;
+    private final SerializedString bankAccountIdField;
+    private final SerializedString descriptionField;
+    private final SerializedString amountField;
+    private final SerializedString typeField;
+    private final SerializedString dateField;
+    private final SerializedString categoryIdField;
+    private final SerializedString originalStatementIdField;
+    private final SerializedString columnsField;
+    private final SerializedString rowsField;
+
+    public TransactionBatchJsonWriter(ObjectMapper objectMapper) {
+        PropertyNamingStrategy naming = objectMapper.getPropertyNamingStrategy();
+        this.profileIdField = field(naming, "profileId");
+        this.bankAccountIdField = field(naming, "bankAccountId");
+        this.descriptionField = field(naming, "description");
+        this.amountField = field(naming, "amount");
+        this.typeField = field(naming, "type");
+        this.dateField = field(naming, "date");
+        this.categoryIdField = field(naming, "categoryId");
+        this.originalStatementIdField = field(naming, "originalStatementId");
+        this.columnsField = field(naming, "columns");
+        this.rowsField = field(naming, "rows");
+    }
+
+    public void write(JsonGenerator generator, TransactionBatch batch, PersistenceTarget target) throws IOException {
+        String profileId = target.profileId().toString();
+        String bankAccountId = target.bankAccountId().toString();
+        String[] categories = categories(batch, target);
+        char[] number = new char[24];
+        char[] date = new char[10];
+
+        generator.writeStartArray();
+        for (int row = 0; row < batch.size(); row++) {
+            generator.writeStartObject();
+            generator.writeFieldName(profileIdField);
+            generator.writeString(profileId);
+            generator.writeFieldName(bankAccountIdField);
+            generator.writeString(bankAccountId);
+            generator.writeFieldName(descriptionField);
+            generator.writeString(batch.description(row));
+            generator.writeFieldName(amountField);
+            writeAmount(generator, batch, row, number);
+            generator.writeFieldName(typeField);
+            writeType(generator, batch, row);
+            generator.writeFieldName(dateField);
+            writeDate(generator, batch.epochDay(row), date);
+            generator.writeFieldName(categoryIdField);
+            writeStringOrNull(generator, category(batch, row, categories));
+            generator.writeFieldName(originalStatementIdField);
+            writeStringOrNull(generator, batch.fitId(row));
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * Forma compacta: {@code {"profile_id", "bank_account_id", "columns": [...], "rows": [[...], ...]}},
+     * com as colunas na ordem dos campos de {@link CreateTransactionRequest}.
+     */
+    public void writeColumnar(JsonGenerator generator, TransactionBatch batch, PersistenceTarget target) throws IOException {
+        String[] categories = categories(batch, target);
+        char[] number = new char[24];
+        char[] date = new char[10];
+
+        generator.writeStartObject();
+        generator.writeFieldName(profileIdField);
+        generator.writeString(target.profileId().toString());
+        generator.writeFieldName(bankAccountIdField);
+        generator.writeString(target.bankAccountId().toString());
+        generator.writeFieldName(columnsField);
+        generator.writeStartArray();
+        for (SerializedString column : List.of(descriptionField, amountField, typeField, dateField, categoryIdField, originalStatementIdField)) {
+            generator.writeString(column);
+        }
+        generator.writeEndArray();
+
+        generator.writeFieldName(rowsField);
+        generator.writeStartArray();
+        for (int row = 0; row < batch.size(); row++) {
+            generator.writeStartArray();
+            generator.writeString(batch.description(row));
+            writeAmount(generator, batch, row, number);
+            writeType(generator, batch, row);
+            writeDate(generator, batch.epochDay(row), date);
+            writeStringOrNull(generator, category(batch, row, categories));
+            writeStringOrNull(generator, batch.fitId(row));
+            generator.writeEndArray();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    /**
+     * UUIDs das categorias do dicionário do lote, normalizados, seguidos dos fallbacks de receita e despesa.
+     */
+    private static String[] categories(TransactionBatch batch, PersistenceTarget target) {
+        int count = batch.categoryCount();
+        String[] categories = new String[count + 2];
+        for (int id = 0; id < count; id++) {
+            categories[id] = UUID.fromString(batch.category(id)).toString();
+        }
+        categories[count] = toStringOrNull(target.fallbackIncomeCategoryId());
+        categories[count + 1] = toStringOrNull(target.fallbackExpenseCategoryId());
+        return categories;
+    }
+
+    private static String category(TransactionBatch batch, int row, String[] categories) {
+        int categoryId = batch.categoryId(row);
+        if (categoryId >= 0) return categories[categoryId];
+        return categories[batch.isExpense(row) ? categories.length - 1 : categories.length - 2];
+    }
+
+    private static void writeAmount(JsonGenerator generator, TransactionBatch batch, int row, char[] number) throws IOException {
+        if (batch.isIrregularAmount(row)) {
+            generator.writeNumber(batch.absoluteAmount(row));
+        } else {
+            generator.writeNumber(number, 0, formatCents(batch.absoluteCents(row), batch.amountScale(row), number));
+        }
+    }
+
+    private static void writeType(JsonGenerator generator, TransactionBatch batch, int row) throws IOException {
+        generator.writeString(batch.isExpense(row) ? TransactionType.EXPENSE.name() : TransactionType.INCOME.name());
+    }
+
+    /**
+     * Renderiza {@code cents} com {@code scale} casas decimais (0 a 2), como {@code BigDecimal.toString()}.
+     *
+     * @return quantidade de caracteres escritos em {@code out}
+     */
+    static int formatCents(long cents, int scale, char[] out) {
+        long value = scale == 2 ? cents : scale == 1 ? cents / 10 : cents / 100;
+        int position = out.length;
+        for (int i = 0; i < scale; i++) {
+            out[--position] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        if (scale > 0) out[--position] = '.';
+        do {
+            out[--position] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+
+        int length = out.length - position;
+        System.arraycopy(out, position, out, 0, length);
+        return length;
+    }
+
+    private static void writeDate(JsonGenerator generator, int epochDay, char[] out) throws IOException {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        int year = date.getYear();
+        if (year < 1000 || year > 9999) {
+            generator.writeString(date.toString());
+            return;
+        }
+        writeDigits(out, 0, year, 4);
+        out[4] = '-';
+        writeDigits(out, 5, date.getMonthValue(), 2);
+        out[7] = '-';
+        writeDigits(out, 8, date.getDayOfMonth(), 2);
+        generator.writeString(out, 0, 10);
+    }
+
+    private static void writeDigits(char[] out, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            out[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static void writeStringOrNull(JsonGenerator generator, String value) throws IOException {
+        if (value != null) {
+            generator.writeString(value);
+        } else {
+            generator.writeNull();
+        }
+    }
+
+    private static String toStringOrNull(UUID value) {
+        return value != null ? value.toString() : null;
+    }
+
+    private static SerializedString field(PropertyNamingStrategy naming, String property) {
+        String name = naming instanceof PropertyNamingStrategies.NamingBase base ? base.translate(property) : property;
+        return new SerializedString(name);
+    }
+}
@@ -0,0 +1,270 @@
+package io.github.poupeai.ingestion.client;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import feign.Request;
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+import io.github.poupeai.ingestion.audit.Log;
+import io.github.poupeai.ingestion.client.bulkhead.AdaptiveConcurrencyLimiter;
+import io.github.poupeai.ingestion.client.bulkhead.Bulkhead;
+import io.github.poupeai.ingestion.client.bulkhead.BulkheadFeignClient;
+import io.github.poupeai.ingestion.domain.exception.DownstreamServiceException;
+import io.github.poupeai.ingestion.domain.model.PersistenceTarget;
+import io.github.poupeai.ingestion.domain.model.TransactionBatch;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.io.entity.AbstractHttpEntity;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.openfeign.FeignClientFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * POST de lote de transações para o Core Service com corpo JSON gerado sob demanda.
+ * <p>
+ * O lote colunar é serializado pelo {@link TransactionBatchJsonWriter} direto na conexão HC5 (chunked
+ * transfer encoding), sem criar DTOs por transação nem montar o corpo inteiro em memória.
+ * Usa os mesmos {@link RequestInterceptor}s do Feign client {@code core-service} (ex.: {@code x-api-key})
+ * e registra cada chamada em {@code transactions.batch.requests}, por status, resultado e exceção.
+ * <p>
+ * Roda no pool e sob o limitador do {@link Bulkhead} do Core Service, como o próprio Feign client, mas não
+ * passa pelo Feign: os {@code Request.Options} e o {@code Retryer} configurados para o client não valem aqui.
+ * Os timeouts são os do pool do bulkhead ({@code app.downstream.connect-timeout} e
+ * {@code app.downstream.core.socket-timeout}) e o único retry na chamada é o padrão do HC5 do pool (uma nova
+ * tentativa em 429/503); qualquer outra falha sobe para o job, que é retentado pelo
+ * {@link io.github.poupeai.ingestion.service.retry.IngestionRetryScheduler}.
+ * <p>
+ * O formato ({@code app.downstream.core.wire.format}) e a compressão ({@code app.downstream.core.wire.compression})
+ * são configuráveis. Se o Core Service responder 415 a um corpo que não é JSON puro, o client passa a usar
+ * JSON sem compressão até reiniciar e reenvia o lote na hora. Os bytes enviados ficam em
+ * {@code transactions.batch.wire.bytes}, por formato e compressão.
+ */
+@Slf4j
+@Component
+public class TransactionBatchStreamingClient {
+
+    static final String CLIENT_NAME = "core-service";
+    static final String BATCH_PATH = "/api/internal/transactions/batch";
+    static final String ENDPOINT = "createTransactionsBatch";
+
+    private final Bulkhead bulkhead;
+    private final FeignClientFactory feignClientFactory;
+    private final TransactionBatchJsonWriter batchWriter;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final String batchUrl;
+
+    private volatile List<RequestInterceptor> interceptors;
+    private volatile WireFormat format;
+    private volatile WireCompression compression;
+
+    public TransactionBatchStreamingClient(@Qualifier("coreServiceBulkhead") Bulkhead bulkhead,
+                                           FeignClientFactory feignClientFactory,
+                                           ObjectMapper objectMapper,
+                                           MeterRegistry meterRegistry,
+                                           @Value("${app.services.core-url}") String coreUrl,
+                                           @Value("${app.downstream.core.wire.format}") WireFormat format,
+                                           @Value("${app.downstream.core.wire.compression}") WireCompression compression) {
+        this.bulkhead = bulkhead;
+        this.feignClientFactory = feignClientFactory;
+        this.objectMapper = objectMapper;
+        this.batchWriter = new TransactionBatchJsonWriter(objectMapper);
+        this.meterRegistry = meterRegistry;
+        this.batchUrl = coreUrl + BATCH_PATH;
+        this.format = format;
+        this.compression = compression;
+    }
+
+    public void createTransactionsBatch(TransactionBatch batch, PersistenceTarget target) {
+        WireFormat sentFormat = format;
+        WireCompression sentCompression = compression;
+        int code = send(batch, target, sentFormat, sentCompression);
+        if (code == HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE && (sentFormat != WireFormat.JSON || sentCompression != WireCompression.NONE)) {
+            Log.warn(log, "WIRE_FORMAT_REJECTED", "Core Service recusou {} com compressão {}; usando JSON sem compressão",
+                    sentFormat, sentCompression);
+            format = WireFormat.JSON;
+            compression = WireCompression.NONE;
+            code = send(batch, target, WireFormat.JSON, WireCompression.NONE);
+        }
+        if (code < 200 || code >= 300) {
+            throw new DownstreamServiceException("Core Service respondeu " + code + " ao lote de transações", code);
+        }
+    }
+
+    private int send(TransactionBatch batch, PersistenceTarget target, WireFormat format, WireCompression compression) {
+        HttpPost post = new HttpPost(batchUrl);
+        applyInterceptors(post);
+        StreamingBatchEntity entity = entity(batch, target, format, compression);
+        post.setEntity(entity);
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String status = "CLIENT_ERROR";
+        String outcome = "UNKNOWN";
+        String exception = "none";
+        AdaptiveConcurrencyLimiter limiter = bulkhead.limiter(ENDPOINT);
+        boolean acquired = false;
+        boolean overloaded = true;
+        long startedAt = 0;
+        try {
+            limiter.acquire();
+            acquired = true;
+            startedAt = System.nanoTime();
+            int code = bulkhead.httpClient().execute(post, response -> {
+                EntityUtils.consume(response.getEntity());
+                return response.getCode();
+            });
+            overloaded = BulkheadFeignClient.isOverloaded(code);
+            status = String.valueOf(code);
+            outcome = outcome(code);
+            DistributionSummary.builder("transactions.batch.wire.bytes")
+                    .baseUnit("bytes")
+                    .tag("format", format.name().toLowerCase())
+                    .tag("compression", compression.name().toLowerCase())
+                    .register(meterRegistry)
+                    .record(entity.bytesWritten());
+            return code;
+        } catch (IOException e) {
+            exception = e.getClass().getSimpleName();
+            throw new DownstreamServiceException("Falha de I/O ao enviar lote de transações ao Core Service", e);
+        } finally {
+            if (acquired) limiter.release(System.nanoTime() - startedAt, overloaded);
+            sample.stop(Timer.builder("transactions.batch.requests")
+                    .description("Envios de lote de transações ao Core Service pelo client de streaming")
+                    .tag("status", status)
+                    .tag("outcome", outcome)
+                    .tag("exception", exception)
+                    .register(meterRegistry));
+        }
+    }
+
+    StreamingBatchEntity entity(TransactionBatch batch, PersistenceTarget target, WireFormat format, WireCompression compression) {
+        return new StreamingBatchEntity(batch, target, format, compression);
+    }
+
+    private void applyInterceptors(HttpPost post) {
+        RequestTemplate template = new RequestTemplate().method(Request.HttpMethod.POST).uri(BATCH_PATH);
+        for (RequestInterceptor interceptor : interceptors()) {
+            interceptor.apply(template);
+        }
+        template.headers().forEach((name, values) -> values.forEach(value -> post.addHeader(name, value)));
+    }
+
+    private List<RequestInterceptor> interceptors() {
+        List<RequestInterceptor> resolved = interceptors;
+        if (resolved == null) {
+            var instances = feignClientFactory.getInstances(CLIENT_NAME, RequestInterceptor.class);
+            resolved = instances != null ? List.copyOf(instances.values()) : List.of();
+            interceptors = resolved;
+        }
+        return resolved;
+    }
+
+    private static String outcome(int code) {
+        if (code >= 200 && code < 300) return "SUCCESS";
+        if (code >= 400 && code < 500) return "CLIENT_ERROR";
+        if (code >= 500) return "SERVER_ERROR";
+        return "UNKNOWN";
+    }
+
+    final class StreamingBatchEntity extends AbstractHttpEntity {
+        private final TransactionBatch batch;
+        private final PersistenceTarget target;
+        private final WireFormat format;
+        private final WireCompression compression;
+        private long bytesWritten;
+
+        private StreamingBatchEntity(TransactionBatch batch, PersistenceTarget target,
+                                     WireFormat format, WireCompression compression) {
+            super(ContentType.create(format.mimeType(), StandardCharsets.UTF_8), compression.contentEncoding(), true);
+            this.batch = batch;
+            this.target = target;
+            this.format = format;
+            this.compression = compression;
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            CountingOutputStream counting = new CountingOutputStream(out);
+            try (OutputStream body = compression.wrap(counting);
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(body)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                if (format == WireFormat.COLUMNAR_JSON) {
+                    batchWriter.writeColumnar(generator, batch, target);
+                } else {
+                    batchWriter.write(generator, batch, target);
+                }
+            }
+            bytesWritten = counting.count;
+        }
+
+        private long bytesWritten() {
+            return bytesWritten;
+        }
+
+        /**
+         * Gera o corpo inteiro em memória. O envio usa {@link #writeTo}; isto só existe para quem precisa
+         * ler o corpo como stream (ex.: interceptors de log do HC5).
+         */
+        @Override
+        public InputStream getContent() throws IOException {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            writeTo(buffer);
+            return new ByteArrayInputStream(buffer.toByteArray());
+        }
+
+        @Override
+        public long getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return true;
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package io.github.poupeai.ingestion.client;
+
+import com.github.luben.zstd.ZstdOutputStream;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compressão do corpo das requisições, anunciada em {@code Content-Encoding}.
+ */
+public enum WireCompression {
+    NONE(null),
+    GZIP("gzip"),
+    ZSTD("zstd");
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int ZSTD_LEVEL = 3;
+
+    private final String contentEncoding;
+
+    WireCompression(String contentEncoding) {
+        this.contentEncoding = contentEncoding;
+    }
+
+    /**
+     * @return o valor de {@code Content-Encoding}, ou {@code null} sem compressão
+     */
+    public String contentEncoding() {
+        return contentEncoding;
+    }
+
+    /**
+     * Envolve {@code out} com o compressor. Fechar o stream devolvido encerra o frame comprimido, mas
+     * não fecha {@code out}.
+     */
+    public OutputStream wrap(OutputStream out) throws IOException {
+        OutputStream target = new NonClosingOutputStream(out);
+        return switch (this) {
+            case NONE -> target;
+            case GZIP -> new GZIPOutputStream(target, BUFFER_SIZE);
+            case ZSTD -> new ZstdOutputStream(target, ZSTD_LEVEL);
+        };
+    }
+
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+
+        private NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+}
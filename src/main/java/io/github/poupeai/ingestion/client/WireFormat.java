@@ -0,0 +1,21 @@
+package io.github.poupeai.ingestion.client;
+
+/**
+ * Formato do corpo do lote de transações enviado ao Core Service.
+ */
+public enum WireFormat {
+    /** Array de {@code CreateTransactionRequest}, um objeto por transação. */
+    JSON("application/json"),
+    /** Constantes do job uma vez e transações como linhas; ver {@link TransactionBatchJsonWriter#writeColumnar}. */
+    COLUMNAR_JSON("application/vnd.poupeai.transaction-batch.columnar+json");
+
+    private final String mimeType;
+
+    WireFormat(String mimeType) {
+        this.mimeType = mimeType;
+    }
+
+    public String mimeType() {
+        return mimeType;
+    }
+}
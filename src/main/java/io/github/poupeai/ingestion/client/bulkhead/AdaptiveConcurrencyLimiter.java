@@ -0,0 +1,137 @@
+package io.github.poupeai.ingestion.client.bulkhead;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limite de chamadas simultâneas a um endpoint ajustado por AIMD a partir da latência observada.
+ * <p>
+ * Cada chamada concluída abaixo de {@code latency-threshold} com o limite em uso (ao menos metade dos
+ * slots ocupados) soma 1 ao limite, até {@code max}; uma chamada lenta ou com sinal de sobrecarga
+ * (erro de I/O, 429, 503, 504) multiplica o limite por {@link #BACKOFF_RATIO}, até {@code min}.
+ * <p>
+ * Sem slot livre, até {@code max-queued} chamadas esperam até {@code queue-timeout}; as demais são
+ * rejeitadas na hora com {@link ConcurrencyLimitExceededException}.
+ */
+public final class AdaptiveConcurrencyLimiter {
+
+    static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final int maxQueued;
+    private final long queueTimeoutNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private long rejected;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, Duration latencyThreshold,
+                                      int maxQueued, Duration queueTimeout) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.clamp(initialLimit, this.minLimit, this.maxLimit);
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.maxQueued = Math.max(0, maxQueued);
+        this.queueTimeoutNanos = queueTimeout.toNanos();
+    }
+
+    /**
+     * Ocupa um slot, esperando na fila se necessário. Todo acquire bem-sucedido precisa de um
+     * {@link #release}.
+     */
+    public void acquire() throws ConcurrencyLimitExceededException {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return;
+            }
+            if (queued >= maxQueued) {
+                rejected++;
+                throw new ConcurrencyLimitExceededException("Fila cheia (" + queued + " aguardando, limite " + (int) limit + ")");
+            }
+
+            queued++;
+            try {
+                long remaining = queueTimeoutNanos;
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        rejected++;
+                        throw new ConcurrencyLimitExceededException("Sem slot livre após " + Duration.ofNanos(queueTimeoutNanos)
+                                + " (limite " + (int) limit + ")");
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+                inFlight++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ConcurrencyLimitExceededException("Interrompido aguardando slot");
+            } finally {
+                queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param overloaded a chamada falhou com um sinal de sobrecarga do servidor
+     */
+    public void release(long latencyNanos, boolean overloaded) {
+        lock.lock();
+        try {
+            if (overloaded || latencyNanos > latencyThresholdNanos) {
+                limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+            } else if (inFlight * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+            inFlight--;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int limit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int queued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long rejected() {
+        lock.lock();
+        try {
+            return rejected;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package io.github.poupeai.ingestion.client.bulkhead;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.Timeout;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Recursos isolados de um serviço downstream: um pool de conexões HC5 próprio e um
+ * {@link AdaptiveConcurrencyLimiter} por endpoint. Um serviço lento esgota só o próprio pool e os
+ * próprios limites, sem afetar as chamadas aos demais.
+ * <p>
+ * Exporta, com as tags {@code client} e {@code endpoint}, os gauges {@code downstream.concurrency.limit},
+ * {@code .in-flight} e {@code .queued} e o contador {@code downstream.concurrency.rejected}; o pool
+ * aparece em {@code downstream.pool.leased} e {@code downstream.pool.pending}.
+ */
+public final class Bulkhead implements AutoCloseable {
+
+    private final String name;
+    private final Settings settings;
+    private final MeterRegistry meterRegistry;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final ConcurrentMap<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    public Bulkhead(String name, Settings settings, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.settings = settings;
+        this.meterRegistry = meterRegistry;
+        this.connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(settings.maxConnections())
+                .setMaxConnPerRoute(settings.maxConnections())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(settings.connectTimeout()))
+                        .setSocketTimeout(Timeout.of(settings.socketTimeout()))
+                        .build())
+                .build();
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .disableCookieManagement()
+                .useSystemProperties()
+                .build();
+
+        Tags tags = Tags.of("client", name);
+        Gauge.builder("downstream.pool.leased", connectionManager, pool -> pool.getTotalStats().getLeased())
+                .description("Conexões em uso no pool do serviço")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("downstream.pool.pending", connectionManager, pool -> pool.getTotalStats().getPending())
+                .description("Requisições aguardando conexão do pool do serviço")
+                .tags(tags)
+                .register(meterRegistry);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public CloseableHttpClient httpClient() {
+        return httpClient;
+    }
+
+    /**
+     * @param endpoint identificador de cardinalidade limitada (nome do método do client)
+     */
+    public AdaptiveConcurrencyLimiter limiter(String endpoint) {
+        AdaptiveConcurrencyLimiter limiter = limiters.get(endpoint);
+        return limiter != null ? limiter : limiters.computeIfAbsent(endpoint, this::register);
+    }
+
+    @Override
+    public void close() {
+        httpClient.close(CloseMode.GRACEFUL);
+    }
+
+    private AdaptiveConcurrencyLimiter register(String endpoint) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(settings.initialLimit(), settings.minLimit(),
+                settings.maxLimit(), settings.latencyThreshold(), settings.maxQueued(), settings.queueTimeout());
+        Tags tags = Tags.of("client", name, "endpoint", endpoint);
+        Gauge.builder("downstream.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::limit)
+                .description("Limite atual de chamadas simultâneas")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("downstream.concurrency.in-flight", limiter, AdaptiveConcurrencyLimiter::inFlight)
+                .description("Chamadas em andamento")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("downstream.concurrency.queued", limiter, AdaptiveConcurrencyLimiter::queued)
+                .description("Chamadas aguardando slot")
+                .tags(tags)
+                .register(meterRegistry);
+        FunctionCounter.builder("downstream.concurrency.rejected", limiter, AdaptiveConcurrencyLimiter::rejected)
+                .description("Chamadas descartadas por falta de slot")
+                .tags(tags)
+                .register(meterRegistry);
+        return limiter;
+    }
+
+    /**
+     * Configuração de um bulkhead; o limite de cada endpoint nunca passa de {@code maxConnections}.
+     */
+    public record Settings(int maxConnections,
+                           Duration connectTimeout,
+                           Duration socketTimeout,
+                           int initialLimit,
+                           int minLimit,
+                           int maxLimit,
+                           Duration latencyThreshold,
+                           int maxQueued,
+                           Duration queueTimeout) {
+
+        public Settings {
+            maxLimit = Math.min(maxLimit, maxConnections);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package io.github.poupeai.ingestion.client.bulkhead;
+
+import feign.Client;
+import feign.MethodMetadata;
+import feign.Request;
+import feign.Response;
+import feign.hc5.ApacheHttp5Client;
+
+import java.io.IOException;
+
+/**
+ * {@link Client} do Feign que executa as chamadas no pool do {@link Bulkhead} e passa cada uma pelo
+ * limitador do endpoint (o método do client, como {@code predictCategories}).
+ */
+public final class BulkheadFeignClient implements Client {
+
+    private final Bulkhead bulkhead;
+    private final Client delegate;
+
+    public BulkheadFeignClient(Bulkhead bulkhead) {
+        this.bulkhead = bulkhead;
+        this.delegate = new ApacheHttp5Client(bulkhead.httpClient());
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        AdaptiveConcurrencyLimiter limiter = bulkhead.limiter(endpoint(request));
+        limiter.acquire();
+        long start = System.nanoTime();
+        boolean overloaded = true;
+        try {
+            Response response = delegate.execute(request, options);
+            overloaded = isOverloaded(response.status());
+            return response;
+        } finally {
+            limiter.release(System.nanoTime() - start, overloaded);
+        }
+    }
+
+    /**
+     * Respostas que indicam servidor sobrecarregado e, portanto, reduzem o limite.
+     */
+    public static boolean isOverloaded(int status) {
+        return status == 429 || status == 503 || status == 504;
+    }
+
+    private static String endpoint(Request request) {
+        MethodMetadata metadata = request.requestTemplate() != null ? request.requestTemplate().methodMetadata() : null;
+        return metadata != null && metadata.method() != null ? metadata.method().getName() : request.httpMethod().name();
+    }
+}
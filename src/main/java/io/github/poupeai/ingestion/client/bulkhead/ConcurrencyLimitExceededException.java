@@ -0,0 +1,14 @@
+package io.github.poupeai.ingestion.client.bulkhead;
+
+import java.io.IOException;
+
+/**
+ * Chamada descartada pelo {@link AdaptiveConcurrencyLimiter} antes de sair do processo. É um
+ * {@link IOException} para seguir o mesmo tratamento das falhas de conexão nos clients HTTP.
+ */
+public class ConcurrencyLimitExceededException extends IOException {
+
+    public ConcurrencyLimitExceededException(String message) {
+        super(message);
+    }
+}
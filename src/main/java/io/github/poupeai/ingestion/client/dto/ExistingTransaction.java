@@ -0,0 +1,12 @@
+package io.github.poupeai.ingestion.client.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record ExistingTransaction(
+        String originalStatementId,
+        BigDecimal amount,
+        TransactionType type,
+        LocalDate date,
+        String description
+) { }
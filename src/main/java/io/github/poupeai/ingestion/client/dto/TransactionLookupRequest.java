@@ -0,0 +1,15 @@
+package io.github.poupeai.ingestion.client.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Consulta ao Core Service das transações já gravadas numa conta: as que têm um dos
+ * {@code originalStatementIds} e todas as das {@code dates}.
+ */
+public record TransactionLookupRequest(
+        UUID bankAccountId,
+        List<String> originalStatementIds,
+        List<LocalDate> dates
+) { }
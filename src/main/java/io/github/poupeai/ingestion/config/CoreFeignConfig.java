@@ -1,9 +1,14 @@
 package io.github.poupeai.ingestion.config;
 
+import feign.Client;
 import feign.RequestInterceptor;
+import io.github.poupeai.ingestion.client.bulkhead.Bulkhead;
+import io.github.poupeai.ingestion.client.bulkhead.BulkheadFeignClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 
+import java.util.List;
+
 public class CoreFeignConfig {
     @Value("${app.security.internal-api-key}")
     private String internalApiKey;
@@ -12,4 +17,18 @@ public class CoreFeignConfig {
     public RequestInterceptor requestInterceptor() {
         return template -> template.header("x-api-key", internalApiKey);
     }
+
+    /**
+     * Cada Feign client usa o pool e os limites do {@link Bulkhead} de mesmo nome, em vez do
+     * {@code CloseableHttpClient} compartilhado.
+     */
+    @Bean
+    public Client feignClient(List<Bulkhead> bulkheads,
+                              @Value("${spring.cloud.openfeign.client.name}") String clientName) {
+        Bulkhead bulkhead = bulkheads.stream()
+                .filter(candidate -> candidate.name().equals(clientName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Nenhum bulkhead configurado para o client " + clientName));
+        return new BulkheadFeignClient(bulkhead);
+    }
 }
@@ -0,0 +1,47 @@
+package io.github.poupeai.ingestion.config;
+
+import io.github.poupeai.ingestion.client.bulkhead.Bulkhead;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Um {@link Bulkhead} por serviço downstream, com o nome do Feign client correspondente. A persistência
+ * de transações e as atualizações de status usam o do Core Service; a IA, o do Report Service.
+ */
+@Configuration
+public class DownstreamBulkheadConfig {
+
+    @Bean(destroyMethod = "close")
+    public Bulkhead coreServiceBulkhead(MeterRegistry meterRegistry,
+                                        @Value("${app.downstream.core.max-connections}") int maxConnections,
+                                        @Value("${app.downstream.core.socket-timeout}") Duration socketTimeout,
+                                        @Value("${app.downstream.core.limit.initial}") int initialLimit,
+                                        @Value("${app.downstream.core.limit.max}") int maxLimit,
+                                        @Value("${app.downstream.core.limit.latency-threshold}") Duration latencyThreshold,
+                                        @Value("${app.downstream.core.queue.max-size}") int maxQueued,
+                                        @Value("${app.downstream.core.queue.timeout}") Duration queueTimeout,
+                                        @Value("${app.downstream.connect-timeout}") Duration connectTimeout,
+                                        @Value("${app.downstream.limit.min}") int minLimit) {
+        return new Bulkhead("core-service", new Bulkhead.Settings(maxConnections, connectTimeout, socketTimeout,
+                initialLimit, minLimit, maxLimit, latencyThreshold, maxQueued, queueTimeout), meterRegistry);
+    }
+
+    @Bean(destroyMethod = "close")
+    public Bulkhead reportServiceBulkhead(MeterRegistry meterRegistry,
+                                          @Value("${app.downstream.report.max-connections}") int maxConnections,
+                                          @Value("${app.downstream.report.socket-timeout}") Duration socketTimeout,
+                                          @Value("${app.downstream.report.limit.initial}") int initialLimit,
+                                          @Value("${app.downstream.report.limit.max}") int maxLimit,
+                                          @Value("${app.downstream.report.limit.latency-threshold}") Duration latencyThreshold,
+                                          @Value("${app.downstream.report.queue.max-size}") int maxQueued,
+                                          @Value("${app.downstream.report.queue.timeout}") Duration queueTimeout,
+                                          @Value("${app.downstream.connect-timeout}") Duration connectTimeout,
+                                          @Value("${app.downstream.limit.min}") int minLimit) {
+        return new Bulkhead("report-service", new Bulkhead.Settings(maxConnections, connectTimeout, socketTimeout,
+                initialLimit, minLimit, maxLimit, latencyThreshold, maxQueued, queueTimeout), meterRegistry);
+    }
+}
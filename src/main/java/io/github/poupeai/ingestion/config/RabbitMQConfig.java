@@ -5,12 +5,17 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.github.poupeai.ingestion.listener.IngestionLane;
+import io.github.poupeai.ingestion.service.retry.RetryTopology;
+import org.springframework.amqp.core.AcknowledgeMode;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
 import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.Declarables;
 import org.springframework.amqp.core.Queue;
 import org.springframework.amqp.core.QueueBuilder;
 import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
@@ -19,6 +24,10 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.time.Duration;
+import java.util.Arrays;
 
 @Configuration
 public class RabbitMQConfig {
@@ -34,6 +43,24 @@ public class RabbitMQConfig {
     @Value("${app.rabbitmq.notification.exchange}")
     private String notificationExchangeName;
 
+    @Value("${app.rabbitmq.listener.consumers}")
+    private int listenerConsumers;
+
+    @Value("${app.rabbitmq.listener.prefetch}")
+    private int listenerPrefetch;
+
+    @Value("${app.rabbitmq.listener.small.consumers}")
+    private int smallLaneConsumers;
+
+    @Value("${app.rabbitmq.listener.small.prefetch}")
+    private int smallLanePrefetch;
+
+    @Value("${app.rabbitmq.listener.large.consumers}")
+    private int largeLaneConsumers;
+
+    @Value("${app.rabbitmq.listener.large.prefetch}")
+    private int largeLanePrefetch;
+
     @Bean
     @Primary
     public ObjectMapper objectMapper() {
@@ -46,8 +73,35 @@ public class RabbitMQConfig {
     }
 
     @Bean
-    public Queue ingestionQueue() {
-        return QueueBuilder.durable(queueName).build();
+    public RetryTopology retryTopology(@Value("${app.rabbitmq.retry.max-attempts}") int maxAttempts,
+                                       @Value("${app.rabbitmq.retry.initial-delay}") Duration initialDelay,
+                                       @Value("${app.rabbitmq.retry.multiplier}") double multiplier,
+                                       @Value("${app.rabbitmq.retry.max-delay}") Duration maxDelay) {
+        return new RetryTopology(queueName, maxAttempts, initialDelay, multiplier, maxDelay);
+    }
+
+    @Bean
+    public Queue ingestionQueue(RetryTopology retryTopology) {
+        return retryTopology.jobQueue();
+    }
+
+    @Bean
+    public Declarables ingestionRetryQueues(RetryTopology retryTopology) {
+        return retryTopology.declarables();
+    }
+
+    /**
+     * Filas das {@link IngestionLane}s, abastecidas pelo {@code IngestionLaneRouter}. Entregas rejeitadas
+     * vão para a fila de estacionamento, como na fila de jobs.
+     */
+    @Bean
+    public Declarables ingestionLaneQueues(RetryTopology retryTopology) {
+        return new Declarables(Arrays.stream(IngestionLane.values())
+                .map(lane -> QueueBuilder.durable(lane.queue(queueName))
+                        .deadLetterExchange("")
+                        .deadLetterRoutingKey(retryTopology.parkingQueue())
+                        .build())
+                .toList());
     }
 
     @Bean
@@ -72,10 +126,63 @@ public class RabbitMQConfig {
         return new Jackson2JsonMessageConverter(objectMapper);
     }
 
+    /**
+     * Consumers em virtual threads com ack manual: o listener devolve um {@code CompletableFuture}
+     * e o ack acontece quando ele é concluído. Na fila de jobs, consumida pelo {@code IngestionLaneRouter},
+     * isso é quando o encaminhamento para a faixa é confirmado.
+     * <p>
+     * Entregas rejeitadas não voltam para a fila: vão para a fila de estacionamento pelo dead-letter da
+     * fila, declarado nas faixas e aplicado por policy na fila de jobs ({@link RetryTopology}). Falhas
+     * temporárias dos jobs são reagendadas pelo {@code IngestionRetryScheduler}.
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(ConnectionFactory connectionFactory,
+                                                                               MessageConverter jsonMessageConverter) {
+        return containerFactory(connectionFactory, jsonMessageConverter, listenerConsumers, listenerPrefetch, "ingestion-consumer-");
+    }
+
+    /**
+     * Consumers de cada faixa: o ack acontece quando o job termina. O prefetch limita quantos jobs da
+     * faixa podem estar em andamento ou aguardando vez em {@code ProfileOrderedJobExecutor}, então deve
+     * ser maior ou igual a {@code app.ingestion.lanes.<faixa>.max-concurrent-jobs}. Com um único consumer
+     * a ordem de entrega da faixa é preservada por perfil; entre as duas faixas não há ordem garantida.
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory smallLaneContainerFactory(ConnectionFactory connectionFactory,
+                                                                          MessageConverter jsonMessageConverter) {
+        return containerFactory(connectionFactory, jsonMessageConverter, smallLaneConsumers, smallLanePrefetch, "ingestion-small-");
+    }
+
+    @Bean
+    public SimpleRabbitListenerContainerFactory largeLaneContainerFactory(ConnectionFactory connectionFactory,
+                                                                          MessageConverter jsonMessageConverter) {
+        return containerFactory(connectionFactory, jsonMessageConverter, largeLaneConsumers, largeLanePrefetch, "ingestion-large-");
+    }
+
+    private static SimpleRabbitListenerContainerFactory containerFactory(ConnectionFactory connectionFactory,
+                                                                         MessageConverter jsonMessageConverter,
+                                                                         int consumers, int prefetch, String threadPrefix) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(jsonMessageConverter);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setConcurrentConsumers(consumers);
+        factory.setMaxConcurrentConsumers(consumers);
+        factory.setPrefetchCount(prefetch);
+        factory.setDefaultRequeueRejected(false);
+        factory.setTaskExecutor(new VirtualThreadTaskExecutor(threadPrefix));
+        return factory;
+    }
+
+    /**
+     * Publicações {@code mandatory}: sem fila de destino o broker devolve a mensagem, que chega em
+     * {@code CorrelationData#getReturned()} junto com o confirm (ver {@code NotificationOutbox}).
+     */
     @Bean
     public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory, MessageConverter jsonMessageConverter) {
         RabbitTemplate template = new RabbitTemplate(connectionFactory);
         template.setMessageConverter(jsonMessageConverter);
+        template.setMandatory(true);
         return template;
     }
 }
@@ -6,7 +6,8 @@ public record IngestionJobPayload(
         ProfileInfo profile,
         AccountInfo bankAccount,
         String fallbackIncomeCategoryId,
-        String fallbackExpenseCategoryId
+        String fallbackExpenseCategoryId,
+        Long fileSize
 ) {
     public record ProfileInfo(String id, String name, String email) {}
     public record AccountInfo(String id, String name) {}
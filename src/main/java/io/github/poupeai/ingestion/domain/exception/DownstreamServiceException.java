@@ -0,0 +1,22 @@
+package io.github.poupeai.ingestion.domain.exception;
+
+public class DownstreamServiceException extends RuntimeException {
+    private final int status;
+
+    public DownstreamServiceException(String message, int status) {
+        super(message);
+        this.status = status;
+    }
+
+    public DownstreamServiceException(String message, Throwable cause) {
+        super(message, cause);
+        this.status = -1;
+    }
+
+    /**
+     * @return status HTTP da resposta, ou {@code -1} se a falha ocorreu antes de uma resposta
+     */
+    public int getStatus() {
+        return status;
+    }
+}
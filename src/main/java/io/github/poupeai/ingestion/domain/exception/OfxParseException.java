@@ -0,0 +1,11 @@
+package io.github.poupeai.ingestion.domain.exception;
+
+public class OfxParseException extends StatementParseException {
+    public OfxParseException(String message) {
+        super(message);
+    }
+
+    public OfxParseException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,14 @@
+package io.github.poupeai.ingestion.domain.exception;
+
+/**
+ * Falha ao interpretar o conteúdo de um extrato (formato inválido ou ilegível).
+ */
+public class StatementParseException extends RuntimeException {
+    public StatementParseException(String message) {
+        super(message);
+    }
+
+    public StatementParseException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
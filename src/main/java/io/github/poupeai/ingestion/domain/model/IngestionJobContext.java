@@ -0,0 +1,21 @@
+package io.github.poupeai.ingestion.domain.model;
+
+import io.github.poupeai.ingestion.domain.event.IngestionJobPayload;
+
+public record IngestionJobContext(
+        String jobId,
+        String profileId,
+        String bankAccountId,
+        String fallbackIncomeCategoryId,
+        String fallbackExpenseCategoryId
+) {
+    public static IngestionJobContext from(IngestionJobPayload payload) {
+        return new IngestionJobContext(
+                payload.jobId(),
+                payload.profile().id(),
+                payload.bankAccount().id(),
+                payload.fallbackIncomeCategoryId(),
+                payload.fallbackExpenseCategoryId()
+        );
+    }
+}
@@ -0,0 +1,31 @@
+package io.github.poupeai.ingestion.domain.model;
+
+import java.util.UUID;
+
+/**
+ * Identificadores constantes de um job, convertidos para {@link UUID} uma única vez em vez de a cada
+ * transação enviada ao Core Service.
+ */
+public record PersistenceTarget(
+        UUID profileId,
+        UUID bankAccountId,
+        UUID fallbackIncomeCategoryId,
+        UUID fallbackExpenseCategoryId
+) {
+    public static PersistenceTarget from(IngestionJobContext context) {
+        return new PersistenceTarget(
+                UUID.fromString(context.profileId()),
+                UUID.fromString(context.bankAccountId()),
+                uuidOrNull(context.fallbackIncomeCategoryId()),
+                uuidOrNull(context.fallbackExpenseCategoryId())
+        );
+    }
+
+    public UUID fallbackCategoryId(boolean expense) {
+        return expense ? fallbackExpenseCategoryId : fallbackIncomeCategoryId;
+    }
+
+    private static UUID uuidOrNull(String value) {
+        return value != null ? UUID.fromString(value) : null;
+    }
+}
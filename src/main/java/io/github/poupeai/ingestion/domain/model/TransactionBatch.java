@@ -0,0 +1,169 @@
+package io.github.poupeai.ingestion.domain.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Lote de transações já categorizadas em formato colunar, pronto para envio ao Core Service.
+ * <p>
+ * Valores ficam em arrays primitivos: centavos com sinal em {@code long} (mais a escala original, para
+ * o JSON sair idêntico ao do {@link BigDecimal}), datas como dia epoch em {@code int} e descrições e
+ * categorias como índices de dicionários do próprio lote. Valores com mais de duas casas decimais ou
+ * fora da faixa de {@code long} ficam em uma coluna esparsa de {@link BigDecimal}.
+ */
+public final class TransactionBatch {
+
+    private static final long[] POWERS_OF_TEN = {1, 10, 100};
+    private static final int MAX_SCALE = 2;
+    private static final int NO_CATEGORY = -1;
+
+    private final int size;
+    private final long[] amountCents;
+    private final byte[] amountScales;
+    private final BigDecimal[] irregularAmounts;
+    private final int[] epochDays;
+    private final int[] descriptionIds;
+    private final String[] descriptions;
+    private final int[] categoryIds;
+    private final String[] categories;
+    private final String[] fitIds;
+
+    private TransactionBatch(int size, long[] amountCents, byte[] amountScales, BigDecimal[] irregularAmounts,
+                             int[] epochDays, int[] descriptionIds, String[] descriptions,
+                             int[] categoryIds, String[] categories, String[] fitIds) {
+        this.size = size;
+        this.amountCents = amountCents;
+        this.amountScales = amountScales;
+        this.irregularAmounts = irregularAmounts;
+        this.epochDays = epochDays;
+        this.descriptionIds = descriptionIds;
+        this.descriptions = descriptions;
+        this.categoryIds = categoryIds;
+        this.categories = categories;
+        this.fitIds = fitIds;
+    }
+
+    public static TransactionBatch of(List<BankTransaction> transactions) {
+        int size = transactions.size();
+        long[] amountCents = new long[size];
+        byte[] amountScales = new byte[size];
+        BigDecimal[] irregularAmounts = null;
+        int[] epochDays = new int[size];
+        int[] descriptionIds = new int[size];
+        int[] categoryIds = new int[size];
+        String[] fitIds = new String[size];
+        Dictionary descriptions = new Dictionary();
+        Dictionary categories = new Dictionary();
+
+        for (int i = 0; i < size; i++) {
+            BankTransaction tx = transactions.get(i);
+            BigDecimal amount = tx.getAmount();
+            int scale = amount.scale();
+            if (scale >= 0 && scale <= MAX_SCALE && amount.precision() - scale < 17) {
+                amountCents[i] = amount.unscaledValue().longValue() * POWERS_OF_TEN[MAX_SCALE - scale];
+                amountScales[i] = (byte) scale;
+            } else {
+                if (irregularAmounts == null) irregularAmounts = new BigDecimal[size];
+                irregularAmounts[i] = amount;
+                amountCents[i] = amount.signum();
+            }
+            epochDays[i] = Math.toIntExact(tx.getDate().toLocalDate().toEpochDay());
+            descriptionIds[i] = descriptions.idOf(tx.getDescription());
+            categoryIds[i] = tx.getCategoryId() != null ? categories.idOf(tx.getCategoryId()) : NO_CATEGORY;
+            fitIds[i] = tx.getFitId();
+        }
+
+        return new TransactionBatch(size, amountCents, amountScales, irregularAmounts, epochDays,
+                descriptionIds, descriptions.values(), categoryIds, categories.values(), fitIds);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isExpense(int row) {
+        return amountCents[row] < 0;
+    }
+
+    /**
+     * Valor absoluto em centavos; só válido quando {@link #isIrregularAmount(int)} é {@code false}.
+     */
+    public long absoluteCents(int row) {
+        return Math.abs(amountCents[row]);
+    }
+
+    /**
+     * Casas decimais do valor original (0 a 2), usadas para renderizá-lo exatamente como veio.
+     */
+    public int amountScale(int row) {
+        return amountScales[row];
+    }
+
+    public boolean isIrregularAmount(int row) {
+        return irregularAmounts != null && irregularAmounts[row] != null;
+    }
+
+    public BigDecimal absoluteAmount(int row) {
+        if (isIrregularAmount(row)) return irregularAmounts[row].abs();
+        int scale = amountScales[row];
+        return BigDecimal.valueOf(absoluteCents(row) / POWERS_OF_TEN[MAX_SCALE - scale], scale);
+    }
+
+    public int epochDay(int row) {
+        return epochDays[row];
+    }
+
+    public LocalDate date(int row) {
+        return LocalDate.ofEpochDay(epochDays[row]);
+    }
+
+    public String description(int row) {
+        return descriptions[descriptionIds[row]];
+    }
+
+    /**
+     * Índice da categoria no dicionário do lote ({@link #category(int)}), ou -1 se a transação não foi
+     * categorizada.
+     */
+    public int categoryId(int row) {
+        return categoryIds[row];
+    }
+
+    public int categoryCount() {
+        return categories.length;
+    }
+
+    public String category(int id) {
+        return categories[id];
+    }
+
+    public String fitId(int row) {
+        return fitIds[row];
+    }
+
+    public List<String> fitIds() {
+        return Arrays.stream(fitIds).filter(Objects::nonNull).toList();
+    }
+
+    private static final class Dictionary {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int idOf(String value) {
+            return ids.computeIfAbsent(value, key -> {
+                values.add(key);
+                return values.size() - 1;
+            });
+        }
+
+        String[] values() {
+            return values.toArray(String[]::new);
+        }
+    }
+}
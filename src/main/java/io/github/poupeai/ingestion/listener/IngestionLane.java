@@ -0,0 +1,25 @@
+package io.github.poupeai.ingestion.listener;
+
+/**
+ * Faixa de processamento de um job, pelo tamanho do extrato. Cada faixa tem fila, consumers e limite de
+ * jobs simultâneos próprios, para que extratos pequenos não esperem atrás de extratos enormes.
+ */
+public enum IngestionLane {
+    SMALL,
+    LARGE;
+
+    public static IngestionLane forSize(long bytes, long largeThreshold) {
+        return bytes >= largeThreshold ? LARGE : SMALL;
+    }
+
+    /**
+     * @return fila da faixa, derivada da fila de jobs (ex.: {@code ingestion_jobs.small})
+     */
+    public String queue(String jobQueue) {
+        return jobQueue + "." + tag();
+    }
+
+    public String tag() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,137 @@
+package io.github.poupeai.ingestion.listener;
+
+import io.github.poupeai.ingestion.audit.Log;
+import io.github.poupeai.ingestion.domain.event.IngestionEvent;
+import io.github.poupeai.ingestion.service.StorageService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consome a fila de jobs e encaminha cada mensagem para a fila da sua {@link IngestionLane}, com o corpo
+ * intacto e o tamanho do arquivo no header {@link #FILE_SIZE_HEADER}.
+ * <p>
+ * A faixa vem do {@code file_size} do payload, quando o produtor informa, ou do {@code statObject} do
+ * {@code file_key} no MinIO. Extratos a partir de {@code app.ingestion.lanes.large-threshold} vão para a
+ * faixa grande; se o tamanho não puder ser obtido, também, para não arriscar a latência da faixa pequena.
+ * O header evita que o download consulte o tamanho de novo para decidir entre o download inteiro e o
+ * paralelo.
+ * A entrega só recebe ack depois que o broker confirma o encaminhamento; se ele não confirmar em
+ * {@code confirm-timeout}, a entrega é rejeitada e vai para a fila de estacionamento. O consumer não
+ * espera o confirm: segue para a próxima mensagem, e os encaminhamentos ainda sem confirm ficam limitados
+ * pelo prefetch da fila de jobs ({@code app.rabbitmq.listener.prefetch}), já que cada um segura uma
+ * entrega sem ack.
+ */
+@Slf4j
+@Component
+public class IngestionLaneRouter {
+
+    /**
+     * Tamanho do arquivo em bytes, ausente se não pôde ser obtido.
+     */
+    public static final String FILE_SIZE_HEADER = "x-ingestion-file-size";
+
+    private final StorageService storageService;
+    private final RabbitTemplate rabbitTemplate;
+    private final MeterRegistry meterRegistry;
+    private final String jobQueue;
+    private final long largeThreshold;
+    private final Duration confirmTimeout;
+
+    public IngestionLaneRouter(StorageService storageService,
+                               RabbitTemplate rabbitTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.rabbitmq.queue.ingestion}") String jobQueue,
+                               @Value("${app.ingestion.lanes.large-threshold}") DataSize largeThreshold,
+                               @Value("${app.rabbitmq.retry.confirm-timeout}") Duration confirmTimeout) {
+        this.storageService = storageService;
+        this.rabbitTemplate = rabbitTemplate;
+        this.meterRegistry = meterRegistry;
+        this.jobQueue = jobQueue;
+        this.largeThreshold = largeThreshold.toBytes();
+        this.confirmTimeout = confirmTimeout;
+    }
+
+    @RabbitListener(queues = "${app.rabbitmq.queue.ingestion}")
+    public CompletableFuture<Void> route(IngestionEvent event, Message message) {
+        Route route = routeOf(event);
+        IngestionLane lane = route.lane();
+        if (route.size() != null) message.getMessageProperties().setHeader(FILE_SIZE_HEADER, route.size());
+        return forward(lane.queue(jobQueue), message).whenComplete((ignored, e) -> {
+            if (e != null) {
+                Log.error(log, "INGESTION_LANE_ROUTING_FAILED", "Falha ao encaminhar job para a faixa " + lane.tag(),
+                        e instanceof CompletionException ? e.getCause() : e);
+            }
+        });
+    }
+
+    Route routeOf(IngestionEvent event) {
+        if (event.payload() == null) return routed(IngestionLane.SMALL, null, "none");
+
+        Long hint = event.payload().fileSize();
+        if (hint != null && hint >= 0) return routed(IngestionLane.forSize(hint, largeThreshold), hint, "hint");
+
+        try {
+            long size = storageService.sizeOf(event.payload().fileKey());
+            return routed(IngestionLane.forSize(size, largeThreshold), size, "stat");
+        } catch (RuntimeException e) {
+            Log.warn(log, "INGESTION_LANE_SIZE_UNKNOWN", "Tamanho do arquivo {} indisponível; usando a faixa grande: {}",
+                    event.payload().fileKey(), e.getMessage());
+            return routed(IngestionLane.LARGE, null, "unknown");
+        }
+    }
+
+    /**
+     * @return concluído quando o broker confirma o encaminhamento; falha com {@link AmqpException} se ele
+     * recusar, devolver ou não confirmar em {@code confirm-timeout}
+     */
+    private CompletableFuture<Void> forward(String queue, Message message) {
+        CorrelationData correlation = new CorrelationData(UUID.randomUUID().toString());
+        try {
+            rabbitTemplate.send("", queue, message, correlation);
+        } catch (AmqpException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return correlation.getFuture()
+                .orTimeout(confirmTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .handle((confirm, error) -> {
+                    if (error != null) {
+                        throw new AmqpException("Encaminhamento para " + queue + " não confirmado", error);
+                    }
+                    if (!confirm.ack() || correlation.getReturned() != null) {
+                        throw new AmqpException("Broker recusou o encaminhamento para " + queue + ": " + confirm.reason());
+                    }
+                    return null;
+                });
+    }
+
+    private Route routed(IngestionLane lane, Long size, String source) {
+        Counter.builder("ingestion.lane.routed")
+                .description("Jobs encaminhados por faixa e origem do tamanho")
+                .tag("lane", lane.tag())
+                .tag("source", source)
+                .register(meterRegistry)
+                .increment();
+        return new Route(lane, size);
+    }
+
+    /**
+     * @param size tamanho do arquivo em bytes, ou {@code null} se desconhecido
+     */
+    record Route(IngestionLane lane, Long size) { }
+}
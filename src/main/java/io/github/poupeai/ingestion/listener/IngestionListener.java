@@ -1,32 +1,31 @@
 package io.github.poupeai.ingestion.listener;
 
+import io.github.poupeai.ingestion.audit.IngestionMetrics;
 import io.github.poupeai.ingestion.audit.Log;
-import io.github.poupeai.ingestion.client.CoreServiceClient;
-import io.github.poupeai.ingestion.client.ReportServiceClient;
-import io.github.poupeai.ingestion.client.dto.CategorizationRequest;
-import io.github.poupeai.ingestion.client.dto.CategorizationResponse;
-import io.github.poupeai.ingestion.client.dto.CreateTransactionRequest;
-import io.github.poupeai.ingestion.client.dto.TransactionType;
-import io.github.poupeai.ingestion.client.dto.UpdateIngestionJobRequest;
 import io.github.poupeai.ingestion.domain.event.IngestionEvent;
-import io.github.poupeai.ingestion.domain.model.BankTransaction;
-import io.github.poupeai.ingestion.dto.CategoryDTO;
+import io.github.poupeai.ingestion.domain.model.IngestionJobContext;
 import io.github.poupeai.ingestion.service.NotificationProducer;
 import io.github.poupeai.ingestion.service.StorageService;
-import io.github.poupeai.ingestion.service.parser.OfxParserService;
+import io.github.poupeai.ingestion.service.checkpoint.CheckpointStore;
+import io.github.poupeai.ingestion.service.status.JobStatusPublisher;
+import io.github.poupeai.ingestion.service.pipeline.IngestionPipeline;
+import io.github.poupeai.ingestion.service.pipeline.IngestionProgress;
+import io.github.poupeai.ingestion.service.pipeline.IngestionResult;
+import io.github.poupeai.ingestion.service.retry.FailureClassifier;
+import io.github.poupeai.ingestion.service.retry.IngestionRetryScheduler;
+import io.github.poupeai.ingestion.service.retry.RetryTopology;
+import io.micrometer.observation.Observation;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
+import org.springframework.amqp.AmqpException;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 
 import java.io.InputStream;
-import java.math.BigDecimal;
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
-import java.util.UUID;
-import java.util.stream.Collectors;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Component
@@ -34,34 +33,76 @@ import java.util.stream.Collectors;
 public class IngestionListener {
 
     private final StorageService storageService;
-    private final OfxParserService ofxParserService;
-    private final CoreServiceClient coreServiceClient;
-    private final ReportServiceClient reportServiceClient;
+    private final IngestionPipeline ingestionPipeline;
+    private final JobStatusPublisher statusPublisher;
     private final NotificationProducer notificationProducer;
+    private final ProfileOrderedJobExecutor jobExecutor;
+    private final CheckpointStore checkpointStore;
+    private final IngestionMetrics metrics;
+    private final IngestionRetryScheduler retryScheduler;
+
+    @RabbitListener(queues = "${app.rabbitmq.queue.ingestion}.small", containerFactory = "smallLaneContainerFactory")
+    public CompletableFuture<Void> handleSmallLane(IngestionEvent event,
+                                                   @Header(name = RetryTopology.ATTEMPT_HEADER, required = false) Integer attempt,
+                                                   @Header(name = IngestionLaneRouter.FILE_SIZE_HEADER, required = false) Long fileSize) {
+        return handleIngestionEvent(event, attempt, fileSize, IngestionLane.SMALL);
+    }
+
+    @RabbitListener(queues = "${app.rabbitmq.queue.ingestion}.large", containerFactory = "largeLaneContainerFactory")
+    public CompletableFuture<Void> handleLargeLane(IngestionEvent event,
+                                                   @Header(name = RetryTopology.ATTEMPT_HEADER, required = false) Integer attempt,
+                                                   @Header(name = IngestionLaneRouter.FILE_SIZE_HEADER, required = false) Long fileSize) {
+        return handleIngestionEvent(event, attempt, fileSize, IngestionLane.LARGE);
+    }
 
-    @RabbitListener(queues = "${app.rabbitmq.queue.ingestion}")
-    public void handleIngestionEvent(IngestionEvent event) {
+    /**
+     * Agenda o job e devolve o controle ao consumer imediatamente. A mensagem só recebe ack
+     * quando o future retornado é concluído, ou seja, quando o job termina ou é reagendado.
+     *
+     * @param fileSize tamanho do arquivo obtido pelo {@link IngestionLaneRouter}, ou {@code null} se desconhecido
+     */
+    private CompletableFuture<Void> handleIngestionEvent(IngestionEvent event, Integer attempt, Long fileSize, IngestionLane lane) {
         if (event.payload() == null) {
             log.warn("Evento recebido com payload nulo. Ignorando.");
-            return;
+            return CompletableFuture.completedFuture(null);
         }
 
+        String profileId = event.payload().profile() != null ? event.payload().profile().id() : null;
+        int currentAttempt = attempt != null ? attempt : 1;
+        return jobExecutor.submit(profileId, lane, () -> processJob(event, currentAttempt, fileSize));
+    }
+
+    private void processJob(IngestionEvent event, int attempt, Long fileSize) {
         String jobId = event.payload().jobId();
 
         MDC.put("job.id", jobId);
         MDC.put("profile.id", event.payload().profile().id());
         MDC.put("file.key", event.payload().fileKey());
 
-        Log.event(log, "INGESTION_JOB_STARTED", "Iniciando processamento do Job de Ingestão: {}", jobId);
+        Observation job = metrics.job().start();
+        try (Observation.Scope ignored = job.openScope()) {
+            processJob(event, jobId, attempt, fileSize, job);
+        } finally {
+            job.stop();
+            MDC.clear();
+        }
+    }
+
+    /**
+     * Falhas temporárias (ver {@link FailureClassifier}) mantêm o checkpoint e reagendam o job enquanto
+     * houver tentativas; as definitivas, e as temporárias na última tentativa, marcam o job como
+     * {@code FAILED}. Estas últimas também vão para a fila de estacionamento e mantêm o checkpoint, para que
+     * o reenvio manual retome do último lote confirmado. Se a fila de estacionamento não confirmar a
+     * publicação, a exceção sobe e a entrega é rejeitada, caindo na mesma fila pelo dead-letter.
+     */
+    private void processJob(IngestionEvent event, String jobId, int attempt, Long fileSize, Observation job) {
+        metrics.event(log, "INGESTION_JOB_STARTED", "Iniciando processamento do Job de Ingestão: {} (tentativa {})", jobId, attempt);
 
         String fileKey = event.payload().fileKey();
         String profileId = event.payload().profile().id();
         String profileName = event.payload().profile().name();
         String profileEmail = event.payload().profile().email();
-        String bankAccountId = event.payload().bankAccount().id();
         String accountName = event.payload().bankAccount().name();
-        String fallbackIncomeId = event.payload().fallbackIncomeCategoryId();
-        String fallbackExpenseId = event.payload().fallbackExpenseCategoryId();
         String fileName = fileKey.contains("/") ? fileKey.substring(fileKey.lastIndexOf('/') + 1) : fileKey;
 
         try {
@@ -73,12 +114,13 @@ public class IngestionListener {
                 """;
             updateJobStatus(jobId, "PROCESSING", initialSummary, null);
 
-            try (InputStream inputStream = storageService.downloadFile(fileKey)) {
+            try (InputStream inputStream = metrics.stage(IngestionMetrics.DOWNLOAD, job)
+                    .observe(() -> download(fileKey, fileSize))) {
 
-                List<BankTransaction> transactions = ofxParserService.parse(inputStream);
-                Log.event(log, "OFX_PARSED", "OFX Parseado. {} transações encontradas.", transactions.size());
+                IngestionResult result = ingestionPipeline.run(inputStream, IngestionJobContext.from(event.payload()),
+                        progress -> reportProgress(jobId, progress));
 
-                if (transactions.isEmpty()) {
+                if (result.totalTransactions() == 0) {
                     String emptySummary = """
                         {
                             "message": "Arquivo processado, mas nenhuma transação válida encontrada.",
@@ -86,152 +128,114 @@ public class IngestionListener {
                         }
                         """;
                     updateJobStatus(jobId, "COMPLETED", emptySummary, null);
+                    checkpointStore.discard(jobId);
+                    job.lowCardinalityKeyValue("result", "empty");
 
                     Log.warn(log, "INGESTION_EMPTY_FILE", "Nenhuma transação encontrada no arquivo.");
 
-                    notificationProducer.sendError(
+                    sendNotification(job, () -> notificationProducer.sendError(
                             profileId, profileEmail, profileName, fileName, accountName,
                             "NO_TRANSACTIONS", "Nenhuma transação encontrada no arquivo."
-                    );
+                    ));
                     return;
                 }
 
-                List<CategoryDTO> userCategories = fetchCategoriesSafely(profileId);
-
-                int categorizedByAi = 0;
-                if (!userCategories.isEmpty()) {
-                    categorizedByAi = applyCategorization(transactions, userCategories);
-                }
-
-                Log.event(log, "TRANSACTIONS_PERSISTING", "Enviando {} transações para persistência.", transactions.size());
-                persistTransactionsBatch(transactions, profileId, bankAccountId, fallbackIncomeId, fallbackExpenseId);
-
                 String summaryJson = String.format("""
                         {
                             "message": "Processamento concluído com sucesso.",
                             "total_transactions": %d,
-                            "ai_categorized": %d
+                            "rule_categorized": %d,
+                            "ai_categorized": %d,
+                            "duplicates_skipped": %d
                         }
-                        """, transactions.size(), categorizedByAi);
+                        """, result.totalTransactions(), result.ruleCategorized(), result.aiCategorized(), result.duplicatesSkipped());
 
                 updateJobStatus(jobId, "COMPLETED", summaryJson, null);
+                checkpointStore.discard(jobId);
+                job.lowCardinalityKeyValue("result", "completed");
 
-                Log.event(log, "INGESTION_JOB_COMPLETED", "Job finalizado com sucesso. Total: {}", transactions.size());
+                metrics.event(log, "INGESTION_JOB_COMPLETED", "Job finalizado com sucesso. Total: {}", result.totalTransactions());
 
-                notificationProducer.sendSuccess(profileId, profileEmail, profileName, fileName, accountName);
+                sendNotification(job, () -> notificationProducer.sendSuccess(profileId, profileEmail, profileName, fileName, accountName));
             }
 
         } catch (Exception e) {
+            boolean retryable = FailureClassifier.isRetryable(e);
+            if (retryable && retryScheduler.canRetry(attempt) && scheduleRetry(event, jobId, attempt, job, e)) {
+                return;
+            }
+
             Log.error(log, "INGESTION_JOB_FAILED", "Erro fatal ao processar Job", e);
+            job.lowCardinalityKeyValue("result", "failed");
+            job.error(e);
 
             updateJobStatus(jobId, "FAILED", null, "Erro interno: " + e.getMessage());
 
-            notificationProducer.sendError(
+            sendNotification(job, () -> notificationProducer.sendError(
                     profileId, profileEmail, profileName, fileName, accountName,
                     "INTERNAL_ERROR", "Erro ao processar arquivo: " + e.getMessage()
-            );
-        } finally {
-            MDC.clear();
-        }
-    }
+            ));
 
-    private void updateJobStatus(String jobId, String status, String summary, String error) {
-        try {
-            if (jobId == null) return;
-            coreServiceClient.updateStatus(jobId, UpdateIngestionJobRequest.builder()
-                    .status(status)
-                    .summary(summary)
-                    .errorDetails(error)
-                    .build());
-        } catch (Exception e) {
-            Log.error(log, "UPDATE_STATUS_FAIL", "Falha ao atualizar status do job", e);
+            if (!retryable) {
+                checkpointStore.discard(jobId);
+                return;
+            }
+            Log.warn(log, "INGESTION_JOB_PARKED", "Tentativas esgotadas ({}); job estacionado com o checkpoint mantido", attempt);
+            retryScheduler.park(event, attempt, e);
         }
     }
 
-    private List<CategoryDTO> fetchCategoriesSafely(String profileId) {
+    /**
+     * @return {@code false} se o broker não aceitou a nova tentativa; o job segue então como falha definitiva
+     */
+    private boolean scheduleRetry(IngestionEvent event, String jobId, int attempt, Observation job, Exception cause) {
+        Duration delay;
         try {
-            return coreServiceClient.getCategories(profileId);
-        } catch (Exception e) {
-            Log.warn(log, "FETCH_CATEGORIES_FAIL", "Falha não-bloqueante ao buscar categorias: {}", e.getMessage());
-            return Collections.emptyList();
+            delay = retryScheduler.retry(event, attempt, cause);
+        } catch (AmqpException e) {
+            Log.error(log, "INGESTION_RETRY_SCHEDULE_FAILED", "Falha ao reagendar Job", e);
+            return false;
         }
-    }
 
-    private int applyCategorization(List<BankTransaction> transactions, List<CategoryDTO> userCategories) {
-        Log.event(log, "AI_CATEGORIZATION_START", "Solicitando predição de categorias para IA...");
-        int matches = 0;
-        try {
-            List<String> descriptions = transactions.stream()
-                    .map(BankTransaction::getDescription)
-                    .distinct()
-                    .toList();
-
-            CategorizationRequest request = new CategorizationRequest(descriptions, userCategories);
-            CategorizationResponse response = reportServiceClient.predictCategories(request);
-
-            List<CategorizationResponse.CategorizationItem> items = response != null ? response.getCategorizationsSafe() : Collections.emptyList();
-
-            if (!items.isEmpty()) {
-                Map<String, String> predictedMap = items.stream()
-                        .filter(item -> item.categoryId() != null)
-                        .collect(Collectors.toMap(
-                                CategorizationResponse.CategorizationItem::description,
-                                CategorizationResponse.CategorizationItem::categoryId,
-                                (existing, replacement) -> existing
-                        ));
-
-                for (BankTransaction tx : transactions) {
-                    String catId = predictedMap.get(tx.getDescription());
-                    if (catId != null) {
-                        tx.setCategoryId(catId);
-                        matches++;
-                    }
+        Log.warn(log, "INGESTION_JOB_RETRY_SCHEDULED", "Falha temporária na tentativa {} ({}); nova tentativa em {}",
+                attempt, cause.toString(), delay);
+        job.lowCardinalityKeyValue("result", "retried");
+
+        String summary = String.format("""
+                {
+                    "message": "Falha temporária. Nova tentativa agendada.",
+                    "step": "RETRY_SCHEDULED",
+                    "attempt": %d,
+                    "retry_in_seconds": %d
                 }
-                Log.event(log, "AI_CATEGORIZATION_FINISHED", "IA Categorizou {} de {} transações.", matches, transactions.size());
-            }
-        } catch (Exception e) {
-            Log.error(log, "AI_CATEGORIZATION_FAIL", "Erro na integração com IA (Report Service)", e);
-        }
-        return matches;
+                """, attempt, delay.toSeconds());
+        updateJobStatus(jobId, "PROCESSING", summary, null);
+        statusPublisher.release(jobId);
+        return true;
     }
 
-    private void persistTransactionsBatch(List<BankTransaction> transactions, String profileId, String bankAccountId,
-                                          String fallbackIncomeId, String fallbackExpenseId) {
-
-        List<CreateTransactionRequest> dtos = transactions.stream()
-                .map(tx -> toCreateRequest(tx, profileId, bankAccountId, fallbackIncomeId, fallbackExpenseId))
-                .toList();
-
-        try {
-            coreServiceClient.createTransactionsBatch(dtos);
-        } catch (Exception e) {
-            Log.error(log, "PERSIST_TRANSACTIONS_FAIL", "Erro ao salvar transações no Core Service.", e);
-            throw e;
-        }
+    private InputStream download(String fileKey, Long fileSize) {
+        return fileSize != null ? storageService.downloadFile(fileKey, fileSize) : storageService.downloadFile(fileKey);
     }
 
-    private CreateTransactionRequest toCreateRequest(BankTransaction tx, String profileId, String bankAccountId,
-                                                     String fallbackIncomeId, String fallbackExpenseId) {
-
-        boolean isExpense = tx.getAmount().compareTo(BigDecimal.ZERO) < 0;
-        TransactionType type = isExpense ? TransactionType.EXPENSE : TransactionType.INCOME;
-        BigDecimal amountAbs = tx.getAmount().abs();
-
-        String finalCategoryId = tx.getCategoryId();
+    private void sendNotification(Observation job, Runnable send) {
+        metrics.stage(IngestionMetrics.NOTIFY, job).observe(send);
+    }
 
-        if (finalCategoryId == null) {
-            finalCategoryId = isExpense ? fallbackExpenseId : fallbackIncomeId;
-        }
+    private void updateJobStatus(String jobId, String status, String summary, String error) {
+        statusPublisher.publish(jobId, status, summary, error);
+    }
 
-        return new CreateTransactionRequest(
-                UUID.fromString(profileId),
-                UUID.fromString(bankAccountId),
-                tx.getDescription(),
-                amountAbs,
-                type,
-                tx.getDate().toLocalDate(),
-                finalCategoryId != null ? UUID.fromString(finalCategoryId) : null,
-                tx.getFitId()
-        );
+    private void reportProgress(String jobId, IngestionProgress progress) {
+        String summary = String.format("""
+                {
+                    "message": "Persistindo transações...",
+                    "step": "PERSISTING",
+                    "parsed_transactions": %d,
+                    "persisted_transactions": %d,
+                    "parse_complete": %b
+                }
+                """, progress.parsedTransactions(), progress.persistedTransactions(), progress.parseComplete());
+        updateJobStatus(jobId, "PROCESSING", summary, null);
     }
 }
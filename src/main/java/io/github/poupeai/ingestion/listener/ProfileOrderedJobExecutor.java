@@ -0,0 +1,121 @@
+package io.github.poupeai.ingestion.listener;
+
+import io.github.poupeai.ingestion.audit.MdcContext;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executa jobs de ingestão em virtual threads, com no máximo {@code app.ingestion.lanes.<faixa>.max-concurrent-jobs}
+ * jobs simultâneos em cada {@link IngestionLane}: jobs grandes ocupando todos os slots da sua faixa não
+ * atrasam os pequenos.
+ * <p>
+ * Jobs do mesmo perfil nunca rodam ao mesmo tempo, mesmo em faixas diferentes: cada um só começa quando o
+ * anterior do mesmo perfil termina (com sucesso ou erro), então dois extratos de uma mesma conta nunca
+ * disputam a deduplicação. Jobs de perfis diferentes rodam em paralelo.
+ * <p>
+ * A fila de cada perfil segue a ordem de {@link #submit}, que é a ordem de entrega dentro de cada faixa.
+ * Entre faixas não há ordem garantida: cada faixa tem sua fila e seus consumers, então um extrato pequeno
+ * pode começar antes de um grande do mesmo perfil publicado antes dele. A deduplicação não depende dessa
+ * ordem, já que consulta o Core Service a cada lote.
+ * <p>
+ * Por faixa, expõe os jobs em execução ({@code ingestion.lane.active}), os que aguardam slot
+ * ({@code ingestion.lane.waiting}), a espera até começar ({@code ingestion.lane.wait}) e o tempo entre
+ * o recebimento e o fim do job ({@code ingestion.lane.latency}).
+ */
+@Component
+public class ProfileOrderedJobExecutor implements DisposableBean {
+
+    private final ConcurrentMap<String, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("ingestion-job-", 0).factory());
+    private final Map<IngestionLane, Lane> lanes = new EnumMap<>(IngestionLane.class);
+
+    public ProfileOrderedJobExecutor(@Value("${app.ingestion.lanes.small.max-concurrent-jobs}") int smallConcurrentJobs,
+                                     @Value("${app.ingestion.lanes.large.max-concurrent-jobs}") int largeConcurrentJobs,
+                                     MeterRegistry meterRegistry) {
+        lanes.put(IngestionLane.SMALL, new Lane(IngestionLane.SMALL, smallConcurrentJobs, meterRegistry));
+        lanes.put(IngestionLane.LARGE, new Lane(IngestionLane.LARGE, largeConcurrentJobs, meterRegistry));
+    }
+
+    /**
+     * Agenda o job após o último job pendente do mesmo perfil, para rodar com um slot de {@code lane}.
+     * O MDC da thread chamadora é propagado para a thread do job.
+     *
+     * @return future concluído quando o job termina
+     */
+    public CompletableFuture<Void> submit(String profileId, IngestionLane lane, Runnable job) {
+        String key = profileId != null ? profileId : "";
+        Lane slots = lanes.get(lane);
+        long submittedAt = System.nanoTime();
+        Runnable task = MdcContext.wrap(() -> slots.run(job, submittedAt));
+
+        CompletableFuture<Void> scheduled = tails.compute(key, (k, tail) -> {
+            CompletableFuture<?> previous = tail != null ? tail : CompletableFuture.completedFuture(null);
+            return previous.handle((result, error) -> null).thenRunAsync(task, executor);
+        });
+
+        scheduled.whenComplete((result, error) -> tails.remove(key, scheduled));
+        return scheduled;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private static final class Lane {
+        private final Semaphore permits;
+        private final Timer waitTime;
+        private final Timer latency;
+
+        private Lane(IngestionLane lane, int maxConcurrentJobs, MeterRegistry meterRegistry) {
+            this.permits = new Semaphore(maxConcurrentJobs, true);
+            Gauge.builder("ingestion.lane.active", permits, p -> maxConcurrentJobs - p.availablePermits())
+                    .description("Jobs em execução na faixa")
+                    .tag("lane", lane.tag())
+                    .register(meterRegistry);
+            Gauge.builder("ingestion.lane.waiting", permits, Semaphore::getQueueLength)
+                    .description("Jobs aguardando slot na faixa")
+                    .tag("lane", lane.tag())
+                    .register(meterRegistry);
+            this.waitTime = Timer.builder("ingestion.lane.wait")
+                    .description("Espera do job entre o recebimento e o início da execução")
+                    .tag("lane", lane.tag())
+                    .register(meterRegistry);
+            this.latency = Timer.builder("ingestion.lane.latency")
+                    .description("Tempo entre o recebimento do job e o fim do processamento")
+                    .tag("lane", lane.tag())
+                    .register(meterRegistry);
+        }
+
+        private void run(Runnable job, long submittedAt) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Execução do job interrompida antes de iniciar", e);
+            }
+            waitTime.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+            try {
+                job.run();
+            } finally {
+                permits.release();
+                latency.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package io.github.poupeai.ingestion.service;
+
+import io.github.poupeai.ingestion.audit.IngestionMetrics;
+import io.github.poupeai.ingestion.audit.Log;
+import io.github.poupeai.ingestion.domain.model.BankTransaction;
+import io.github.poupeai.ingestion.dto.CategoryDTO;
+import io.github.poupeai.ingestion.service.categorization.CategorizationCache;
+import io.github.poupeai.ingestion.service.categorization.CategoryListCache;
+import io.github.poupeai.ingestion.service.categorization.RuleBasedCategorizer;
+import io.github.poupeai.ingestion.service.categorization.ShardedCategorizationClient;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CategorizationService {
+
+    private final CategoryListCache categoryListCache;
+    private final ShardedCategorizationClient shardedCategorizationClient;
+    private final CategorizationCache categorizationCache;
+    private final RuleBasedCategorizer ruleBasedCategorizer;
+    private final IngestionMetrics metrics;
+
+    public List<CategoryDTO> fetchCategoriesSafely(String profileId) {
+        try {
+            return categoryListCache.get(profileId);
+        } catch (Exception e) {
+            Log.warn(log, "FETCH_CATEGORIES_FAIL", "Falha não-bloqueante ao buscar categorias: {}", e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Preenche {@code categoryId} nas transações. Descrições óbvias são resolvidas localmente pelo
+     * {@link RuleBasedCategorizer}. Das restantes, as já previstas para o mesmo perfil e conjunto de
+     * categorias vêm do {@link CategorizationCache}; só as demais vão para o Report Service, em shards
+     * paralelos.
+     */
+    public CategorizationResult applyCategorization(String profileId, List<BankTransaction> transactions, List<CategoryDTO> userCategories) {
+        if (userCategories.isEmpty()) {
+            metrics.categorized("none", transactions.size());
+            return CategorizationResult.NONE;
+        }
+
+        String fingerprint = CategorizationCache.fingerprint(userCategories);
+        int byRules = ruleBasedCategorizer.apply(transactions, userCategories, fingerprint);
+        metrics.categorized("rule", byRules);
+
+        List<BankTransaction> unresolved = transactions.stream()
+                .filter(tx -> tx.getCategoryId() == null)
+                .toList();
+        if (unresolved.isEmpty()) {
+            metrics.event(log, "AI_CATEGORIZATION_SKIPPED", "Todas as {} transações foram categorizadas por regras.", transactions.size());
+            return new CategorizationResult(byRules, 0);
+        }
+
+        List<String> descriptions = unresolved.stream()
+                .map(BankTransaction::getDescription)
+                .distinct()
+                .toList();
+
+        Map<String, String> cachedMap = categorizationCache.getAll(profileId, fingerprint, descriptions);
+        Map<String, String> predictedMap = new HashMap<>(cachedMap);
+        int cached = predictedMap.size();
+
+        List<String> misses = descriptions.stream()
+                .filter(description -> !predictedMap.containsKey(description))
+                .toList();
+
+        if (!misses.isEmpty()) {
+            Map<String, String> predicted = shardedCategorizationClient.predict(misses, userCategories);
+            categorizationCache.putAll(profileId, fingerprint, predicted);
+            predictedMap.putAll(predicted);
+        }
+
+        int byAi = 0;
+        int fromCache = 0;
+        for (BankTransaction tx : unresolved) {
+            String catId = predictedMap.get(tx.getDescription());
+            if (catId != null) {
+                tx.setCategoryId(catId);
+                byAi++;
+                if (cachedMap.containsKey(tx.getDescription())) fromCache++;
+            }
+        }
+        metrics.categorized("cache", fromCache);
+        metrics.categorized("ai", byAi - fromCache);
+        metrics.categorized("none", unresolved.size() - byAi);
+
+        metrics.event(log, "AI_CATEGORIZATION_FINISHED", "Categorizadas {} de {} transações: {} por regras, {} por IA ({} de {} descrições vieram do cache).",
+                byRules + byAi, transactions.size(), byRules, byAi, cached, descriptions.size());
+        return new CategorizationResult(byRules, byAi);
+    }
+
+    public record CategorizationResult(int byRules, int byAi) {
+        static final CategorizationResult NONE = new CategorizationResult(0, 0);
+    }
+}
@@ -3,24 +3,15 @@ package io.github.poupeai.ingestion.service;
 import io.github.poupeai.ingestion.domain.event.NotificationEvent;
 import io.github.poupeai.ingestion.domain.event.NotificationPayload;
 import io.github.poupeai.ingestion.domain.event.NotificationRecipient;
+import io.github.poupeai.ingestion.service.notification.NotificationOutbox;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-@Slf4j
 @Service
 @RequiredArgsConstructor
 public class NotificationProducer {
 
-    private final RabbitTemplate rabbitTemplate;
-
-    @Value("${app.rabbitmq.notification.exchange}")
-    private String exchange;
-
-    @Value("${app.rabbitmq.notification.routing-key}")
-    private String routingKey;
+    private final NotificationOutbox outbox;
 
     public void sendSuccess(String userId, String email, String name, String fileName, String accountName) {
         NotificationRecipient recipient = new NotificationRecipient(userId, email, name);
@@ -49,10 +40,6 @@ public class NotificationProducer {
     }
 
     private void publish(NotificationEvent event) {
-        try {
-            rabbitTemplate.convertAndSend(exchange, routingKey, event);
-        } catch (Exception e) {
-            log.error("Falha ao publicar evento de notificação", e);
-        }
+        outbox.enqueue(event);
     }
 }
\ No newline at end of file
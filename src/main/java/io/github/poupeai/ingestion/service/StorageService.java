@@ -4,4 +4,17 @@ import java.io.InputStream;
 
 public interface StorageService {
     InputStream downloadFile(String fileKey);
+
+    /**
+     * Como {@link #downloadFile(String)}, com o tamanho do objeto já conhecido pelo chamador, sem
+     * consultá-lo de novo no storage.
+     */
+    default InputStream downloadFile(String fileKey, long size) {
+        return downloadFile(fileKey);
+    }
+
+    /**
+     * @return tamanho do objeto em bytes
+     */
+    long sizeOf(String fileKey);
 }
@@ -0,0 +1,75 @@
+package io.github.poupeai.ingestion.service;
+
+import io.github.poupeai.ingestion.audit.Log;
+import io.github.poupeai.ingestion.client.CoreServiceClient;
+import io.github.poupeai.ingestion.client.TransactionBatchStreamingClient;
+import io.github.poupeai.ingestion.client.dto.CreateTransactionRequest;
+import io.github.poupeai.ingestion.client.dto.TransactionType;
+import io.github.poupeai.ingestion.domain.model.PersistenceTarget;
+import io.github.poupeai.ingestion.domain.model.TransactionBatch;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionPersistenceService {
+
+    private final CoreServiceClient coreServiceClient;
+    private final TransactionBatchStreamingClient streamingClient;
+
+    @Value("${app.ingestion.persistence.streaming}")
+    private boolean streaming;
+
+    /**
+     * Envia o lote ao Core Service. Com {@code app.ingestion.persistence.streaming} ativo, o JSON é escrito
+     * direto das colunas do lote na conexão; caso contrário, os DTOs são montados e enviados via Feign
+     * com o corpo em memória.
+     */
+    public void persistTransactionsBatch(TransactionBatch batch, PersistenceTarget target) {
+        try {
+            if (streaming) {
+                streamingClient.createTransactionsBatch(batch, target);
+            } else {
+                coreServiceClient.createTransactionsBatch(toCreateRequests(batch, target));
+            }
+        } catch (Exception e) {
+            Log.error(log, "PERSIST_TRANSACTIONS_FAIL", "Erro ao salvar transações no Core Service.", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Cada categoria distinta do lote é convertida para {@link UUID} uma única vez.
+     */
+    public List<CreateTransactionRequest> toCreateRequests(TransactionBatch batch, PersistenceTarget target) {
+        UUID[] categories = new UUID[batch.categoryCount()];
+        for (int id = 0; id < categories.length; id++) {
+            categories[id] = UUID.fromString(batch.category(id));
+        }
+
+        List<CreateTransactionRequest> requests = new ArrayList<>(batch.size());
+        for (int row = 0; row < batch.size(); row++) {
+            boolean isExpense = batch.isExpense(row);
+            int categoryId = batch.categoryId(row);
+
+            requests.add(new CreateTransactionRequest(
+                    target.profileId(),
+                    target.bankAccountId(),
+                    batch.description(row),
+                    batch.absoluteAmount(row),
+                    isExpense ? TransactionType.EXPENSE : TransactionType.INCOME,
+                    batch.date(row),
+                    categoryId >= 0 ? categories[categoryId] : target.fallbackCategoryId(isExpense),
+                    batch.fitId(row)
+            ));
+        }
+        return requests;
+    }
+}
@@ -0,0 +1,114 @@
+package io.github.poupeai.ingestion.service.categorization;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Autômato Aho-Corasick imutável para localizar, em uma única passada pelo texto, a ocorrência
+ * mais longa de qualquer um dos padrões como palavra inteira.
+ *
+ * @param <V> valor associado a cada padrão
+ */
+public final class AhoCorasickMatcher<V> {
+
+    private final List<Map<Character, Integer>> transitions = new ArrayList<>();
+    private final List<Integer> failure = new ArrayList<>();
+    private final List<List<Output<V>>> outputs = new ArrayList<>();
+
+    public AhoCorasickMatcher(Map<String, V> patterns) {
+        newNode();
+        patterns.forEach((pattern, value) -> {
+            if (!pattern.isEmpty()) insert(pattern, value);
+        });
+        buildFailureLinks();
+    }
+
+    /**
+     * @return valor do padrão mais longo encontrado como palavra inteira (empate: o que começa primeiro),
+     * ou {@code null} se nenhum padrão ocorrer
+     */
+    public V findLongest(String text) {
+        int state = 0;
+        Output<V> best = null;
+        int bestStart = Integer.MAX_VALUE;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            while (state != 0 && !transitions.get(state).containsKey(c)) {
+                state = failure.get(state);
+            }
+            state = transitions.get(state).getOrDefault(c, 0);
+
+            for (Output<V> output : outputs.get(state)) {
+                int start = i - output.length() + 1;
+                if (!isWordBoundary(text, start - 1) || !isWordBoundary(text, i + 1)) continue;
+                if (best == null || output.length() > best.length()
+                        || (output.length() == best.length() && start < bestStart)) {
+                    best = output;
+                    bestStart = start;
+                }
+            }
+        }
+        return best != null ? best.value() : null;
+    }
+
+    private void insert(String pattern, V value) {
+        int state = 0;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            Integer next = transitions.get(state).get(c);
+            if (next == null) {
+                next = newNode();
+                transitions.get(state).put(c, next);
+            }
+            state = next;
+        }
+        List<Output<V>> existing = outputs.get(state);
+        existing.removeIf(output -> output.length() == pattern.length());
+        existing.add(new Output<>(pattern.length(), value));
+    }
+
+    private void buildFailureLinks() {
+        Queue<Integer> queue = new ArrayDeque<>();
+        transitions.get(0).values().forEach(child -> {
+            failure.set(child, 0);
+            queue.add(child);
+        });
+
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (Map.Entry<Character, Integer> edge : transitions.get(state).entrySet()) {
+                char c = edge.getKey();
+                int child = edge.getValue();
+
+                int fallback = failure.get(state);
+                while (fallback != 0 && !transitions.get(fallback).containsKey(c)) {
+                    fallback = failure.get(fallback);
+                }
+                Integer target = transitions.get(fallback).get(c);
+                int childFailure = target != null && target != child ? target : 0;
+
+                failure.set(child, childFailure);
+                outputs.get(child).addAll(outputs.get(childFailure));
+                queue.add(child);
+            }
+        }
+    }
+
+    private int newNode() {
+        transitions.add(new HashMap<>());
+        failure.add(0);
+        outputs.add(new ArrayList<>());
+        return transitions.size() - 1;
+    }
+
+    private static boolean isWordBoundary(String text, int index) {
+        return index < 0 || index >= text.length() || !Character.isLetterOrDigit(text.charAt(index));
+    }
+
+    private record Output<V>(int length, V value) { }
+}
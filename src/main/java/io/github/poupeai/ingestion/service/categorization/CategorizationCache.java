@@ -0,0 +1,90 @@
+package io.github.poupeai.ingestion.service.categorization;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.poupeai.ingestion.dto.CategoryDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache local de predições da IA: (perfil, descrição normalizada, fingerprint das categorias) → categoria.
+ * <p>
+ * O fingerprint faz parte da chave, então uma predição feita com outro conjunto de categorias nunca é
+ * reaproveitada. Quando as categorias de um perfil mudam, as entradas antigas deixam de ser consultadas e
+ * saem do cache pelo limite de tamanho ou pelo TTL, sem varrer o cache inteiro.
+ */
+@Component
+public class CategorizationCache {
+
+    private static final Comparator<CategoryDTO> CATEGORY_ORDER = Comparator
+            .comparing(CategoryDTO::id, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(CategoryDTO::name, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(CategoryDTO::type, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final Cache<Key, String> predictions;
+
+    public CategorizationCache(@Value("${app.categorization.cache.max-size}") long maxSize,
+                               @Value("${app.categorization.cache.ttl}") Duration ttl,
+                               MeterRegistry meterRegistry) {
+        this.predictions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, predictions, "categorization.predictions");
+    }
+
+    /**
+     * Retorna as predições em cache para as descrições informadas, indexadas pela descrição original.
+     */
+    public Map<String, String> getAll(String profileId, String fingerprint, Collection<String> descriptions) {
+        Map<String, String> hits = new HashMap<>();
+        for (String description : descriptions) {
+            String categoryId = predictions.getIfPresent(new Key(profileId, DescriptionNormalizer.normalize(description), fingerprint));
+            if (categoryId != null) {
+                hits.put(description, categoryId);
+            }
+        }
+        return hits;
+    }
+
+    public void putAll(String profileId, String fingerprint, Map<String, String> predicted) {
+        predicted.forEach((description, categoryId) ->
+                predictions.put(new Key(profileId, DescriptionNormalizer.normalize(description), fingerprint), categoryId));
+    }
+
+    /**
+     * Identificador estável do conjunto de categorias do usuário, independente da ordem da lista.
+     */
+    public static String fingerprint(List<CategoryDTO> categories) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            categories.stream().sorted(CATEGORY_ORDER).forEach(category -> {
+                digest.update(String.valueOf(category.id()).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(String.valueOf(category.name()).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(String.valueOf(category.type()).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            });
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível na JVM", e);
+        }
+    }
+
+    private record Key(String profileId, String description, String fingerprint) { }
+}
@@ -0,0 +1,111 @@
+package io.github.poupeai.ingestion.service.categorization;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import feign.FeignException;
+import io.github.poupeai.ingestion.client.CoreServiceClient;
+import io.github.poupeai.ingestion.dto.CategoryDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Cache em processo das listas de categorias por perfil.
+ * <p>
+ * Jobs concorrentes do mesmo perfil compartilham uma única busca em andamento. Depois de
+ * {@code refresh-after} a entrada é revalidada em segundo plano com {@code If-None-Match}, de modo
+ * que uma lista inalterada custa apenas um 304; até lá a lista atual continua sendo servida.
+ */
+@Component
+public class CategoryListCache implements DisposableBean {
+
+    private final CoreServiceClient coreServiceClient;
+    private final ExecutorService refresher = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("categories-refresh-", 0).factory());
+    private final LoadingCache<String, CachedCategories> cache;
+    private final Counter notModified;
+    private final Counter modified;
+
+    public CategoryListCache(CoreServiceClient coreServiceClient,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.categorization.categories-cache.max-size}") long maxSize,
+                             @Value("${app.categorization.categories-cache.refresh-after}") Duration refreshAfter,
+                             @Value("${app.categorization.categories-cache.expire-after}") Duration expireAfter) {
+        this.coreServiceClient = coreServiceClient;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .refreshAfterWrite(refreshAfter)
+                .expireAfterWrite(expireAfter)
+                .executor(refresher)
+                .recordStats()
+                .build(new Loader());
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "categories");
+        this.notModified = Counter.builder("categories.revalidations")
+                .description("Revalidações condicionais da lista de categorias")
+                .tag("result", "not_modified")
+                .register(meterRegistry);
+        this.modified = Counter.builder("categories.revalidations")
+                .description("Revalidações condicionais da lista de categorias")
+                .tag("result", "modified")
+                .register(meterRegistry);
+    }
+
+    public List<CategoryDTO> get(String profileId) {
+        return cache.get(profileId).categories();
+    }
+
+    /**
+     * Interrompe as revalidações em andamento; as entradas atuais continuam sendo servidas até expirar.
+     */
+    @Override
+    public void destroy() {
+        refresher.shutdownNow();
+    }
+
+    private CachedCategories fetch(String profileId, String etag) {
+        ResponseEntity<List<CategoryDTO>> response = coreServiceClient.getCategories(profileId, etag);
+        List<CategoryDTO> body = response.getBody();
+        return new CachedCategories(body != null ? List.copyOf(body) : Collections.emptyList(), response.getHeaders().getETag());
+    }
+
+    private final class Loader implements CacheLoader<String, CachedCategories> {
+
+        @Override
+        public CachedCategories load(String profileId) {
+            return fetch(profileId, null);
+        }
+
+        @Override
+        public CachedCategories reload(String profileId, CachedCategories current) {
+            if (current.etag() == null) {
+                return fetch(profileId, null);
+            }
+            try {
+                CachedCategories fresh = fetch(profileId, current.etag());
+                modified.increment();
+                return fresh;
+            } catch (FeignException e) {
+                if (e.status() == HttpStatus.NOT_MODIFIED.value()) {
+                    notModified.increment();
+                    return current;
+                }
+                throw e;
+            }
+        }
+    }
+
+    private record CachedCategories(List<CategoryDTO> categories, String etag) { }
+}
@@ -0,0 +1,132 @@
+package io.github.poupeai.ingestion.service.categorization;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker por taxa de falha nas últimas {@code window-size} chamadas.
+ * <p>
+ * Fechado, deixa tudo passar; com ao menos {@code minimum-calls} resultados e taxa de falha acima de
+ * {@code failure-rate-threshold}, abre e recusa chamadas por {@code open-duration}. Depois disso fica
+ * meio-aberto e libera uma única chamada de teste: sucesso fecha o circuito (zerando a janela), falha
+ * abre de novo.
+ */
+public final class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final boolean[] window;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openDurationNanos;
+
+    private State state = State.CLOSED;
+    private int recorded;
+    private int next;
+    private int failures;
+    private long openedAt;
+    private boolean probeInFlight;
+    private double failureLatencyNanos;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, Duration openDuration) {
+        this.window = new boolean[Math.max(1, windowSize)];
+        this.minimumCalls = Math.clamp(minimumCalls, 1, window.length);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+    }
+
+    /**
+     * @return {@code true} se a chamada pode seguir; nesse caso o resultado deve ser informado em
+     * {@link #onSuccess()}, {@link #onFailure(long)} ou {@link #release()}
+     */
+    public synchronized boolean tryAcquire() {
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> {
+                if (System.nanoTime() - openedAt < openDurationNanos) yield false;
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                yield true;
+            }
+            case HALF_OPEN -> {
+                if (probeInFlight) yield false;
+                probeInFlight = true;
+                yield true;
+            }
+        };
+    }
+
+    /**
+     * Consulta, sem ocupar a chamada de teste, se uma chamada seria liberada agora.
+     */
+    public synchronized boolean isCallPermitted() {
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> System.nanoTime() - openedAt >= openDurationNanos;
+            case HALF_OPEN -> !probeInFlight;
+        };
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            reset();
+            state = State.CLOSED;
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure(long latencyNanos) {
+        failureLatencyNanos = failureLatencyNanos == 0 ? latencyNanos : 0.8 * failureLatencyNanos + 0.2 * latencyNanos;
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && recorded >= minimumCalls && (double) failures / recorded >= failureRateThreshold) {
+            open();
+        }
+    }
+
+    /**
+     * Devolve a chamada liberada por {@link #tryAcquire()} sem resultado (cancelada ou sem chegar ao
+     * Report Service), para que não conte como sucesso nem como falha.
+     */
+    public synchronized void release() {
+        if (state == State.HALF_OPEN) probeInFlight = false;
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    /**
+     * Média móvel da latência das chamadas que falharam: quanto cada chamada recusada deixou de esperar.
+     */
+    public synchronized Duration failureLatency() {
+        return Duration.ofNanos((long) failureLatencyNanos);
+    }
+
+    private void record(boolean failure) {
+        if (recorded == window.length) {
+            if (window[next]) failures--;
+        } else {
+            recorded++;
+        }
+        window[next] = failure;
+        if (failure) failures++;
+        next = (next + 1) % window.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        probeInFlight = false;
+    }
+
+    private void reset() {
+        recorded = 0;
+        next = 0;
+        failures = 0;
+        probeInFlight = false;
+    }
+}
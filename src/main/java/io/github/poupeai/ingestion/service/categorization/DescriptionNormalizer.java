@@ -0,0 +1,25 @@
+package io.github.poupeai.ingestion.service.categorization;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Forma canônica de descrições de transação para comparação: sem acentos, em caixa alta
+ * e com espaços colapsados. "Pix  enviado - João" e "PIX ENVIADO - JOAO" são equivalentes.
+ */
+public final class DescriptionNormalizer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private DescriptionNormalizer() {
+    }
+
+    public static String normalize(String description) {
+        if (description == null) return "";
+        String decomposed = Normalizer.normalize(description, Normalizer.Form.NFD);
+        String withoutAccents = DIACRITICS.matcher(decomposed).replaceAll("");
+        return WHITESPACE.matcher(withoutAccents.trim()).replaceAll(" ").toUpperCase(Locale.ROOT);
+    }
+}
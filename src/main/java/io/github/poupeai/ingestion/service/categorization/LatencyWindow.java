@@ -0,0 +1,39 @@
+package io.github.poupeai.ingestion.service.categorization;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Últimas latências de chamadas bem-sucedidas, para calcular percentis recentes sem histograma.
+ */
+final class LatencyWindow {
+
+    private final long[] samples;
+    private int count;
+    private int next;
+
+    LatencyWindow(int size) {
+        this.samples = new long[size];
+    }
+
+    synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) count++;
+    }
+
+    /**
+     * @return o percentil {@code quantile} (0 a 1) das amostras, ou {@code fallback} com menos de
+     * {@code minSamples}
+     */
+    Duration percentile(double quantile, int minSamples, Duration fallback) {
+        long[] copy;
+        synchronized (this) {
+            if (count < minSamples) return fallback;
+            copy = Arrays.copyOf(samples, count);
+        }
+        Arrays.sort(copy);
+        int index = (int) Math.ceil(quantile * copy.length) - 1;
+        return Duration.ofNanos(copy[Math.clamp(index, 0, copy.length - 1)]);
+    }
+}
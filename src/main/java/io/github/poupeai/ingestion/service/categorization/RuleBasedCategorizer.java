@@ -0,0 +1,123 @@
+package io.github.poupeai.ingestion.service.categorization;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.poupeai.ingestion.client.dto.TransactionType;
+import io.github.poupeai.ingestion.domain.model.BankTransaction;
+import io.github.poupeai.ingestion.dto.CategoryDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Categorização local, antes da IA, para descrições óbvias.
+ * <p>
+ * Uma descrição igual (normalizada) ao nome de uma categoria do usuário vai para essa categoria. Fora isso,
+ * valem as palavras-chave de {@code app.categorization.rules} (formato {@code PALAVRA=Nome da categoria}),
+ * compiladas em um {@link AhoCorasickMatcher} por conjunto de categorias: vale a palavra-chave mais longa
+ * encontrada como palavra inteira. Os nomes das categorias não entram no autômato, já que nome de categoria
+ * não é palavra-chave: "Mercado" não pode capturar "MERCADO LIVRE ESTORNO". Entre categorias de mesmo nome,
+ * é escolhida a do mesmo tipo (receita/despesa) da transação.
+ */
+@Slf4j
+@Component
+public class RuleBasedCategorizer {
+
+    private final Map<String, String> rules;
+    private final Cache<String, CompiledRules> compiled = Caffeine.newBuilder()
+            .maximumSize(1_000)
+            .build();
+
+    public RuleBasedCategorizer(@Value("${app.categorization.rules}") List<String> rules) {
+        this.rules = parseRules(rules);
+    }
+
+    /**
+     * Preenche {@code categoryId} nas transações ainda sem categoria cujo texto casa com alguma regra.
+     *
+     * @return quantidade de transações categorizadas por regra
+     */
+    public int apply(List<BankTransaction> transactions, List<CategoryDTO> userCategories, String fingerprint) {
+        if (userCategories.isEmpty()) return 0;
+
+        CompiledRules compiledRules = compiled.get(fingerprint, key -> compile(userCategories));
+        Map<String, Optional<List<CategoryDTO>>> candidatesByDescription = new HashMap<>();
+
+        int matches = 0;
+        for (BankTransaction tx : transactions) {
+            if (tx.getCategoryId() != null) continue;
+
+            Optional<List<CategoryDTO>> candidates = candidatesByDescription.computeIfAbsent(tx.getDescription(),
+                    description -> Optional.ofNullable(compiledRules.find(DescriptionNormalizer.normalize(description))));
+            if (candidates.isEmpty()) continue;
+
+            String categoryId = pickByType(candidates.get(), tx.getAmount());
+            if (categoryId != null) {
+                tx.setCategoryId(categoryId);
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    private CompiledRules compile(List<CategoryDTO> userCategories) {
+        Map<String, List<CategoryDTO>> categoriesByName = new HashMap<>();
+        for (CategoryDTO category : userCategories) {
+            if (category.id() == null || category.name() == null) continue;
+            categoriesByName.computeIfAbsent(DescriptionNormalizer.normalize(category.name()), name -> new ArrayList<>()).add(category);
+        }
+
+        Map<String, List<CategoryDTO>> keywords = new LinkedHashMap<>();
+        rules.forEach((keyword, categoryName) -> {
+            List<CategoryDTO> target = categoriesByName.get(categoryName);
+            if (target != null) keywords.put(keyword, target);
+        });
+        return new CompiledRules(categoriesByName, new AhoCorasickMatcher<>(keywords));
+    }
+
+    private static String pickByType(List<CategoryDTO> candidates, BigDecimal amount) {
+        String expected = (amount.signum() < 0 ? TransactionType.EXPENSE : TransactionType.INCOME).name();
+        String untyped = null;
+        for (CategoryDTO candidate : candidates) {
+            if (candidate.type() == null || candidate.type().isBlank()) {
+                if (untyped == null) untyped = candidate.id();
+            } else if (candidate.type().equalsIgnoreCase(expected)) {
+                return candidate.id();
+            }
+        }
+        return untyped;
+    }
+
+    /**
+     * @param byName   categorias pelo nome normalizado, para descrições idênticas ao nome
+     * @param keywords palavras-chave configuradas
+     */
+    private record CompiledRules(Map<String, List<CategoryDTO>> byName, AhoCorasickMatcher<List<CategoryDTO>> keywords) {
+        List<CategoryDTO> find(String normalizedDescription) {
+            List<CategoryDTO> exact = byName.get(normalizedDescription);
+            return exact != null ? exact : keywords.findLongest(normalizedDescription);
+        }
+    }
+
+    private static Map<String, String> parseRules(List<String> entries) {
+        Map<String, String> parsed = new LinkedHashMap<>();
+        for (String entry : entries) {
+            int separator = entry.indexOf('=');
+            if (separator <= 0 || separator == entry.length() - 1) {
+                if (!entry.isBlank()) log.warn("Regra de categorização ignorada (esperado PALAVRA=Categoria): {}", entry);
+                continue;
+            }
+            parsed.put(DescriptionNormalizer.normalize(entry.substring(0, separator)),
+                    DescriptionNormalizer.normalize(entry.substring(separator + 1)));
+        }
+        return parsed;
+    }
+}
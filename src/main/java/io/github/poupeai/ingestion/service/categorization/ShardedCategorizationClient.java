@@ -0,0 +1,388 @@
+package io.github.poupeai.ingestion.service.categorization;
+
+import feign.Request;
+import io.github.poupeai.ingestion.audit.Log;
+import io.github.poupeai.ingestion.audit.MdcContext;
+import io.github.poupeai.ingestion.client.ReportServiceClient;
+import io.github.poupeai.ingestion.client.dto.CategorizationRequest;
+import io.github.poupeai.ingestion.client.dto.CategorizationResponse;
+import io.github.poupeai.ingestion.dto.CategoryDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Divide as descrições em shards de {@code app.categorization.shard-size} e consulta a IA em paralelo,
+ * com no máximo {@code app.categorization.max-concurrent-shards} chamadas simultâneas no serviço inteiro.
+ * <p>
+ * Cada shard é independente: falhas são retentadas isoladamente e um timeout só faz o próprio shard
+ * cair nas categorias de fallback. O resultado é a união das predições dos shards bem-sucedidos.
+ * <p>
+ * Como a IA é opcional para o job, as chamadas têm orçamento de latência:
+ * <ul>
+ *   <li>com {@code hedge.enabled}, se a resposta não chega até o percentil {@code hedge.percentile} das
+ *   latências recentes (nunca antes de {@code hedge.min-delay}), uma segunda requisição idêntica é
+ *   disparada, vale a primeira que responder e a outra é cancelada;</li>
+ *   <li>um {@link CircuitBreaker} acompanha os resultados e, enquanto o Report Service está falhando,
+ *   a predição nem é tentada: os jobs seguem direto para as categorias de fallback.</li>
+ * </ul>
+ * A latência de cada chamada fica em {@code categorization.ai.requests} (por resultado), a taxa de
+ * acerto da IA em {@code categorization.ai.descriptions} (descrições com e sem predição), o estado do
+ * circuito em {@code categorization.ai.circuit.state}, os hedges disparados e vencedores em
+ * {@code categorization.ai.hedges} e o tempo poupado pelo circuito aberto em {@code categorization.ai.time-saved}.
+ */
+@Slf4j
+@Component
+public class ShardedCategorizationClient implements DisposableBean {
+
+    private final ReportServiceClient reportServiceClient;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("ai-shard-", 0).factory());
+    private final Semaphore permits;
+    private final int shardSize;
+    private final Duration shardTimeout;
+    private final Request.Options callOptions;
+    private final int shardRetries;
+    private final boolean hedgeEnabled;
+    private final double hedgePercentile;
+    private final Duration hedgeMinDelay;
+    private final CircuitBreaker circuitBreaker;
+    private final LatencyWindow latencies = new LatencyWindow(LATENCY_WINDOW_SIZE);
+
+    private final Timer succeeded;
+    private final Timer failed;
+    private final Counter predicted;
+    private final Counter unpredicted;
+    private final Counter hedgesSent;
+    private final Counter hedgesWon;
+    private final Counter shortCircuited;
+    private final Timer savedByCircuit;
+
+    private static final int LATENCY_WINDOW_SIZE = 256;
+    private static final int MIN_LATENCY_SAMPLES = 20;
+
+    public ShardedCategorizationClient(ReportServiceClient reportServiceClient,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${app.categorization.shard-size}") int shardSize,
+                                       @Value("${app.categorization.max-concurrent-shards}") int maxConcurrentShards,
+                                       @Value("${app.categorization.shard-timeout}") Duration shardTimeout,
+                                       @Value("${app.downstream.connect-timeout}") Duration connectTimeout,
+                                       @Value("${app.categorization.shard-retries}") int shardRetries,
+                                       @Value("${app.categorization.hedge.enabled}") boolean hedgeEnabled,
+                                       @Value("${app.categorization.hedge.percentile}") double hedgePercentile,
+                                       @Value("${app.categorization.hedge.min-delay}") Duration hedgeMinDelay,
+                                       @Value("${app.categorization.circuit-breaker.window-size}") int windowSize,
+                                       @Value("${app.categorization.circuit-breaker.minimum-calls}") int minimumCalls,
+                                       @Value("${app.categorization.circuit-breaker.failure-rate-threshold}") double failureRateThreshold,
+                                       @Value("${app.categorization.circuit-breaker.open-duration}") Duration openDuration) {
+        this.reportServiceClient = reportServiceClient;
+        this.permits = new Semaphore(maxConcurrentShards, true);
+        this.shardSize = shardSize;
+        this.shardTimeout = shardTimeout;
+        this.callOptions = new Request.Options(connectTimeout.toMillis(), TimeUnit.MILLISECONDS,
+                shardTimeout.toMillis(), TimeUnit.MILLISECONDS, true);
+        this.shardRetries = shardRetries;
+        this.hedgeEnabled = hedgeEnabled;
+        this.hedgePercentile = hedgePercentile;
+        this.hedgeMinDelay = hedgeMinDelay;
+        this.circuitBreaker = new CircuitBreaker(windowSize, minimumCalls, failureRateThreshold, openDuration);
+        this.succeeded = timer(meterRegistry, "success");
+        this.failed = timer(meterRegistry, "error");
+        this.predicted = counter(meterRegistry, "predicted");
+        this.unpredicted = counter(meterRegistry, "unpredicted");
+        this.hedgesSent = hedgeCounter(meterRegistry, "sent");
+        this.hedgesWon = hedgeCounter(meterRegistry, "won");
+        this.shortCircuited = Counter.builder("categorization.ai.circuit.short-circuited")
+                .description("Shards que seguiram para o fallback sem chamar a IA, com o circuito aberto")
+                .register(meterRegistry);
+        this.savedByCircuit = savedTimer(meterRegistry, "circuit-breaker");
+        for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+            Gauge.builder("categorization.ai.circuit.state", circuitBreaker, breaker -> breaker.state() == state ? 1 : 0)
+                    .description("Estado do circuit breaker da IA (1 no estado atual)")
+                    .tag("state", state.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * @return predições (descrição → categoria) de todos os shards que responderam a tempo
+     */
+    public Map<String, String> predict(List<String> descriptions, List<CategoryDTO> userCategories) {
+        if (!circuitBreaker.isCallPermitted()) {
+            shortCircuited.increment((descriptions.size() + shardSize - 1) / shardSize);
+            savedByCircuit.record(circuitBreaker.failureLatency());
+            unpredicted.increment(descriptions.size());
+            Log.warn(log, "AI_CATEGORIZATION_SHORT_CIRCUITED",
+                    "Report Service indisponível (circuito aberto). {} descrições seguem com categorias de fallback.", descriptions.size());
+            return Map.of();
+        }
+        Log.event(log, "AI_CATEGORIZATION_START", "Solicitando predição de categorias para IA ({} descrições)...", descriptions.size());
+        Executor jobExecutor = MdcContext.propagating(executor);
+
+        List<CompletableFuture<Map<String, String>>> shards = partition(descriptions).stream()
+                .map(shard -> predictShard(shard, userCategories, jobExecutor, 0))
+                .toList();
+
+        Map<String, String> merged = new HashMap<>();
+        shards.forEach(shard -> merged.putAll(shard.join()));
+        predicted.increment(merged.size());
+        unpredicted.increment(descriptions.size() - merged.size());
+        return merged;
+    }
+
+    private CompletableFuture<Map<String, String>> predictShard(List<String> shard, List<CategoryDTO> userCategories,
+                                                                Executor jobExecutor, int attempt) {
+        return hedged(shard, userCategories, jobExecutor)
+                .handleAsync((result, error) -> {
+                    if (error == null) return CompletableFuture.completedFuture(result);
+
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    if (cause instanceof CircuitOpenException) {
+                        shortCircuited.increment();
+                        return CompletableFuture.completedFuture(Collections.<String, String>emptyMap());
+                    }
+                    if (cause instanceof TimeoutException) {
+                        String reason = cause.getMessage() != null ? cause.getMessage() : "excedeu " + shardTimeout.toMillis() + " ms";
+                        Log.warn(log, "AI_CATEGORIZATION_SHARD_TIMEOUT",
+                                "Shard de {} descrições sem resposta ({}). Usando categorias de fallback.", shard.size(), reason);
+                        return CompletableFuture.completedFuture(Collections.<String, String>emptyMap());
+                    }
+                    if (attempt < shardRetries) {
+                        Log.warn(log, "AI_CATEGORIZATION_SHARD_RETRY",
+                                "Falha no shard de {} descrições (tentativa {}): {}", shard.size(), attempt + 1, cause.getMessage());
+                        return predictShard(shard, userCategories, jobExecutor, attempt + 1);
+                    }
+                    Log.error(log, "AI_CATEGORIZATION_FAIL", "Erro na integração com IA (Report Service)", cause);
+                    return CompletableFuture.completedFuture(Collections.<String, String>emptyMap());
+                }, jobExecutor)
+                .thenCompose(Function.identity());
+    }
+
+    /**
+     * Dispara a chamada e, se ela passar do atraso de hedge, uma segunda igual; completa com a primeira
+     * resposta bem-sucedida, ou com a falha da última tentativa se as duas falharem. A tentativa que
+     * perde é cancelada.
+     * <p>
+     * O hedge só sai se houver permissão livre na hora: com o serviço saturado, ele apenas disputaria
+     * as permissões com os shards que ainda nem começaram.
+     */
+    private CompletableFuture<Map<String, String>> hedged(List<String> shard, List<CategoryDTO> userCategories, Executor jobExecutor) {
+        CompletableFuture<Map<String, String>> result = new CompletableFuture<>();
+        AtomicInteger running = new AtomicInteger(1);
+
+        CompletableFuture<Map<String, String>> primary = attempt(shard, userCategories, jobExecutor);
+        result.whenComplete((value, error) -> primary.cancel(true));
+        primary.whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+            } else if (running.decrementAndGet() == 0) {
+                result.completeExceptionally(error);
+            }
+        });
+        if (!hedgeEnabled) return result;
+
+        Duration delay = latencies.percentile(hedgePercentile, MIN_LATENCY_SAMPLES, hedgeMinDelay);
+        if (delay.compareTo(hedgeMinDelay) < 0) delay = hedgeMinDelay;
+        Executor delayed = CompletableFuture.delayedExecutor(delay.toNanos(), TimeUnit.NANOSECONDS, jobExecutor);
+        CompletableFuture.runAsync(() -> {
+            if (result.isDone() || !permits.tryAcquire()) return;
+            if (!circuitBreaker.tryAcquire()) {
+                permits.release();
+                return;
+            }
+            running.incrementAndGet();
+            hedgesSent.increment();
+            CompletableFuture<Map<String, String>> hedge = call(shard, userCategories, jobExecutor, true);
+            result.whenComplete((value, error) -> hedge.cancel(true));
+            hedge.whenComplete((value, error) -> {
+                if (error == null) {
+                    if (result.complete(value)) hedgesWon.increment();
+                } else if (running.decrementAndGet() == 0) {
+                    result.completeExceptionally(error);
+                }
+            });
+        }, delayed);
+        return result;
+    }
+
+    /**
+     * Uma tentativa passando pelo circuit breaker, que espera até {@code shard-timeout} por uma permissão.
+     */
+    private CompletableFuture<Map<String, String>> attempt(List<String> shard, List<CategoryDTO> userCategories, Executor jobExecutor) {
+        if (!circuitBreaker.tryAcquire()) {
+            return CompletableFuture.failedFuture(new CircuitOpenException());
+        }
+        return call(shard, userCategories, jobExecutor, false);
+    }
+
+    /**
+     * Chamada ao Report Service já liberada pelo circuit breaker. O prazo de {@code shard-timeout} e a
+     * latência informada ao breaker contam a partir da permissão obtida: a espera local por permissão
+     * não é falha do Report Service, e quem não consegue permissão no prazo só devolve a vez no breaker.
+     * <p>
+     * O mesmo prazo vai para o Feign como timeout de leitura da requisição. Cancelar o future (hedge
+     * perdedor, job cancelado) ou estourar o prazo interrompe a virtual thread da chamada, o que fecha a
+     * conexão em andamento e devolve a permissão.
+     *
+     * @param permitHeld se quem chama já obteve a permissão
+     */
+    private CompletableFuture<Map<String, String>> call(List<String> shard, List<CategoryDTO> userCategories,
+                                                        Executor jobExecutor, boolean permitHeld) {
+        CompletableFuture<Map<String, String>> result = new CompletableFuture<>();
+        AtomicBoolean holdsPermit = new AtomicBoolean(permitHeld);
+        AtomicLong startedAt = new AtomicLong();
+
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            try {
+                if (!holdsPermit.get()) {
+                    if (!permits.tryAcquire(shardTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                        result.completeExceptionally(new PermitTimeoutException(shardTimeout));
+                        return;
+                    }
+                    holdsPermit.set(true);
+                }
+                if (result.isDone()) return;
+                startedAt.set(System.nanoTime());
+                result.orTimeout(shardTimeout.toMillis(), TimeUnit.MILLISECONDS);
+                result.complete(request(shard, userCategories));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result.completeExceptionally(e);
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            } finally {
+                if (holdsPermit.compareAndSet(true, false)) permits.release();
+            }
+        }, null);
+
+        result.whenComplete((value, error) -> {
+            long started = startedAt.get();
+            if (error == null) {
+                circuitBreaker.onSuccess();
+            } else if (started == 0 || error instanceof CancellationException || error instanceof PermitTimeoutException) {
+                circuitBreaker.release();
+            } else {
+                circuitBreaker.onFailure(System.nanoTime() - started);
+            }
+            if (error != null) {
+                task.cancel(true);
+                if (holdsPermit.compareAndSet(true, false)) permits.release();
+            }
+        });
+        jobExecutor.execute(task);
+        return result;
+    }
+
+    private Map<String, String> request(List<String> shard, List<CategoryDTO> userCategories) {
+        Timer.Sample sample = Timer.start();
+        Timer outcome = failed;
+        try {
+            long startedAt = System.nanoTime();
+            CategorizationResponse response = reportServiceClient.predictCategories(new CategorizationRequest(shard, userCategories), callOptions);
+            latencies.record(System.nanoTime() - startedAt);
+            outcome = succeeded;
+            List<CategorizationResponse.CategorizationItem> items = response != null ? response.getCategorizationsSafe() : Collections.emptyList();
+
+            return items.stream()
+                    .filter(item -> item.description() != null && item.categoryId() != null)
+                    .collect(Collectors.toMap(
+                            CategorizationResponse.CategorizationItem::description,
+                            CategorizationResponse.CategorizationItem::categoryId,
+                            (existing, replacement) -> existing
+                    ));
+        } finally {
+            sample.stop(outcome);
+        }
+    }
+
+    private List<List<String>> partition(List<String> descriptions) {
+        List<List<String>> shards = new ArrayList<>((descriptions.size() + shardSize - 1) / shardSize);
+        for (int from = 0; from < descriptions.size(); from += shardSize) {
+            shards.add(descriptions.subList(from, Math.min(from + shardSize, descriptions.size())));
+        }
+        return shards;
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("categorization.ai.requests")
+                .description("Latência das chamadas de predição ao Report Service")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("categorization.ai.descriptions")
+                .description("Descrições enviadas à IA, com e sem categoria prevista")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static Counter hedgeCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("categorization.ai.hedges")
+                .description("Requisições de hedge disparadas e as que responderam antes da original")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static Timer savedTimer(MeterRegistry meterRegistry, String mechanism) {
+        return Timer.builder("categorization.ai.time-saved")
+                .description("Espera evitada pelo circuito aberto (latência média das falhas)")
+                .tag("mechanism", mechanism)
+                .register(meterRegistry);
+    }
+
+    CircuitBreaker circuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Nenhuma permissão livre dentro do prazo; o shard segue para o fallback sem contar como falha no breaker.
+     */
+    private static final class PermitTimeoutException extends TimeoutException {
+        private PermitTimeoutException(Duration waited) {
+            super("Sem permissão para chamar o Report Service após " + waited.toMillis() + " ms");
+        }
+    }
+
+    /**
+     * Tentativa recusada pelo circuito aberto; o shard segue direto para o fallback.
+     */
+    private static final class CircuitOpenException extends RuntimeException {
+        private CircuitOpenException() {
+            super("Circuito do Report Service aberto", null, false, false);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,26 @@
+package io.github.poupeai.ingestion.service.checkpoint;
+
+import java.util.Collection;
+
+/**
+ * Registro durável do progresso de cada job, usado para retomar uma reentrega do RabbitMQ
+ * a partir do último lote confirmado pelo Core Service sem reenviar transações.
+ */
+public interface CheckpointStore {
+
+    /**
+     * @return checkpoint do job, ou {@link JobCheckpoint#empty()} se o job nunca confirmou um lote
+     */
+    JobCheckpoint load(String jobId);
+
+    /**
+     * Registra que o lote {@code chunkIndex} foi aceito pelo Core Service. Só retorna depois que o
+     * registro está em armazenamento durável.
+     */
+    void commitChunk(String jobId, int chunkSize, int chunkIndex, String bankAccountId, Collection<String> fitIds);
+
+    /**
+     * Descarta o checkpoint de um job que chegou a um estado terminal e não será reenviado.
+     */
+    void discard(String jobId);
+}
@@ -0,0 +1,147 @@
+package io.github.poupeai.ingestion.service.checkpoint;
+
+import io.github.poupeai.ingestion.audit.Log;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@link CheckpointStore} em disco local: um arquivo de log append-only por job.
+ * <p>
+ * Cada lote grava uma linha {@code F} por FITID seguida de uma linha {@code C} de confirmação e um
+ * {@code fsync}. Na leitura, linhas {@code F} sem {@code C} posterior (queda no meio da gravação) são
+ * descartadas. Arquivos mais antigos que {@code retention} são removidos na inicialização.
+ * <p>
+ * Em produção o diretório ({@code app.ingestion.checkpoint.directory}) deve ser um volume persistente
+ * montado em todas as réplicas, porque a reentrega de um job pode cair em outro pod ou chegar depois de
+ * um restart. O padrão, dentro do {@code java.io.tmpdir}, só retoma jobs reentregues ao mesmo pod sem
+ * restart, e é avisado no log na inicialização.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.ingestion.checkpoint.store", havingValue = "file", matchIfMissing = true)
+public class FileCheckpointStore implements CheckpointStore {
+
+    private static final String SUFFIX = ".ckpt";
+    private static final String FITID_RECORD = "F";
+    private static final String COMMIT_RECORD = "C";
+
+    private final Path directory;
+
+    public FileCheckpointStore(@Value("${app.ingestion.checkpoint.directory}") Path directory,
+                               @Value("${app.ingestion.checkpoint.retention}") Duration retention) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível criar o diretório de checkpoints: " + directory, e);
+        }
+        if (directory.toAbsolutePath().startsWith(Path.of(System.getProperty("java.io.tmpdir")).toAbsolutePath())) {
+            Log.warn(log, "CHECKPOINT_DIR_LOCAL", "Checkpoints em {}, fora de um volume compartilhado: jobs reentregues "
+                    + "a outra réplica ou depois de um restart recomeçam do início. Configure INGESTION_CHECKPOINT_DIR.", directory);
+        }
+        purgeOlderThan(retention);
+    }
+
+    @Override
+    public JobCheckpoint load(String jobId) {
+        if (jobId == null) return JobCheckpoint.empty();
+
+        Set<String> sent = new HashSet<>();
+        List<String> pending = new ArrayList<>();
+        int chunkSize = 0;
+        int committedChunks = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(fileFor(jobId), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", 4);
+                if (fields.length == 4 && FITID_RECORD.equals(fields[0])) {
+                    pending.add(JobCheckpoint.key(fields[2], fields[3]));
+                } else if (fields.length == 3 && COMMIT_RECORD.equals(fields[0])) {
+                    sent.addAll(pending);
+                    pending.clear();
+                    committedChunks = Math.max(committedChunks, Integer.parseInt(fields[1]) + 1);
+                    chunkSize = Integer.parseInt(fields[2]);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return JobCheckpoint.empty();
+        } catch (IOException | NumberFormatException e) {
+            Log.warn(log, "CHECKPOINT_READ_FAIL", "Checkpoint ilegível para o job {}. Ignorando: {}", jobId, e.getMessage());
+            return JobCheckpoint.empty();
+        }
+
+        return new JobCheckpoint(chunkSize, committedChunks, sent);
+    }
+
+    @Override
+    public void commitChunk(String jobId, int chunkSize, int chunkIndex, String bankAccountId, Collection<String> fitIds) {
+        if (jobId == null) return;
+
+        StringBuilder records = new StringBuilder();
+        for (String fitId : fitIds) {
+            records.append(FITID_RECORD).append('\t').append(chunkIndex).append('\t')
+                    .append(bankAccountId).append('\t').append(fitId).append('\n');
+        }
+        records.append(COMMIT_RECORD).append('\t').append(chunkIndex).append('\t').append(chunkSize).append('\n');
+
+        try (FileChannel channel = FileChannel.open(fileFor(jobId),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = StandardCharsets.UTF_8.encode(records.toString());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao gravar checkpoint do job " + jobId, e);
+        }
+    }
+
+    @Override
+    public void discard(String jobId) {
+        if (jobId == null) return;
+        try {
+            Files.deleteIfExists(fileFor(jobId));
+        } catch (IOException e) {
+            Log.warn(log, "CHECKPOINT_DISCARD_FAIL", "Falha ao remover checkpoint do job {}: {}", jobId, e.getMessage());
+        }
+    }
+
+    private Path fileFor(String jobId) {
+        return directory.resolve(jobId.replaceAll("[^A-Za-z0-9._-]", "_") + SUFFIX);
+    }
+
+    private void purgeOlderThan(Duration retention) {
+        Instant cutoff = Instant.now().minus(retention);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            Log.warn(log, "CHECKPOINT_PURGE_FAIL", "Falha ao limpar checkpoints antigos: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package io.github.poupeai.ingestion.service.checkpoint;
+
+import java.util.Set;
+
+/**
+ * @param chunkSize       tamanho de lote usado quando os lotes foram confirmados
+ * @param committedChunks quantidade de lotes iniciais já confirmados
+ * @param sentKeys        chaves {@link #key(String, String)} das transações já enviadas
+ */
+public record JobCheckpoint(
+        int chunkSize,
+        int committedChunks,
+        Set<String> sentKeys
+) {
+    private static final JobCheckpoint EMPTY = new JobCheckpoint(0, 0, Set.of());
+
+    public static JobCheckpoint empty() {
+        return EMPTY;
+    }
+
+    public boolean isEmpty() {
+        return committedChunks == 0 && sentKeys.isEmpty();
+    }
+
+    /**
+     * Indica se o lote pode ser pulado por inteiro. Só vale se o tamanho de lote não mudou
+     * entre as tentativas; caso contrário a retomada depende apenas das chaves enviadas.
+     */
+    public boolean isChunkCommitted(int currentChunkSize, int chunkIndex) {
+        return currentChunkSize == chunkSize && chunkIndex < committedChunks;
+    }
+
+    public boolean isSent(String bankAccountId, String fitId) {
+        return fitId != null && sentKeys.contains(key(bankAccountId, fitId));
+    }
+
+    public static String key(String bankAccountId, String fitId) {
+        return bankAccountId + '\t' + fitId;
+    }
+}
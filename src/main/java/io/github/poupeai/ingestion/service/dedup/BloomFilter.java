@@ -0,0 +1,96 @@
+package io.github.poupeai.ingestion.service.dedup;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Filtro de Bloom sobre hashes de 64 bits ({@link KeyHash}): {@link #mightContain(long)} nunca dá falso negativo e dá
+ * falso positivo com probabilidade próxima de {@code fpp} enquanto o filtro não passa da capacidade.
+ * <p>
+ * As {@code k} posições vêm de duplo hashing (Kirsch–Mitzenmacher) sobre as duas metades do hash.
+ */
+public final class BloomFilter {
+
+    private final long[] words;
+    private final long bitCount;
+    private final int hashCount;
+    private final int capacity;
+    private int size;
+
+    private BloomFilter(long[] words, int hashCount, int capacity, int size) {
+        this.words = words;
+        this.bitCount = (long) words.length * Long.SIZE;
+        this.hashCount = hashCount;
+        this.capacity = capacity;
+        this.size = size;
+    }
+
+    public static BloomFilter withCapacity(int capacity, double fpp) {
+        int expected = Math.max(capacity, 1);
+        long bits = (long) Math.ceil(-expected * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        int hashes = Math.max(1, (int) Math.round((double) bits / expected * Math.log(2)));
+        return new BloomFilter(new long[Math.toIntExact((bits + Long.SIZE - 1) / Long.SIZE)], hashes, expected, 0);
+    }
+
+    public void put(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = index(h1 + i * h2);
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+        size++;
+    }
+
+    public boolean mightContain(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = index(h1 + i * h2);
+            if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Quantidade de inserções; acima da capacidade a taxa de falsos positivos cresce e o filtro deve
+     * ser reconstruído maior.
+     */
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public boolean isSaturated() {
+        return size > capacity;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(hashCount);
+        out.writeInt(capacity);
+        out.writeInt(size);
+        out.writeInt(words.length);
+        for (long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    public static BloomFilter readFrom(DataInput in) throws IOException {
+        int hashCount = in.readInt();
+        int capacity = in.readInt();
+        int size = in.readInt();
+        long[] words = new long[in.readInt()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = in.readLong();
+        }
+        return new BloomFilter(words, hashCount, capacity, size);
+    }
+
+    private long index(int combined) {
+        return (combined & 0xFFFFFFFFL) % bitCount;
+    }
+}
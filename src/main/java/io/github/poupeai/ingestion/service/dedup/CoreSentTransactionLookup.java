@@ -0,0 +1,36 @@
+package io.github.poupeai.ingestion.service.dedup;
+
+import io.github.poupeai.ingestion.client.CoreServiceClient;
+import io.github.poupeai.ingestion.client.dto.ExistingTransaction;
+import io.github.poupeai.ingestion.client.dto.TransactionLookupRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Consulta as transações gravadas direto no Core Service, que é quem sabe o que existe hoje na conta:
+ * o resultado é o mesmo em qualquer réplica, depois de um restart e depois que o usuário apaga uma
+ * importação.
+ * <p>
+ * Depende de {@code POST /api/internal/transactions/lookup} no Core Service, por isso só é registrada com
+ * {@code app.ingestion.dedup.core-lookup.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.ingestion.dedup.core-lookup.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class CoreSentTransactionLookup implements SentTransactionLookup {
+
+    private final CoreServiceClient coreServiceClient;
+
+    @Override
+    public List<ExistingTransaction> find(String bankAccountId, Collection<String> fitIds, Collection<LocalDate> dates) {
+        if (fitIds.isEmpty() && dates.isEmpty()) return List.of();
+        return coreServiceClient.lookupTransactions(new TransactionLookupRequest(
+                UUID.fromString(bankAccountId), List.copyOf(fitIds), List.copyOf(dates)));
+    }
+}
@@ -0,0 +1,32 @@
+package io.github.poupeai.ingestion.service.dedup;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Registro durável, por conta bancária, das chaves de deduplicação ({@link StatementDeduplicator}) das
+ * transações já aceitas pelo Core Service.
+ */
+public interface DuplicateStore {
+
+    /**
+     * @return filtro com todas as chaves registradas para a conta (vazio se nunca houve registro)
+     */
+    BloomFilter loadFilter(String bankAccountId);
+
+    /**
+     * Conjunto exato das chaves da conta. Só é lido quando o filtro acusa um possível acerto.
+     */
+    Set<String> loadKeys(String bankAccountId);
+
+    /**
+     * Acrescenta chaves da conta. Só retorna depois que o registro está em armazenamento durável.
+     */
+    void append(String bankAccountId, Collection<String> keys);
+
+    /**
+     * Grava o filtro em memória, que já inclui as chaves acrescentadas, para a próxima leitura não
+     * precisar reprocessá-las.
+     */
+    void saveFilter(String bankAccountId, BloomFilter filter);
+}
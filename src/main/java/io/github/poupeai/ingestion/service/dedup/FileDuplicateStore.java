@@ -0,0 +1,182 @@
+package io.github.poupeai.ingestion.service.dedup;
+
+import io.github.poupeai.ingestion.audit.Log;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * {@link DuplicateStore} em disco local, com dois arquivos por conta.
+ * <p>
+ * {@code <conta>.keys} é um log append-only com uma chave por linha, gravado com {@code fsync}.
+ * {@code <conta>.bloom} é um snapshot do filtro que guarda até que byte do log ele cobre. Na leitura,
+ * as chaves gravadas depois do snapshot (queda antes de {@link #saveFilter}) são reaplicadas. Um
+ * snapshot ausente, ilegível ou acima da capacidade faz o filtro ser reconstruído a partir do log.
+ * <p>
+ * Como os checkpoints, o diretório ({@code app.ingestion.dedup.directory}) deve ser um volume persistente
+ * compartilhado entre as réplicas; o padrão, dentro do {@code java.io.tmpdir}, é avisado no log.
+ */
+@Slf4j
+@Component
+public class FileDuplicateStore implements DuplicateStore {
+
+    private static final String KEYS_SUFFIX = ".keys";
+    private static final String FILTER_SUFFIX = ".bloom";
+    private static final int FILTER_FORMAT = 1;
+    private static final int MIN_CAPACITY = 10_000;
+
+    private final Path directory;
+    private final double falsePositiveRate;
+
+    public FileDuplicateStore(@Value("${app.ingestion.dedup.directory}") Path directory,
+                              @Value("${app.ingestion.dedup.false-positive-rate}") double falsePositiveRate) {
+        this.directory = directory;
+        this.falsePositiveRate = falsePositiveRate;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível criar o diretório de deduplicação: " + directory, e);
+        }
+        if (directory.toAbsolutePath().startsWith(Path.of(System.getProperty("java.io.tmpdir")).toAbsolutePath())) {
+            Log.warn(log, "DEDUP_DIR_LOCAL", "Chaves de deduplicação em {}, fora de um volume compartilhado: cada réplica "
+                    + "só reconhece o que ela mesma enviou. Configure INGESTION_DEDUP_DIR.", directory);
+        }
+    }
+
+    @Override
+    public BloomFilter loadFilter(String bankAccountId) {
+        Path keys = keysFile(bankAccountId);
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(filterFile(bankAccountId)))) {
+            if (in.readInt() != FILTER_FORMAT) throw new IOException("Formato de filtro desconhecido");
+            long covered = in.readLong();
+            BloomFilter filter = BloomFilter.readFrom(in);
+
+            if (Files.size(keys) >= covered) {
+                readKeys(keys, covered, key -> filter.put(KeyHash.of(key)));
+                if (!filter.isSaturated()) return filter;
+            }
+        } catch (NoSuchFileException e) {
+            // sem snapshot: reconstrói a partir do log, se houver
+        } catch (IOException e) {
+            Log.warn(log, "DEDUP_FILTER_READ_FAIL", "Filtro de deduplicação ilegível para a conta {}. Reconstruindo: {}",
+                    bankAccountId, e.getMessage());
+        }
+        return rebuild(bankAccountId);
+    }
+
+    @Override
+    public Set<String> loadKeys(String bankAccountId) {
+        Set<String> keys = new HashSet<>();
+        try {
+            readKeys(keysFile(bankAccountId), 0, keys::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao ler chaves de deduplicação da conta " + bankAccountId, e);
+        }
+        return keys;
+    }
+
+    @Override
+    public void append(String bankAccountId, Collection<String> keys) {
+        if (keys.isEmpty()) return;
+
+        StringBuilder records = new StringBuilder();
+        for (String key : keys) {
+            records.append(key).append('\n');
+        }
+
+        try (FileChannel channel = FileChannel.open(keysFile(bankAccountId),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = StandardCharsets.UTF_8.encode(records.toString());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao gravar chaves de deduplicação da conta " + bankAccountId, e);
+        }
+    }
+
+    @Override
+    public void saveFilter(String bankAccountId, BloomFilter filter) {
+        Path target = filterFile(bankAccountId);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            long covered = Files.exists(keysFile(bankAccountId)) ? Files.size(keysFile(bankAccountId)) : 0;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(FILTER_FORMAT);
+                out.writeLong(covered);
+                filter.writeTo(out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Log.warn(log, "DEDUP_FILTER_WRITE_FAIL", "Falha ao gravar filtro de deduplicação da conta {}: {}",
+                    bankAccountId, e.getMessage());
+        }
+    }
+
+    private BloomFilter rebuild(String bankAccountId) {
+        Path keys = keysFile(bankAccountId);
+        try {
+            int count = countLines(keys);
+            BloomFilter filter = BloomFilter.withCapacity(Math.max(MIN_CAPACITY, count * 2), falsePositiveRate);
+            readKeys(keys, 0, key -> filter.put(KeyHash.of(key)));
+            return filter;
+        } catch (NoSuchFileException e) {
+            return BloomFilter.withCapacity(MIN_CAPACITY, falsePositiveRate);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao reconstruir filtro de deduplicação da conta " + bankAccountId, e);
+        }
+    }
+
+    private static void readKeys(Path file, long from, Consumer<String> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.position(from);
+            InputStream in = Channels.newInputStream(channel);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) consumer.accept(line);
+            }
+        }
+    }
+
+    private static int countLines(Path file) throws IOException {
+        int[] count = {0};
+        readKeys(file, 0, key -> count[0]++);
+        return count[0];
+    }
+
+    private Path keysFile(String bankAccountId) {
+        return directory.resolve(safeName(bankAccountId) + KEYS_SUFFIX);
+    }
+
+    private Path filterFile(String bankAccountId) {
+        return directory.resolve(safeName(bankAccountId) + FILTER_SUFFIX);
+    }
+
+    private static String safeName(String bankAccountId) {
+        return bankAccountId.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+}
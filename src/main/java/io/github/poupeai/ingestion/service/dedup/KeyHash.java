@@ -0,0 +1,27 @@
+package io.github.poupeai.ingestion.service.dedup;
+
+/**
+ * Hash de 64 bits para contar chaves sem reter as chaves em memória.
+ */
+public final class KeyHash {
+
+    private KeyHash() {
+    }
+
+    /**
+     * FNV-1a sobre os caracteres seguido do finalizador do MurmurHash3, para espalhar bem os bits altos.
+     */
+    public static long of(CharSequence value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
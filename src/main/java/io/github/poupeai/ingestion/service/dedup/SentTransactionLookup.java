@@ -0,0 +1,19 @@
+package io.github.poupeai.ingestion.service.dedup;
+
+import io.github.poupeai.ingestion.client.dto.ExistingTransaction;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Fonte das transações já gravadas numa conta, consultada pelo {@link StatementDeduplicator} para
+ * confirmar os possíveis acertos do filtro da conta.
+ */
+public interface SentTransactionLookup {
+
+    /**
+     * @return transações da conta com um dos {@code fitIds} e todas as transações da conta nas {@code dates}
+     */
+    List<ExistingTransaction> find(String bankAccountId, Collection<String> fitIds, Collection<LocalDate> dates);
+}
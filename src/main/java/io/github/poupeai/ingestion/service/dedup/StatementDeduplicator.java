@@ -0,0 +1,292 @@
+package io.github.poupeai.ingestion.service.dedup;
+
+import io.github.poupeai.ingestion.audit.Log;
+import io.github.poupeai.ingestion.client.dto.ExistingTransaction;
+import io.github.poupeai.ingestion.client.dto.TransactionType;
+import io.github.poupeai.ingestion.domain.model.BankTransaction;
+import io.github.poupeai.ingestion.service.categorization.DescriptionNormalizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Descarta, antes da categorização e do envio ao Core Service, transações que já foram enviadas em
+ * outro extrato da mesma conta ou que se repetem dentro do próprio arquivo.
+ * <p>
+ * Em regra a transação é identificada pelo FITID junto com o valor, já que há bancos que reaproveitam
+ * FITIDs para lançamentos diferentes. A impressão digital {@code (data, valor, descrição normalizada, ocorrência)}
+ * só é usada para transações sem FITID ({@code app.ingestion.dedup.fingerprint-fallback}) e para bancos cujo
+ * FITID muda a cada exportação ({@code app.ingestion.dedup.unstable-fitid-banks}). A ocorrência numera
+ * transações idênticas no mesmo arquivo, então duas compras iguais no mesmo dia continuam distintas e casam
+ * uma a uma com as do extrato sobreposto.
+ * <p>
+ * A consulta passa primeiro pelo {@link BloomFilter} da conta, guardado no {@link DuplicateStore}; só os
+ * possíveis acertos são confirmados de forma exata. Sem {@code app.ingestion.dedup.core-lookup.enabled}, a
+ * confirmação usa o conjunto de chaves do próprio store, lido no primeiro possível acerto do job. Com ele,
+ * os possíveis acertos de cada lote são confirmados numa única consulta ao Core Service
+ * ({@link SentTransactionLookup}), que também enxerga transações apagadas pelo usuário.
+ * <p>
+ * Jobs de um mesmo perfil são serializados pelo
+ * {@link io.github.poupeai.ingestion.listener.ProfileOrderedJobExecutor}, então cada conta tem no máximo
+ * uma sessão aberta por vez.
+ */
+@Slf4j
+@Component
+public class StatementDeduplicator {
+
+    private static final String FITID_KEY = "F\t";
+    private static final String FINGERPRINT_KEY = "P\t";
+
+    private final DuplicateStore store;
+    private final SentTransactionLookup coreLookup;
+    private final boolean enabled;
+    private final boolean fingerprintFallback;
+    private final Set<String> unstableFitIdBanks;
+    private final int maxTrackedKeys;
+
+    public StatementDeduplicator(DuplicateStore store,
+                                 Optional<SentTransactionLookup> coreLookup,
+                                 @Value("${app.ingestion.dedup.enabled}") boolean enabled,
+                                 @Value("${app.ingestion.dedup.fingerprint-fallback}") boolean fingerprintFallback,
+                                 @Value("${app.ingestion.dedup.unstable-fitid-banks}") Set<String> unstableFitIdBanks,
+                                 @Value("${app.ingestion.dedup.max-tracked-keys}") int maxTrackedKeys) {
+        this.store = store;
+        this.coreLookup = coreLookup.orElse(null);
+        this.enabled = enabled;
+        this.fingerprintFallback = fingerprintFallback;
+        this.unstableFitIdBanks = Set.copyOf(unstableFitIdBanks);
+        this.maxTrackedKeys = maxTrackedKeys;
+    }
+
+    /**
+     * Abre a sessão de deduplicação de um job. Deve ser fechada ao fim do job, com ou sem sucesso.
+     */
+    public Session open(String bankAccountId) {
+        return new Session(bankAccountId, enabled && bankAccountId != null ? store.loadFilter(bankAccountId) : null);
+    }
+
+    /**
+     * @param fresh      transações do lote ainda não enviadas
+     * @param keys       chaves a registrar com {@link Session#record(List)} quando o lote for aceito
+     * @param duplicates transações descartadas do lote
+     */
+    public record Result(List<BankTransaction> fresh, List<String> keys, int duplicates) { }
+
+    /**
+     * Chave de uma transação do arquivo. {@code fitId} é nulo nas impressões digitais, que guardam o
+     * {@code day}, o hash da impressão sem ocorrência e a {@code occurrence} para a confirmação no Core Service.
+     */
+    private record DedupKey(String value, String fitId, LocalDate day, long fingerprint, int occurrence,
+                            boolean repeatedInFile) { }
+
+    /**
+     * Usada pela thread de categorização ({@link #filter}) e pela de persistência ({@link #record}).
+     */
+    public final class Session implements AutoCloseable {
+        private final String bankAccountId;
+        private final BloomFilter filter;
+        private final Map<Long, Integer> occurrences = new HashMap<>();
+        private final Set<Long> ownFitIds = new HashSet<>();
+        private final Map<LocalDate, Map<Long, Integer>> storedFingerprints = new HashMap<>();
+        private Set<String> recorded;
+        private boolean trackingLimitReached;
+        private boolean dirty;
+        private int duplicates;
+
+        private Session(String bankAccountId, BloomFilter filter) {
+            this.bankAccountId = bankAccountId;
+            this.filter = filter;
+        }
+
+        /**
+         * Separa as transações novas do lote. Deve receber todos os lotes do arquivo, na ordem, para que
+         * a numeração de ocorrências seja a mesma em toda tentativa do job.
+         */
+        public synchronized Result filter(List<BankTransaction> chunk) {
+            if (filter == null || chunk.isEmpty()) return new Result(chunk, List.of(), 0);
+
+            List<DedupKey> keys = new ArrayList<>(chunk.size());
+            List<DedupKey> candidates = new ArrayList<>();
+            for (BankTransaction tx : chunk) {
+                DedupKey key = keyOf(tx);
+                keys.add(key);
+                if (key != null && !key.repeatedInFile() && filter.mightContain(KeyHash.of(key.value()))) {
+                    candidates.add(key);
+                }
+            }
+            Set<String> confirmed = candidates.isEmpty() ? Set.of()
+                    : coreLookup != null ? confirmWithCore(candidates) : confirmLocally(candidates);
+
+            List<BankTransaction> fresh = new ArrayList<>(chunk.size());
+            List<String> freshKeys = new ArrayList<>(chunk.size());
+            int skipped = 0;
+            for (int i = 0; i < chunk.size(); i++) {
+                BankTransaction tx = chunk.get(i);
+                DedupKey key = keys.get(i);
+                if (key != null && (key.repeatedInFile() || confirmed.contains(key.value()))) {
+                    skipped++;
+                    continue;
+                }
+                fresh.add(tx);
+                if (key == null) continue;
+                freshKeys.add(key.value());
+                if (coreLookup != null && key.fitId() != null && canTrack()) ownFitIds.add(KeyHash.of(key.fitId()));
+            }
+
+            duplicates += skipped;
+            return new Result(skipped == 0 ? chunk : fresh, freshKeys, skipped);
+        }
+
+        /**
+         * Registra as chaves de um lote aceito pelo Core Service.
+         */
+        public synchronized void record(List<String> keys) {
+            if (filter == null || keys.isEmpty()) return;
+            store.append(bankAccountId, keys);
+            for (String key : keys) {
+                filter.put(KeyHash.of(key));
+            }
+            if (recorded != null) recorded.addAll(keys);
+            dirty = true;
+        }
+
+        public synchronized int duplicates() {
+            return duplicates;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (dirty) store.saveFilter(bankAccountId, filter);
+            if (duplicates > 0) {
+                Log.event(log, "DUPLICATES_SKIPPED", "{} transações já enviadas anteriormente foram descartadas.", duplicates);
+            }
+        }
+
+        private DedupKey keyOf(BankTransaction tx) {
+            String amount = amount(tx.getAmount());
+            if (usesFingerprint(tx)) {
+                LocalDate day = tx.getDate().toLocalDate();
+                String fingerprint = fingerprint(amount, tx.getDescription());
+                String base = FINGERPRINT_KEY + day + '\t' + fingerprint;
+                int occurrence = occurrence(base);
+                return new DedupKey(base + '\t' + occurrence, null, day, KeyHash.of(fingerprint), occurrence, false);
+            }
+            if (tx.getFitId() == null) return null;
+            String value = FITID_KEY + sanitize(tx.getFitId()) + '\t' + amount;
+            return new DedupKey(value, tx.getFitId(), null, 0, 0, occurrence(value) > 0);
+        }
+
+        private boolean usesFingerprint(BankTransaction tx) {
+            if (tx.getFitId() == null) return fingerprintFallback;
+            return tx.getBankCode() != null && unstableFitIdBanks.contains(tx.getBankCode());
+        }
+
+        private Set<String> confirmLocally(List<DedupKey> candidates) {
+            if (recorded == null) recorded = store.loadKeys(bankAccountId);
+            Set<String> confirmed = new HashSet<>();
+            for (DedupKey candidate : candidates) {
+                if (recorded.contains(candidate.value())) confirmed.add(candidate.value());
+            }
+            return confirmed;
+        }
+
+        /**
+         * Busca no Core Service as transações com os FITIDs dos possíveis acertos e as dos dias ainda não
+         * consultados. As impressões digitais dos dias ficam em memória pelo resto do job, sem contar as
+         * transações enviadas pelo próprio job, que já são numeradas pela ocorrência no arquivo.
+         */
+        private Set<String> confirmWithCore(List<DedupKey> candidates) {
+            Set<String> fitIds = new LinkedHashSet<>();
+            Set<LocalDate> days = new LinkedHashSet<>();
+            for (DedupKey candidate : candidates) {
+                if (candidate.fitId() != null) {
+                    fitIds.add(candidate.fitId());
+                } else if (!storedFingerprints.containsKey(candidate.day())) {
+                    days.add(candidate.day());
+                }
+            }
+            for (LocalDate day : days) {
+                storedFingerprints.put(day, new HashMap<>());
+            }
+
+            Set<String> storedFitIdKeys = new HashSet<>();
+            if (!fitIds.isEmpty() || !days.isEmpty()) {
+                for (ExistingTransaction existing : coreLookup.find(bankAccountId, fitIds, days)) {
+                    String id = existing.originalStatementId();
+                    String amount = amount(existing.type() == TransactionType.EXPENSE
+                            ? existing.amount().negate() : existing.amount());
+                    if (id != null && fitIds.contains(id)) {
+                        storedFitIdKeys.add(FITID_KEY + sanitize(id) + '\t' + amount);
+                    }
+                    if (days.contains(existing.date()) && (id == null || !ownFitIds.contains(KeyHash.of(id)))) {
+                        storedFingerprints.get(existing.date())
+                                .merge(KeyHash.of(fingerprint(amount, existing.description())), 1, Integer::sum);
+                    }
+                }
+            }
+
+            Set<String> confirmed = new HashSet<>();
+            for (DedupKey candidate : candidates) {
+                boolean stored = candidate.fitId() != null
+                        ? storedFitIdKeys.contains(candidate.value())
+                        : candidate.occurrence() < storedFingerprints.get(candidate.day()).getOrDefault(candidate.fingerprint(), 0);
+                if (stored) confirmed.add(candidate.value());
+            }
+            return confirmed;
+        }
+
+        /**
+         * Quantas vezes a chave já apareceu neste arquivo, contando por hash de 64 bits para não reter
+         * as chaves do arquivo inteiro em memória.
+         * <p>
+         * São acompanhadas no máximo {@code app.ingestion.dedup.max-tracked-keys} chaves por job. Depois
+         * disso, chaves ainda não vistas contam sempre como primeira ocorrência: um FITID repetido no arquivo
+         * segue para o Core Service, como antes da deduplicação, e linhas idênticas passam a dividir a mesma
+         * impressão digital. O limite é atingido no mesmo ponto do arquivo em toda tentativa, então a
+         * numeração continua estável entre reentregas.
+         */
+        private int occurrence(String key) {
+            long hash = KeyHash.of(key);
+            Integer previous = occurrences.get(hash);
+            if (previous != null) {
+                occurrences.put(hash, previous + 1);
+                return previous;
+            }
+            if (canTrack()) occurrences.put(hash, 1);
+            return 0;
+        }
+
+        private boolean canTrack() {
+            if (occurrences.size() + ownFitIds.size() < maxTrackedKeys) return true;
+            if (!trackingLimitReached) {
+                trackingLimitReached = true;
+                Log.warn(log, "DEDUP_TRACKING_LIMIT", "Limite de {} chaves acompanhadas no arquivo atingido; "
+                        + "repetições de transações ainda não vistas deixam de ser detectadas neste job.", maxTrackedKeys);
+            }
+            return false;
+        }
+
+        private static String fingerprint(String amount, String description) {
+            return amount + '\t' + sanitize(DescriptionNormalizer.normalize(description));
+        }
+
+        private static String amount(BigDecimal amount) {
+            return amount.stripTrailingZeros().toPlainString();
+        }
+
+        private static String sanitize(String value) {
+            return value.indexOf('\n') < 0 && value.indexOf('\r') < 0 ? value : value.replace('\n', ' ').replace('\r', ' ');
+        }
+    }
+}
@@ -2,25 +2,63 @@ package io.github.poupeai.ingestion.service.impl;
 
 import io.github.poupeai.ingestion.domain.exception.StorageException;
 import io.github.poupeai.ingestion.service.StorageService;
+import io.github.poupeai.ingestion.service.storage.ObjectRangeSource;
+import io.github.poupeai.ingestion.service.storage.RangedDownloader;
 import io.minio.GetObjectArgs;
 import io.minio.MinioClient;
-import lombok.RequiredArgsConstructor;
+import io.minio.StatObjectArgs;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+/**
+ * Objetos a partir de {@code app.minio.download.ranged-threshold} são baixados em partes paralelas
+ * ({@link RangedDownloader}); os menores, e todos quando o modo está desligado, usam um único {@code GetObject}.
+ */
 @Service
-@RequiredArgsConstructor
-public class MinioStorageService implements StorageService {
+public class MinioStorageService implements StorageService, DisposableBean {
     private final MinioClient minioClient;
+    private final String bucketName;
+    private final boolean rangedEnabled;
+    private final long rangedThreshold;
+    private final RangedDownloader rangedDownloader;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("minio-range-", 0).factory());
 
-    @Value("${app.minio.bucket}")
-    private String bucketName;
+    public MinioStorageService(MinioClient minioClient,
+                               @Value("${app.minio.bucket}") String bucketName,
+                               @Value("${app.minio.download.ranged}") boolean rangedEnabled,
+                               @Value("${app.minio.download.ranged-threshold}") DataSize rangedThreshold,
+                               @Value("${app.minio.download.part-size}") DataSize partSize,
+                               @Value("${app.minio.download.parallelism}") int parallelism,
+                               @Value("${app.minio.download.spill-threshold}") DataSize spillThreshold,
+                               @Value("${app.minio.download.spill-directory}") Path spillDirectory) {
+        this.minioClient = minioClient;
+        this.bucketName = bucketName;
+        this.rangedEnabled = rangedEnabled;
+        this.rangedThreshold = rangedThreshold.toBytes();
+        this.rangedDownloader = new RangedDownloader(Math.toIntExact(partSize.toBytes()), parallelism,
+                spillThreshold.toBytes(), spillDirectory, executor);
+    }
 
     @Override
     public InputStream downloadFile(String fileKey) {
+        return rangedEnabled ? downloadFile(fileKey, sizeOf(fileKey)) : downloadFile(fileKey, 0);
+    }
+
+    @Override
+    public InputStream downloadFile(String fileKey, long size) {
         try {
+            if (rangedEnabled && size >= rangedThreshold) {
+                return rangedDownloader.open(rangeSource(fileKey), size);
+            }
             return minioClient.getObject(
                     GetObjectArgs.builder()
                             .bucket(bucketName)
@@ -31,4 +69,42 @@ public class MinioStorageService implements StorageService {
             throw new StorageException("Falha ao baixar arquivo do storage: " + fileKey, e);
         }
     }
+
+    @Override
+    public long sizeOf(String fileKey) {
+        try {
+            return minioClient.statObject(
+                    StatObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(fileKey)
+                            .build()
+            ).size();
+        } catch (Exception e) {
+            throw new StorageException("Falha ao consultar tamanho do arquivo no storage: " + fileKey, e);
+        }
+    }
+
+    private ObjectRangeSource rangeSource(String fileKey) {
+        return (offset, length) -> {
+            try {
+                return minioClient.getObject(
+                        GetObjectArgs.builder()
+                                .bucket(bucketName)
+                                .object(fileKey)
+                                .offset(offset)
+                                .length(length)
+                                .build()
+                );
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Falha ao baixar intervalo " + offset + "+" + length + " de " + fileKey, e);
+            }
+        };
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
 }
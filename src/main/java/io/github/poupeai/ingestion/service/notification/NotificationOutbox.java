@@ -0,0 +1,248 @@
+package io.github.poupeai.ingestion.service.notification;
+
+import io.github.poupeai.ingestion.audit.Log;
+import io.github.poupeai.ingestion.domain.event.NotificationEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Fila de saída das notificações: os jobs só enfileiram o {@link NotificationEvent} e uma virtual thread
+ * publica em lotes, com publisher confirms e o {@code messageId} do evento como correlação.
+ * <p>
+ * Cada lote é publicado inteiro e só então os confirms são aguardados, até {@code confirm-timeout}.
+ * Mensagens com nack, devolvidas pelo broker (publicação {@code mandatory} sem fila de destino), sem
+ * confirmação no prazo ou que falharam ao publicar são republicadas até {@code max-attempts} tentativas.
+ * Cada uma volta num lote posterior quando vence o seu próprio backoff exponencial; enquanto isso o
+ * dispatcher segue publicando os eventos novos. Como o {@code messageId} se mantém entre tentativas, o consumidor
+ * consegue descartar as duplicatas de um confirm que se perdeu.
+ * <p>
+ * A fila é limitada a {@code capacity} eventos: com o broker lento, quem publica espera até
+ * {@code offer-timeout} por espaço e, depois disso, o evento é descartado com log.
+ */
+@Slf4j
+@Component
+public class NotificationOutbox implements DisposableBean {
+
+    private static final long POLL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 15;
+
+    private final RabbitTemplate rabbitTemplate;
+    private final String exchange;
+    private final String routingKey;
+    private final int batchSize;
+    private final Duration offerTimeout;
+    private final Duration confirmTimeout;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+
+    private final BlockingQueue<Entry> queue;
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("notification-outbox").factory());
+    private volatile boolean closed;
+
+    private final Timer confirmLatency;
+    private final Counter confirmed;
+    private final Counter retried;
+    private final Counter dropped;
+
+    public NotificationOutbox(RabbitTemplate rabbitTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.rabbitmq.notification.exchange}") String exchange,
+                              @Value("${app.rabbitmq.notification.routing-key}") String routingKey,
+                              @Value("${app.rabbitmq.notification.outbox.capacity}") int capacity,
+                              @Value("${app.rabbitmq.notification.outbox.batch-size}") int batchSize,
+                              @Value("${app.rabbitmq.notification.outbox.offer-timeout}") Duration offerTimeout,
+                              @Value("${app.rabbitmq.notification.outbox.confirm-timeout}") Duration confirmTimeout,
+                              @Value("${app.rabbitmq.notification.outbox.max-attempts}") int maxAttempts,
+                              @Value("${app.rabbitmq.notification.outbox.retry-backoff}") Duration retryBackoff) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.exchange = exchange;
+        this.routingKey = routingKey;
+        this.batchSize = Math.max(1, batchSize);
+        this.offerTimeout = offerTimeout;
+        this.confirmTimeout = confirmTimeout;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoff = retryBackoff;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+
+        Gauge.builder("notification.outbox.depth", queue, BlockingQueue::size)
+                .description("Notificações aguardando publicação")
+                .register(meterRegistry);
+        this.confirmLatency = Timer.builder("notification.publish.confirm")
+                .description("Tempo entre a publicação de uma notificação e o confirm do broker")
+                .register(meterRegistry);
+        this.confirmed = counter(meterRegistry, "confirmed");
+        this.retried = counter(meterRegistry, "retried");
+        this.dropped = counter(meterRegistry, "dropped");
+
+        dispatcher.execute(this::dispatch);
+    }
+
+    /**
+     * Enfileira o evento para publicação. Com a fila cheia, bloqueia até {@code offer-timeout}.
+     *
+     * @return {@code false} se o evento foi descartado por falta de espaço ou porque a aplicação está
+     * desligando
+     */
+    public boolean enqueue(NotificationEvent event) {
+        if (!closed) {
+            try {
+                if (queue.offer(new Entry(event, 1, 0), offerTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                    return true;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        dropped.increment();
+        Log.warn(log, "NOTIFICATION_DROPPED", "Notificação {} ({}) descartada: fila de saída cheia ou encerrada.",
+                event.messageId(), event.eventType());
+        return false;
+    }
+
+    /**
+     * Para de aceitar eventos e aguarda a publicação do que já estava na fila.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        closed = true;
+        dispatcher.shutdown();
+        if (!dispatcher.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            Log.warn(log, "NOTIFICATION_SHUTDOWN_TIMEOUT", "Notificações ainda pendentes no desligamento: {}", queue.size());
+            dispatcher.shutdownNow();
+        }
+    }
+
+    /**
+     * Monta cada lote com as novas tentativas já vencidas e completa com a fila. Sem nada a publicar, espera
+     * um evento novo só até a próxima tentativa vencer.
+     */
+    private void dispatch() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        PriorityQueue<Entry> retries = new PriorityQueue<>(Comparator.comparingLong(Entry::dueAt));
+        try {
+            while (!closed || !queue.isEmpty() || !retries.isEmpty()) {
+                long now = System.nanoTime();
+                while (batch.size() < batchSize && !retries.isEmpty() && retries.peek().dueAt() - now <= 0) {
+                    batch.add(retries.poll());
+                }
+                if (batch.isEmpty()) {
+                    long wait = retries.isEmpty() ? POLL_INTERVAL_NANOS
+                            : Math.min(POLL_INTERVAL_NANOS, retries.peek().dueAt() - now);
+                    Entry first = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (first == null) continue;
+                    batch.add(first);
+                }
+                queue.drainTo(batch, batchSize - batch.size());
+
+                publish(batch, retries);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            int lost = batch.size() + retries.size() + queue.size();
+            if (lost > 0) {
+                Log.warn(log, "NOTIFICATION_DROPPED", "{} notificação(ões) descartada(s) na interrupção da fila de saída.", lost);
+            }
+        }
+    }
+
+    /**
+     * Publica o lote inteiro e depois espera os confirms; o que não foi confirmado vai para {@code retries}.
+     */
+    private void publish(List<Entry> batch, PriorityQueue<Entry> retries) throws InterruptedException {
+        List<InFlight> inFlight = new ArrayList<>(batch.size());
+        for (Entry entry : batch) {
+            String messageId = entry.event().messageId();
+            CorrelationData correlation = new CorrelationData(messageId);
+            long startedAt = System.nanoTime();
+            try {
+                rabbitTemplate.convertAndSend(exchange, routingKey, entry.event(), message -> {
+                    message.getMessageProperties().setMessageId(messageId);
+                    return message;
+                }, correlation);
+                inFlight.add(new InFlight(entry, correlation, startedAt));
+            } catch (AmqpException e) {
+                retryOrDrop(entry, "falha ao publicar: " + e.getMessage(), retries);
+            }
+        }
+
+        long deadline = System.nanoTime() + confirmTimeout.toNanos();
+        for (InFlight publication : inFlight) {
+            String failure;
+            try {
+                CorrelationData.Confirm confirm = publication.correlation().getFuture()
+                        .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                confirmLatency.record(System.nanoTime() - publication.startedAt(), TimeUnit.NANOSECONDS);
+                ReturnedMessage returned = publication.correlation().getReturned();
+                if (!confirm.ack()) {
+                    failure = "nack do broker: " + confirm.reason();
+                } else if (returned != null) {
+                    failure = "devolvida pelo broker: " + returned.getReplyCode() + " " + returned.getReplyText();
+                } else {
+                    confirmed.increment();
+                    continue;
+                }
+            } catch (TimeoutException e) {
+                failure = "sem confirm em " + confirmTimeout;
+            } catch (ExecutionException e) {
+                failure = "falha no confirm: " + e.getCause().getMessage();
+            }
+            retryOrDrop(publication.entry(), failure, retries);
+        }
+    }
+
+    private void retryOrDrop(Entry entry, String failure, PriorityQueue<Entry> retries) {
+        NotificationEvent event = entry.event();
+        if (entry.attempt() < maxAttempts) {
+            retried.increment();
+            Log.warn(log, "NOTIFICATION_RETRY", "Notificação {} ({}) não confirmada (tentativa {} de {}): {}",
+                    event.messageId(), event.eventType(), entry.attempt(), maxAttempts, failure);
+            int next = entry.attempt() + 1;
+            retries.add(new Entry(event, next, System.nanoTime() + retryBackoff.multipliedBy(1L << Math.min(next - 2, 10)).toNanos()));
+        } else {
+            dropped.increment();
+            Log.warn(log, "NOTIFICATION_DROPPED", "Notificação {} ({}) descartada após {} tentativa(s): {}",
+                    event.messageId(), event.eventType(), maxAttempts, failure);
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("notification.publish")
+                .description("Notificações publicadas no broker")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param dueAt {@link System#nanoTime()} a partir do qual a nova tentativa pode ser publicada
+     */
+    private record Entry(NotificationEvent event, int attempt, long dueAt) {
+    }
+
+    private record InFlight(Entry entry, CorrelationData correlation, long startedAt) {
+    }
+}
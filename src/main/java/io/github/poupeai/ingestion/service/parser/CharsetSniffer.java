@@ -0,0 +1,65 @@
+package io.github.poupeai.ingestion.service.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Heurística de encoding sobre um prefixo do arquivo: BOM UTF-8, UTF-8 válido ou, caso contrário,
+ * Windows-1252 (superconjunto do ISO-8859-1 usado pelos bancos brasileiros).
+ */
+final class CharsetSniffer {
+
+    static final Charset WINDOWS_1252 = Charset.forName("windows-1252");
+
+    private CharsetSniffer() {
+    }
+
+    static boolean hasUtf8Bom(byte[] sample, int length) {
+        return length >= 3 && (sample[0] & 0xFF) == 0xEF && (sample[1] & 0xFF) == 0xBB && (sample[2] & 0xFF) == 0xBF;
+    }
+
+    static Charset detect(byte[] sample, int length) {
+        if (hasUtf8Bom(sample, length)) return StandardCharsets.UTF_8;
+        if (isAscii(sample, length)) return StandardCharsets.UTF_8;
+
+        return isValidUtf8(sample, trimIncompleteSequence(sample, length)) ? StandardCharsets.UTF_8 : WINDOWS_1252;
+    }
+
+    static boolean isAscii(byte[] sample, int length) {
+        for (int i = 0; i < length; i++) {
+            if (sample[i] < 0) return false;
+        }
+        return true;
+    }
+
+    private static boolean isValidUtf8(byte[] sample, int length) {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        try {
+            decoder.decode(ByteBuffer.wrap(sample, 0, length));
+            return true;
+        } catch (CharacterCodingException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Ignora uma sequência multibyte cortada no fim da amostra, que não indica encoding inválido.
+     */
+    private static int trimIncompleteSequence(byte[] sample, int length) {
+        int back = 0;
+        for (int i = length - 1; i >= 0 && back < 4; i--, back++) {
+            int b = sample[i] & 0xFF;
+            if ((b & 0xC0) != 0x80) {
+                int expected = (b & 0xE0) == 0xC0 ? 2 : (b & 0xF0) == 0xE0 ? 3 : (b & 0xF8) == 0xF0 ? 4 : 1;
+                return back + 1 < expected ? i : length;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,93 @@
+package io.github.poupeai.ingestion.service.parser;
+
+import io.github.poupeai.ingestion.service.categorization.DescriptionNormalizer;
+
+import java.util.List;
+
+/**
+ * Mapeamento de colunas de um layout de extrato CSV. Os cabeçalhos são comparados já normalizados
+ * (sem acentos, caixa alta), então "Descrição" e "DESCRICAO" são equivalentes.
+ * <p>
+ * O valor vem de uma coluna única com sinal ({@code amount}) ou do par débito/crédito.
+ * {@code negateAmounts} inverte o sinal para layouts de fatura de cartão, em que compras vêm positivas.
+ */
+record CsvColumnProfile(String name,
+                        List<String> date,
+                        List<String> description,
+                        List<String> memo,
+                        List<String> amount,
+                        List<String> debit,
+                        List<String> credit,
+                        List<String> fitId,
+                        boolean negateAmounts) {
+
+    /**
+     * Perfis por banco vêm antes do genérico: o primeiro cujo cabeçalho satisfaz as colunas obrigatórias vence.
+     */
+    static final List<CsvColumnProfile> BUILT_IN = List.of(
+            new CsvColumnProfile("NUBANK",
+                    List.of("DATA"), List.of("DESCRICAO"), List.of(),
+                    List.of("VALOR"), List.of(), List.of(), List.of("IDENTIFICADOR"), false),
+            new CsvColumnProfile("NUBANK_CARTAO",
+                    List.of("DATE"), List.of("TITLE"), List.of(),
+                    List.of("AMOUNT"), List.of(), List.of(), List.of(), true),
+            new CsvColumnProfile("INTER",
+                    List.of("DATA LANCAMENTO"), List.of("HISTORICO"), List.of("DESCRICAO"),
+                    List.of("VALOR"), List.of(), List.of(), List.of(), false),
+            new CsvColumnProfile("BANCO_DO_BRASIL",
+                    List.of("DATA"), List.of("LANCAMENTO"), List.of("DETALHES"),
+                    List.of("VALOR"), List.of(), List.of(), List.of(), false),
+            new CsvColumnProfile("GENERIC",
+                    List.of("DATA", "DATE", "DATA LANCAMENTO", "DATA DO LANCAMENTO", "DATA MOVIMENTO", "DATA DA TRANSACAO"),
+                    List.of("DESCRICAO", "HISTORICO", "LANCAMENTO", "DESCRIPTION", "TITLE", "ESTABELECIMENTO"),
+                    List.of("DETALHES", "COMPLEMENTO", "MEMO"),
+                    List.of("VALOR", "VALOR (R$)", "VALOR R$", "AMOUNT"),
+                    List.of("DEBITO", "DEBITO (R$)", "SAIDA", "SAIDAS"),
+                    List.of("CREDITO", "CREDITO (R$)", "ENTRADA", "ENTRADAS"),
+                    List.of("IDENTIFICADOR", "ID", "FITID"),
+                    false)
+    );
+
+    /**
+     * Resolve os índices das colunas no cabeçalho, ou {@code null} se faltar data, descrição ou valor.
+     */
+    Mapping resolve(String[] header) {
+        String[] normalized = new String[header.length];
+        for (int i = 0; i < header.length; i++) {
+            normalized[i] = DescriptionNormalizer.normalize(header[i]);
+        }
+
+        int dateIndex = indexOf(normalized, date);
+        int descriptionIndex = indexOf(normalized, description);
+        int amountIndex = indexOf(normalized, amount);
+        int debitIndex = indexOf(normalized, debit);
+        int creditIndex = indexOf(normalized, credit);
+
+        if (dateIndex < 0 || descriptionIndex < 0) return null;
+        if (amountIndex < 0 && (debitIndex < 0 || creditIndex < 0)) return null;
+
+        int memoIndex = indexOf(normalized, memo);
+        return new Mapping(name, dateIndex, descriptionIndex, memoIndex == descriptionIndex ? -1 : memoIndex,
+                amountIndex, debitIndex, creditIndex, indexOf(normalized, fitId), negateAmounts);
+    }
+
+    private static int indexOf(String[] header, List<String> aliases) {
+        for (String alias : aliases) {
+            for (int i = 0; i < header.length; i++) {
+                if (header[i].equals(alias)) return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Índices resolvidos de um cabeçalho concreto; {@code -1} indica coluna ausente.
+     */
+    record Mapping(String profile, int date, int description, int memo,
+                   int amount, int debit, int credit, int fitId, boolean negateAmounts) {
+
+        boolean hasSignedAmount() {
+            return amount >= 0;
+        }
+    }
+}
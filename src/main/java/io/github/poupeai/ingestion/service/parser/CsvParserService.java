@@ -0,0 +1,360 @@
+package io.github.poupeai.ingestion.service.parser;
+
+import com.opencsv.CSVParserBuilder;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.ICSVParser;
+import com.opencsv.exceptions.CsvValidationException;
+import io.github.poupeai.ingestion.domain.exception.StatementParseException;
+import io.github.poupeai.ingestion.domain.model.BankTransaction;
+import io.github.poupeai.ingestion.service.dedup.KeyHash;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Parser de extratos CSV em passagem única.
+ * <p>
+ * Encoding, delimitador, linha de cabeçalho, perfil de colunas ({@link CsvColumnProfile}) e separador
+ * decimal são detectados em uma amostra limitada do início do arquivo; em seguida o stream é relido
+ * do começo linha a linha, entregando cada transação ao consumer sem materializar o arquivo.
+ * <p>
+ * É o parser de menor precedência: aceita qualquer texto cuja primeira linha tenha um delimitador conhecido.
+ */
+@Slf4j
+@Service
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class CsvParserService implements StatementParser {
+
+    static final int SAMPLE_SIZE = 64 * 1024;
+
+    private static final int MAX_HEADER_ROW = 20;
+    private static final int MAX_SAMPLE_AMOUNTS = 50;
+    private static final char[] DELIMITER_CANDIDATES = {';', ',', '\t', '|'};
+
+    private static final List<DateTimeFormatter> DATE_FORMATS = List.of(
+            DateTimeFormatter.ofPattern("dd/MM/yyyy"),
+            DateTimeFormatter.ofPattern("yyyy-MM-dd"),
+            DateTimeFormatter.ofPattern("dd-MM-yyyy"),
+            DateTimeFormatter.ofPattern("dd.MM.yyyy"),
+            DateTimeFormatter.ofPattern("dd/MM/yy"));
+
+    @Override
+    public Optional<StatementFormat> detect(StatementPrefix prefix) {
+        if (prefix.isEmpty() || prefix.looksBinary()) return Optional.empty();
+
+        String firstLine = prefix.firstLine();
+        for (char candidate : DELIMITER_CANDIDATES) {
+            if (firstLine.indexOf(candidate) >= 0) return Optional.of(StatementFormat.CSV);
+        }
+        return Optional.empty();
+    }
+
+    public List<BankTransaction> parse(InputStream inputStream) {
+        List<BankTransaction> transactions = new ArrayList<>();
+        parse(inputStream, transactions::add);
+        return transactions;
+    }
+
+    @Override
+    public int parse(InputStream inputStream, Consumer<BankTransaction> consumer) {
+        InputStream in = inputStream.markSupported() ? inputStream : new BufferedInputStream(inputStream, SAMPLE_SIZE);
+        try {
+            in.mark(SAMPLE_SIZE);
+            byte[] sample = in.readNBytes(SAMPLE_SIZE);
+            in.reset();
+
+            Charset charset = CharsetSniffer.detect(sample, sample.length);
+            int bom = CharsetSniffer.hasUtf8Bom(sample, sample.length) ? 3 : 0;
+            in.skipNBytes(bom);
+
+            String sampleText = new String(sample, bom, sample.length - bom, charset);
+            char delimiter = detectDelimiter(sampleText);
+            Layout layout = detectLayout(sampleText, delimiter);
+
+            log.debug("Layout CSV detectado: perfil {}, encoding {}, delimitador '{}', separador decimal '{}', cabeçalho na linha {}",
+                    layout.mapping().profile(), charset, delimiter, layout.decimalSeparator(), layout.headerRow() + 1);
+            return parseRows(new InputStreamReader(in, charset), delimiter, layout, consumer);
+        } catch (IOException e) {
+            throw new StatementParseException("Falha ao ler stream do CSV", e);
+        }
+    }
+
+    private int parseRows(Reader reader, char delimiter, Layout layout, Consumer<BankTransaction> consumer) throws IOException {
+        RowConverter converter = new RowConverter(layout);
+        int emitted = 0;
+
+        try (CSVReader csv = newReader(reader, delimiter)) {
+            for (int i = 0; i <= layout.headerRow(); i++) {
+                csv.readNext();
+            }
+
+            String[] row;
+            while ((row = csv.readNext()) != null) {
+                BankTransaction transaction = converter.convert(row, csv.getLinesRead());
+                if (transaction != null) {
+                    consumer.accept(transaction);
+                    emitted++;
+                }
+            }
+        } catch (CsvValidationException e) {
+            throw new StatementParseException("Linha CSV inválida: " + e.getMessage(), e);
+        }
+
+        return emitted;
+    }
+
+    private static CSVReader newReader(Reader reader, char delimiter) {
+        return new CSVReaderBuilder(reader)
+                .withCSVParser(new CSVParserBuilder().withSeparator(delimiter).build())
+                .build();
+    }
+
+    /**
+     * Escolhe o candidato que aparece o mesmo número de vezes (fora de aspas) no maior número de linhas
+     * da amostra; empates ficam com quem tem mais ocorrências na primeira linha.
+     */
+    static char detectDelimiter(String sample) {
+        String[] lines = sample.split("\r?\n", MAX_HEADER_ROW + 2);
+        int lineCount = Math.min(lines.length, MAX_HEADER_ROW + 1);
+
+        char best = ICSVParser.DEFAULT_SEPARATOR;
+        int bestScore = 0;
+        int bestWidth = 0;
+        for (char candidate : DELIMITER_CANDIDATES) {
+            Map<Integer, Integer> frequencies = new HashMap<>();
+            int firstWidth = -1;
+            for (int i = 0; i < lineCount; i++) {
+                if (lines[i].isBlank()) continue;
+                int count = countOutsideQuotes(lines[i], candidate);
+                if (firstWidth < 0) firstWidth = count;
+                if (count > 0) frequencies.merge(count, 1, Integer::sum);
+            }
+            int score = frequencies.values().stream().max(Integer::compare).orElse(0);
+            if (score > bestScore || (score == bestScore && score > 0 && firstWidth > bestWidth)) {
+                best = candidate;
+                bestScore = score;
+                bestWidth = firstWidth;
+            }
+        }
+        return best;
+    }
+
+    private static int countOutsideQuotes(String line, char delimiter) {
+        int count = 0;
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') quoted = !quoted;
+            else if (c == delimiter && !quoted) count++;
+        }
+        return count;
+    }
+
+    private static Layout detectLayout(String sample, char delimiter) {
+        List<String[]> rows = new ArrayList<>();
+        try (CSVReader csv = newReader(new StringReader(sample), delimiter)) {
+            String[] row;
+            while ((row = csv.readNext()) != null) {
+                rows.add(row);
+            }
+        } catch (IOException | CsvValidationException e) {
+            // A amostra pode terminar no meio de um campo entre aspas; as linhas já lidas bastam.
+        }
+
+        for (int headerRow = 0; headerRow < Math.min(rows.size(), MAX_HEADER_ROW); headerRow++) {
+            for (CsvColumnProfile profile : CsvColumnProfile.BUILT_IN) {
+                CsvColumnProfile.Mapping mapping = profile.resolve(rows.get(headerRow));
+                if (mapping != null) {
+                    char decimal = detectDecimalSeparator(rows.subList(headerRow + 1, rows.size()), mapping);
+                    return new Layout(headerRow, mapping, decimal);
+                }
+            }
+        }
+        throw new StatementParseException("Cabeçalho do CSV não reconhecido por nenhum perfil de colunas");
+    }
+
+    /**
+     * Vota pelo separador decimal olhando o último {@code ,} ou {@code .} de cada valor da amostra:
+     * se não for seguido de exatamente três dígitos, é o separador decimal. Sem votos, assume vírgula.
+     */
+    static char detectDecimalSeparator(List<String[]> rows, CsvColumnProfile.Mapping mapping) {
+        int commas = 0;
+        int dots = 0;
+        int inspected = 0;
+        for (String[] row : rows) {
+            if (inspected >= MAX_SAMPLE_AMOUNTS) break;
+            for (int column : new int[]{mapping.amount(), mapping.debit(), mapping.credit()}) {
+                String value = cell(row, column);
+                int separator = Math.max(value.lastIndexOf(','), value.lastIndexOf('.'));
+                if (separator < 0) continue;
+                inspected++;
+                int digitsAfter = 0;
+                for (int i = separator + 1; i < value.length() && Character.isDigit(value.charAt(i)); i++) digitsAfter++;
+                if (digitsAfter == 3) continue;
+                if (value.charAt(separator) == ',') commas++;
+                else dots++;
+            }
+        }
+        return dots > commas ? '.' : ',';
+    }
+
+    /**
+     * Interpreta valores como {@code "R$ -1.234,56"}, {@code "(12.50)"} ou {@code "100,00 D"}.
+     *
+     * @return {@code null} se a célula não contiver dígitos
+     */
+    static BigDecimal parseAmount(String raw, char decimalSeparator) {
+        String value = raw.trim();
+        if (value.isEmpty()) return null;
+
+        boolean negative = value.startsWith("(") && value.endsWith(")");
+        char last = Character.toUpperCase(value.charAt(value.length() - 1));
+        if (last == 'D') negative = true;
+
+        StringBuilder number = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') number.append(c);
+            else if (c == decimalSeparator) number.append('.');
+            else if (c == '-' || c == '−') negative = true;
+        }
+        if (number.isEmpty()) return null;
+
+        BigDecimal amount = new BigDecimal(number.toString());
+        return negative ? amount.negate() : amount;
+    }
+
+    private static String cell(String[] row, int index) {
+        if (index < 0 || index >= row.length || row[index] == null) return "";
+        return row[index].trim();
+    }
+
+    record Layout(int headerRow, CsvColumnProfile.Mapping mapping, char decimalSeparator) { }
+
+    /**
+     * Converte linhas em transações, lembrando o último formato de data que funcionou e contando
+     * linhas idênticas no arquivo para gerar FITIDs estáveis quando o layout não traz identificador.
+     */
+    private static final class RowConverter {
+        private final Layout layout;
+        private final CsvColumnProfile.Mapping mapping;
+        private final MessageDigest digest;
+        private final Map<Long, Integer> occurrences = new HashMap<>();
+        private int dateFormat;
+
+        RowConverter(Layout layout) {
+            this.layout = layout;
+            this.mapping = layout.mapping();
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        BankTransaction convert(String[] row, long line) {
+            String rawDate = cell(row, mapping.date());
+            if (rawDate.isEmpty()) return null;
+
+            String name = cell(row, mapping.description());
+            if (isBalanceLine(name)) return null;
+
+            try {
+                BigDecimal amount = amount(row);
+                if (amount == null || amount.signum() == 0) return null;
+                if (mapping.negateAmounts()) amount = amount.negate();
+
+                LocalDate date = parseDate(rawDate);
+                String description = Descriptions.merge(name, cell(row, mapping.memo()));
+                String fitId = cell(row, mapping.fitId());
+                if (fitId.isEmpty()) fitId = syntheticFitId(date, amount, description);
+
+                return BankTransaction.builder()
+                        .bankCode(mapping.profile())
+                        .fitId(fitId)
+                        .type(amount.signum() < 0 ? "DEBIT" : "CREDIT")
+                        .amount(amount)
+                        .description(description)
+                        .date(date.atStartOfDay())
+                        .build();
+
+            } catch (Exception e) {
+                log.error("Falha ao converter linha {} do CSV (data: {}, descrição: {})", line, rawDate, name, e);
+                return null;
+            }
+        }
+
+        private BigDecimal amount(String[] row) {
+            char decimal = layout.decimalSeparator();
+            if (mapping.hasSignedAmount()) {
+                return parseAmount(cell(row, mapping.amount()), decimal);
+            }
+            BigDecimal credit = parseAmount(cell(row, mapping.credit()), decimal);
+            BigDecimal debit = parseAmount(cell(row, mapping.debit()), decimal);
+            if (credit == null && debit == null) return null;
+            BigDecimal result = credit != null ? credit.abs() : BigDecimal.ZERO;
+            return debit != null ? result.subtract(debit.abs()) : result;
+        }
+
+        private LocalDate parseDate(String raw) {
+            int end = 0;
+            while (end < raw.length() && raw.charAt(end) != ' ' && raw.charAt(end) != 'T') end++;
+            String value = raw.substring(0, end);
+
+            DateTimeParseException failure = null;
+            for (int attempt = 0; attempt < DATE_FORMATS.size(); attempt++) {
+                int index = (dateFormat + attempt) % DATE_FORMATS.size();
+                try {
+                    LocalDate date = LocalDate.parse(value, DATE_FORMATS.get(index));
+                    dateFormat = index;
+                    return date;
+                } catch (DateTimeParseException e) {
+                    failure = e;
+                }
+            }
+            throw failure;
+        }
+
+        /**
+         * Hash de data, valor, descrição e ordem da repetição no arquivo. A contagem vale para o arquivo
+         * inteiro, e não só para linhas vizinhas: num CSV fora de ordem, duas linhas idênticas separadas por
+         * outro dia continuam com FITIDs distintos. Guarda só um hash de 64 bits por combinação distinta.
+         */
+        private String syntheticFitId(LocalDate date, BigDecimal amount, String description) {
+            String key = date + "|" + amount.toPlainString() + "|" + description;
+            int occurrence = occurrences.merge(KeyHash.of(key), 1, Integer::sum);
+
+            byte[] hash = digest.digest((key + "|" + occurrence).getBytes(StandardCharsets.UTF_8));
+            return "CSV-" + HexFormat.of().formatHex(hash, 0, 12);
+        }
+
+        private static boolean isBalanceLine(String description) {
+            return description.regionMatches(true, 0, "SALDO", 0, 5)
+                    || description.equalsIgnoreCase("S A L D O");
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package io.github.poupeai.ingestion.service.parser;
+
+/**
+ * Regra única de montagem da descrição a partir de nome/histórico e memo/complemento,
+ * compartilhada por todos os parsers para que a mesma transação gere a mesma descrição.
+ */
+final class Descriptions {
+
+    private Descriptions() {
+    }
+
+    static String merge(String name, String memo) {
+        if (name == null) name = "";
+        if (memo == null) memo = "";
+
+        name = name.trim();
+        memo = memo.trim();
+
+        if (name.isEmpty()) return memo.isEmpty() ? "Sem descrição" : memo;
+        if (memo.isEmpty()) return name;
+
+        if (name.equalsIgnoreCase(memo)) return name;
+
+        if (containsIgnoreCase(memo, name)) return memo;
+
+        return name + " - " + memo;
+    }
+
+    private static boolean containsIgnoreCase(String text, String part) {
+        for (int i = 0, last = text.length() - part.length(); i <= last; i++) {
+            if (text.regionMatches(true, i, part, 0, part.length())) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,17 @@
+package io.github.poupeai.ingestion.service.parser;
+
+import io.github.poupeai.ingestion.domain.model.BankTransaction;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * Parser capaz de ler um extrato já inteiro em memória mapeada, sem passar por {@code InputStream}.
+ */
+public interface MappedStatementParser {
+
+    /**
+     * @return quantidade de transações entregues
+     */
+    int parse(ByteBuffer content, Consumer<BankTransaction> consumer);
+}
@@ -0,0 +1,122 @@
+package io.github.poupeai.ingestion.service.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Equivalente ao {@link OfxTokenizer} que lê direto de um {@link ByteBuffer} (tipicamente um
+ * {@link java.nio.MappedByteBuffer}), sem decodificar o arquivo.
+ * <p>
+ * Nomes de tag são comparados byte a byte e os valores ficam apenas como posições no buffer; só
+ * {@link #value()} cria uma {@code String}, e o parser só o chama para os campos que usa. Como
+ * {@code <}, {@code >} e quebras de linha nunca aparecem dentro de sequências multibyte UTF-8 nem em
+ * Windows-1252, a varredura por bytes reconhece exatamente as mesmas tags que a leitura por caracteres.
+ */
+final class OfxByteScanner implements OfxTokens {
+
+    private static final int MAX_TAG_LENGTH = 64;
+    private static final int SCRATCH_SIZE = 4096;
+
+    private final ByteBuffer buffer;
+    private final Charset charset;
+    private final boolean jdkFastPath;
+    private final byte[] scratch = new byte[SCRATCH_SIZE];
+    private int position;
+    private final int limit;
+
+    private int nameStart;
+    private int nameLength;
+    private int valueStart;
+    private int valueLength;
+
+    OfxByteScanner(ByteBuffer buffer, Charset charset) {
+        this.buffer = buffer;
+        this.charset = charset;
+        this.jdkFastPath = charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.ISO_8859_1)
+                || charset.equals(StandardCharsets.US_ASCII);
+        this.position = buffer.position();
+        this.limit = buffer.limit();
+    }
+
+    @Override
+    public Token next() {
+        while (position < limit) {
+            if (buffer.get(position++) == '<') {
+                return readTag();
+            }
+        }
+        return Token.EOF;
+    }
+
+    @Override
+    public boolean nameEquals(String tag) {
+        if (nameLength != tag.length()) return false;
+        for (int i = 0; i < nameLength; i++) {
+            if (buffer.get(nameStart + i) != tag.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String value() {
+        if (valueLength == 0) return "";
+        // Valores maiores que o scratch (raros) ganham um array próprio em vez de serem truncados.
+        byte[] bytes = valueLength <= scratch.length ? scratch : new byte[valueLength];
+        buffer.get(valueStart, bytes, 0, valueLength);
+        if (jdkFastPath) return new String(bytes, 0, valueLength, charset);
+
+        // Os demais encodings passam por um CharsetDecoder novo a cada String; ASCII puro é idêntico
+        // em qualquer um deles e sai pelo caminho rápido do ISO-8859-1.
+        for (int i = 0; i < valueLength; i++) {
+            if (bytes[i] < 0) return new String(bytes, 0, valueLength, charset);
+        }
+        return new String(bytes, 0, valueLength, StandardCharsets.ISO_8859_1);
+    }
+
+    private Token readTag() {
+        while (true) {
+            valueLength = 0;
+            boolean closing = false;
+
+            if (position < limit && buffer.get(position) == '/') {
+                closing = true;
+                position++;
+            }
+
+            nameStart = position;
+            boolean restart = false;
+            while (position < limit) {
+                byte b = buffer.get(position);
+                if (b == '>') break;
+                position++;
+                if (b == '<') {
+                    restart = true;
+                    break;
+                }
+            }
+
+            if (restart) continue;
+            if (position >= limit) return Token.EOF;
+
+            nameLength = position - nameStart;
+            if (nameLength > MAX_TAG_LENGTH) nameLength = 0;
+            position++;
+
+            if (closing) return Token.END_TAG;
+
+            readInlineValue();
+            return Token.START_TAG;
+        }
+    }
+
+    private void readInlineValue() {
+        valueStart = position;
+        while (position < limit) {
+            byte b = buffer.get(position);
+            if (b == '<' || b == '\n' || b == '\r') break;
+            position++;
+        }
+        valueLength = position - valueStart;
+    }
+}
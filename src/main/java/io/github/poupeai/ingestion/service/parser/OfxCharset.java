@@ -0,0 +1,103 @@
+package io.github.poupeai.ingestion.service.parser;
+
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Escolhe o encoding de um OFX a partir do início do arquivo.
+ * <p>
+ * O cabeçalho é lido primeiro: {@code ENCODING}/{@code CHARSET} no OFX 1.x ou {@code encoding="..."} na
+ * declaração XML do OFX 2.x. ISO-8859-1 é lido como Windows-1252, que é um superconjunto dele e é o que
+ * os bancos de fato emitem.
+ * <p>
+ * Se a amostra só tem ASCII, vale a declaração (os acentos podem aparecer mais adiante no arquivo). Se
+ * já tem bytes acentuados, os próprios bytes decidem: vários bancos declaram {@code CHARSET:1252} e
+ * geram UTF-8, e texto Windows-1252 real praticamente nunca forma sequências UTF-8 válidas. A declaração
+ * só prevalece aí para outras páginas de código de um byte.
+ */
+final class OfxCharset {
+
+    /** Amostra lida antes do parse; cobre o cabeçalho e os primeiros lançamentos. */
+    static final int SAMPLE_SIZE = 64 * 1024;
+
+    private static final Pattern XML_ENCODING = Pattern.compile("<\\?xml[^>]*?encoding\\s*=\\s*[\"']([^\"']+)[\"']",
+            Pattern.CASE_INSENSITIVE);
+
+    private OfxCharset() {
+    }
+
+    static Charset detect(byte[] sample, int length) {
+        Charset declared = declared(header(sample, length));
+        if (CharsetSniffer.isAscii(sample, length)) {
+            return declared != null ? declared : StandardCharsets.UTF_8;
+        }
+
+        Charset sniffed = CharsetSniffer.detect(sample, length);
+        if (sniffed.equals(StandardCharsets.UTF_8) || declared == null || declared.equals(StandardCharsets.UTF_8)) {
+            return sniffed;
+        }
+        return declared;
+    }
+
+    /**
+     * Trecho antes da primeira tag {@code <OFX>}: o bloco de cabeçalho SGML ou as instruções XML.
+     */
+    private static String header(byte[] sample, int length) {
+        String text = new String(sample, 0, Math.min(length, 4096), StandardCharsets.ISO_8859_1);
+        int body = text.toUpperCase(Locale.ROOT).indexOf("<OFX>");
+        return body >= 0 ? text.substring(0, body) : text;
+    }
+
+    private static Charset declared(String header) {
+        Matcher xml = XML_ENCODING.matcher(header);
+        if (xml.find()) {
+            return byName(xml.group(1));
+        }
+
+        String encoding = null;
+        String charset = null;
+        for (String line : header.split("\r?\n")) {
+            int colon = line.indexOf(':');
+            if (colon <= 0) continue;
+            String key = line.substring(0, colon).trim().toUpperCase(Locale.ROOT);
+            String value = line.substring(colon + 1).trim();
+            if (key.equals("ENCODING")) encoding = value;
+            else if (key.equals("CHARSET")) charset = value;
+        }
+
+        if (encoding != null && encoding.replace("-", "").equalsIgnoreCase("UTF8")) {
+            return StandardCharsets.UTF_8;
+        }
+        if (charset == null || charset.equalsIgnoreCase("NONE")) {
+            // USASCII sem CHARSET: os acentos que aparecerem vêm da página de código do Windows
+            return encoding != null && encoding.equalsIgnoreCase("USASCII") ? CharsetSniffer.WINDOWS_1252 : null;
+        }
+        return byName(charset);
+    }
+
+    private static Charset byName(String name) {
+        String normalized = name.trim().toUpperCase(Locale.ROOT).replace("_", "-");
+        switch (normalized) {
+            case "1252", "CP1252", "WINDOWS-1252", "8859-1", "ISO-8859-1", "ISO8859-1", "LATIN1", "LATIN-1" -> {
+                return CharsetSniffer.WINDOWS_1252;
+            }
+            case "UTF-8", "UTF8" -> {
+                return StandardCharsets.UTF_8;
+            }
+            default -> {
+                try {
+                    Charset charset = Charset.forName(normalized);
+                    // o tokenizador por bytes depende de um encoding compatível com ASCII, um byte por caractere
+                    return charset.canEncode() && charset.newEncoder().maxBytesPerChar() == 1 ? charset : null;
+                } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+                    return null;
+                }
+            }
+        }
+    }
+}
@@ -1,117 +1,490 @@
 package io.github.poupeai.ingestion.service.parser;
 
 
+import io.github.poupeai.ingestion.audit.MdcContext;
+import io.github.poupeai.ingestion.domain.exception.OfxParseException;
 import io.github.poupeai.ingestion.domain.model.BankTransaction;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.YearMonth;
+import java.time.temporal.ChronoField;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
+/**
+ * Parser OFX 1.x (SGML) e 2.x (XML).
+ * <p>
+ * O arquivo é lido em trechos cortados nas fronteiras {@code <STMTTRN>} ({@link OfxSegmenter}). Até
+ * {@code parallel-threshold} caracteres os trechos são processados na thread chamadora; a partir daí
+ * são distribuídos no {@link ForkJoinPool#commonPool()}, com no máximo {@code 2 * paralelismo} trechos
+ * em voo, e as transações são entregues na ordem original do arquivo.
+ * <p>
+ * Arquivos já em disco podem ser lidos por {@link #parse(ByteBuffer, Consumer)}, que varre os bytes do
+ * mapeamento ({@link OfxByteScanner}) sem decodificar o conteúdo inteiro.
+ * <p>
+ * Um trecho sem {@code <STMTTRN>} onde cortar acima de {@code max-segment-size} recusa o arquivo.
+ */
 @Slf4j
 @Service
-public class OfxParserService {
-    private static final Pattern BANK_ID_PATTERN = Pattern.compile("<BANKID>(\\d+)");
-    private static final Pattern TRANSACTION_BLOCK_PATTERN = Pattern.compile("<STMTTRN>(.*?)</STMTTRN>", Pattern.DOTALL);
+@Order(0)
+public class OfxParserService implements StatementParser, MappedStatementParser {
+    private static final String BANK_ID_TAG = "BANKID";
+    private static final String TRANSACTION_TAG = "STMTTRN";
 
-    private static final Pattern TRNTYPE_PATTERN = Pattern.compile("<TRNTYPE>(\\w+)");
-    private static final Pattern TRNAMT_PATTERN = Pattern.compile("<TRNAMT>([-\\d.]+)");
-    private static final Pattern FITID_PATTERN = Pattern.compile("<FITID>([^<\n\r]+)");
-    private static final Pattern MEMO_PATTERN = Pattern.compile("<MEMO>([^<\n\r]+)");
-    private static final Pattern NAME_PATTERN = Pattern.compile("<NAME>([^<\n\r]+)");
-    private static final Pattern DTPOSTED_PATTERN = Pattern.compile("<DTPOSTED>(\\d{14})");
+    private static final String TRNTYPE_TAG = "TRNTYPE";
+    private static final String TRNAMT_TAG = "TRNAMT";
+    private static final String FITID_TAG = "FITID";
+    private static final String MEMO_TAG = "MEMO";
+    private static final String NAME_TAG = "NAME";
+    private static final String DTPOSTED_TAG = "DTPOSTED";
 
-    private static final DateTimeFormatter OFX_DATE_FMT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    private static final String UNKNOWN_BANK = "UNKNOWN";
+    private static final byte[] BOUNDARY_BYTES = OfxSegmenter.BOUNDARY.getBytes(StandardCharsets.US_ASCII);
+
+    private static final int OFX_DATE_LENGTH = 14;
+
+    private final long parallelThreshold;
+    private final int segmentSize;
+    private final int maxSegmentSize;
+    private final ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    public OfxParserService() {
+        this(DataSize.ofMegabytes(4), DataSize.ofMegabytes(1));
+    }
+
+    public OfxParserService(DataSize parallelThreshold, DataSize segmentSize) {
+        this(parallelThreshold, segmentSize, DataSize.ofMegabytes(64));
+    }
+
+    @Autowired
+    public OfxParserService(@Value("${app.ingestion.parser.ofx.parallel-threshold}") DataSize parallelThreshold,
+                            @Value("${app.ingestion.parser.ofx.segment-size}") DataSize segmentSize,
+                            @Value("${app.ingestion.parser.ofx.max-segment-size}") DataSize maxSegmentSize) {
+        this.parallelThreshold = parallelThreshold.toBytes();
+        this.maxSegmentSize = Math.toIntExact(maxSegmentSize.toBytes());
+        this.segmentSize = Math.min(Math.toIntExact(segmentSize.toBytes()), this.maxSegmentSize);
+    }
+
+    @Override
+    public Optional<StatementFormat> detect(StatementPrefix prefix) {
+        if (prefix.startsWithIgnoreCase("OFXHEADER") || prefix.startsWithIgnoreCase("<OFX")) {
+            return Optional.of(StatementFormat.OFX_SGML);
+        }
+        if (prefix.startsWithIgnoreCase("<?xml") && prefix.containsIgnoreCase("OFX")) {
+            return Optional.of(StatementFormat.OFX_XML);
+        }
+        return Optional.empty();
+    }
 
     public List<BankTransaction> parse(InputStream inputStream) {
         List<BankTransaction> transactions = new ArrayList<>();
-        StringBuilder contentBuilder = new StringBuilder();
+        parse(inputStream, transactions::add);
+        return transactions;
+    }
+
+    /**
+     * Lê o OFX em passagem única sem materializar o arquivo: a memória fica limitada aos trechos em voo.
+     * O encoding vem do cabeçalho do arquivo ({@link OfxCharset}); só os primeiros 64 KB são relidos.
+     *
+     * @return quantidade de transações entregues
+     */
+    @Override
+    public int parse(InputStream inputStream, Consumer<BankTransaction> consumer) {
+        InputStream in = inputStream.markSupported() ? inputStream : new BufferedInputStream(inputStream);
+        try (Reader reader = new InputStreamReader(in, detectCharset(in))) {
+            OfxSegmenter segmenter = new OfxSegmenter(reader, segmentSize, maxSegmentSize);
+            return parseSegments(() -> {
+                String text = segmenter.next();
+                return text == null ? null : new PendingSegment(text.length(), () -> new OfxTokenizer(new StringReader(text)));
+            }, consumer);
+        } catch (IOException e) {
+            throw new OfxParseException("Falha ao ler stream do OFX", e);
+        }
+    }
+
+    /**
+     * Parse direto dos bytes (tipicamente um {@link java.nio.MappedByteBuffer} de um arquivo já em disco):
+     * os trechos são fatias do próprio buffer e só os valores dos campos usados viram {@code String}.
+     * Produz exatamente as mesmas transações que {@link #parse(InputStream, Consumer)}.
+     */
+    @Override
+    public int parse(ByteBuffer content, Consumer<BankTransaction> consumer) {
+        byte[] sample = new byte[Math.min(OfxCharset.SAMPLE_SIZE, content.remaining())];
+        content.get(content.position(), sample);
+        Charset charset = OfxCharset.detect(sample, sample.length);
+        log.debug("Encoding do OFX: {}", charset);
+
+        int bom = CharsetSniffer.hasUtf8Bom(sample, sample.length) ? 3 : 0;
+        ByteBuffer buffer = content.slice(content.position() + bom, content.remaining() - bom);
+        int[] cursor = {0};
+        try {
+            return parseSegments(() -> {
+                int start = cursor[0];
+                if (start >= buffer.limit()) return null;
+                int end = nextBoundary(buffer, start + segmentSize);
+                if (end - start > maxSegmentSize) {
+                    throw new OfxParseException("OFX sem <STMTTRN> em " + maxSegmentSize + " bytes seguidos");
+                }
+                cursor[0] = end;
+                ByteBuffer slice = buffer.slice(start, end - start);
+                return new PendingSegment(end - start, () -> new OfxByteScanner(slice, charset));
+            }, consumer);
+        } catch (IOException e) {
+            throw new OfxParseException("Falha ao ler OFX mapeado em memória", e);
+        }
+    }
 
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                contentBuilder.append(line).append("\n");
+    /**
+     * Mapeia o arquivo em memória e delega para {@link #parse(ByteBuffer, Consumer)}; arquivos acima
+     * de 2 GB, que não cabem em um único mapeamento, são lidos como stream.
+     */
+    public int parse(Path file, Consumer<BankTransaction> consumer) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                return parse(Channels.newInputStream(channel), consumer);
             }
-        } catch (Exception e) {
-            throw new RuntimeException("Falha ao ler stream do OFX", e);
+            return parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), consumer);
+        } catch (IOException e) {
+            throw new OfxParseException("Falha ao mapear arquivo OFX: " + file, e);
         }
+    }
 
-        String content = contentBuilder.toString();
-        String bankCode = extractTagValue(BANK_ID_PATTERN, content);
-        if (bankCode == null) bankCode = "UNKNOWN";
+    /**
+     * Escolhe o encoding por uma amostra do início do stream ({@link OfxCharset}) e deixa o stream
+     * posicionado logo após o BOM, se houver. Só a amostra fica em memória.
+     */
+    private static Charset detectCharset(InputStream in) throws IOException {
+        in.mark(OfxCharset.SAMPLE_SIZE);
+        byte[] sample = in.readNBytes(OfxCharset.SAMPLE_SIZE);
+        in.reset();
 
-        Matcher matcher = TRANSACTION_BLOCK_PATTERN.matcher(content);
+        Charset charset = OfxCharset.detect(sample, sample.length);
+        log.debug("Encoding do OFX: {}", charset);
+        if (CharsetSniffer.hasUtf8Bom(sample, sample.length)) {
+            in.skipNBytes(3);
+        }
+        return charset;
+    }
 
-        while (matcher.find()) {
-            String block = matcher.group(1);
+    /**
+     * Primeira posição de {@code <STMTTRN>} a partir de {@code from}, ou o fim do buffer.
+     */
+    private static int nextBoundary(ByteBuffer buffer, int from) {
+        byte[] boundary = BOUNDARY_BYTES;
+        int last = buffer.limit() - boundary.length;
+        for (int i = Math.max(0, from); i <= last; i++) {
+            if (buffer.get(i) != '<') continue;
+            int j = 1;
+            while (j < boundary.length && buffer.get(i + j) == boundary[j]) j++;
+            if (j == boundary.length) return i;
+        }
+        return buffer.limit();
+    }
 
-            try {
-                String amountStr = extractTagValue(TRNAMT_PATTERN, block);
-                if (amountStr == null) continue;
+    private int parseSegments(SegmentSource segments, Consumer<BankTransaction> consumer) throws IOException {
+        Deque<Future<Segment>> inFlight = new ArrayDeque<>();
+        int maxInFlight = Math.max(2, pool.getParallelism() * 2);
+        BankCodeResolver bankCodes = new BankCodeResolver();
+        long unitsRead = 0;
+        int emitted = 0;
 
-                BigDecimal amount = new BigDecimal(amountStr);
+        try {
+            PendingSegment pending;
+            while ((pending = segments.next()) != null) {
+                boolean parallel = unitsRead >= parallelThreshold;
+                unitsRead += pending.length();
+                String inherited = bankCodes.current();
 
-                if (amount.compareTo(BigDecimal.ZERO) == 0) {
+                if (!parallel) {
+                    emitted += bankCodes.emit(parseSegment(pending.tokens().get(), inherited), consumer);
                     continue;
                 }
 
-                String dateStr = extractTagValue(DTPOSTED_PATTERN, block);
-                String type = extractTagValue(TRNTYPE_PATTERN, block);
-                String fitId = extractTagValue(FITID_PATTERN, block);
+                PendingSegment segment = pending;
+                inFlight.add(pool.submit(MdcContext.wrap(() -> parseSegment(segment.tokens().get(), inherited))));
+                if (inFlight.size() >= maxInFlight) {
+                    emitted += bankCodes.emit(await(inFlight.poll()), consumer);
+                }
+            }
 
-                String name = extractTagValue(NAME_PATTERN, block);
-                String memo = extractTagValue(MEMO_PATTERN, block);
+            while (!inFlight.isEmpty()) {
+                emitted += bankCodes.emit(await(inFlight.poll()), consumer);
+            }
+            return emitted + bankCodes.finish(consumer);
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+        }
+    }
 
-                String finalDescription = buildDescription(name, memo);
+    private static Segment await(Future<Segment> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Parse do OFX interrompido");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new OfxParseException("Falha ao processar trecho do OFX", e.getCause());
+        }
+    }
 
-                transactions.add(BankTransaction.builder()
-                        .bankCode(bankCode)
-                        .fitId(fitId != null ? fitId.trim() : null)
-                        .type(type)
-                        .amount(amount)
-                        .description(finalDescription)
-                        .date(LocalDateTime.parse(dateStr, OFX_DATE_FMT))
-                        .build());
+    /**
+     * Tokeniza um trecho. Transações anteriores ao primeiro {@code <BANKID>} conhecido ficam sem banco
+     * e são resolvidas na entrega ({@link BankCodeResolver}).
+     */
+    private static Segment parseSegment(OfxTokens tokenizer, String inheritedBankCode) throws IOException {
+        List<BankTransaction> transactions = new ArrayList<>();
+        String bankCode = inheritedBankCode;
+        TransactionFields current = null;
 
-            } catch (Exception e) {
-                log.error("Falha ao converter transação específica do OFX: {}", block, e);
+        OfxTokens.Token token;
+        while ((token = tokenizer.next()) != OfxTokens.Token.EOF) {
+            if (token == OfxTokens.Token.END_TAG) {
+                if (current != null && tokenizer.nameEquals(TRANSACTION_TAG)) {
+                    BankTransaction transaction = current.toTransaction(bankCode);
+                    current = null;
+                    if (transaction != null) {
+                        transactions.add(transaction);
+                    }
+                }
+                continue;
+            }
+
+            if (current == null && tokenizer.nameEquals(TRANSACTION_TAG)) {
+                current = new TransactionFields();
+                continue;
+            }
+
+            if (bankCode == null && tokenizer.nameEquals(BANK_ID_TAG)) {
+                bankCode = leadingDigits(tokenizer.value());
+            }
+
+            if (current != null) {
+                current.accept(tokenizer);
             }
         }
 
-        return transactions;
+        return new Segment(transactions, inheritedBankCode, bankCode);
     }
 
-    private String extractTagValue(Pattern pattern, String content) {
-        Matcher m = pattern.matcher(content);
-        if (m.find()) {
-            return m.group(1).trim();
+    /**
+     * Como no parse por regex, o primeiro {@code <BANKID>} do arquivo vale para todas as transações,
+     * inclusive as que vêm antes dele; sem nenhum, ficam como {@code UNKNOWN}.
+     * <p>
+     * Transações lidas antes do primeiro {@code <BANKID>} ficam retidas até ele aparecer (ou até o fim
+     * do arquivo). Nos extratos comuns o {@code <BANKID>} está no cabeçalho e nada fica retido.
+     */
+    private static final class BankCodeResolver {
+        private final List<BankTransaction> held = new ArrayList<>();
+        private String bankCode;
+
+        String current() {
+            return bankCode;
         }
-        return null;
+
+        int emit(Segment segment, Consumer<BankTransaction> consumer) {
+            if (bankCode == null) bankCode = segment.bankCode();
+            if (bankCode == null) {
+                held.addAll(segment.transactions());
+                return 0;
+            }
+
+            int emitted = release(consumer);
+            boolean parsedWithoutBank = segment.inheritedBankCode() == null;
+            for (BankTransaction transaction : segment.transactions()) {
+                if (parsedWithoutBank) transaction.setBankCode(bankCode);
+                consumer.accept(transaction);
+            }
+            return emitted + segment.transactions().size();
+        }
+
+        int finish(Consumer<BankTransaction> consumer) {
+            if (bankCode == null) bankCode = UNKNOWN_BANK;
+            return release(consumer);
+        }
+
+        private int release(Consumer<BankTransaction> consumer) {
+            int released = held.size();
+            for (BankTransaction transaction : held) {
+                transaction.setBankCode(bankCode);
+                consumer.accept(transaction);
+            }
+            held.clear();
+            return released;
+        }
+    }
+
+    private record Segment(List<BankTransaction> transactions, String inheritedBankCode, String bankCode) { }
+
+    /**
+     * Trecho ainda não tokenizado; {@code length} (caracteres ou bytes) só conta para o limiar de paralelismo.
+     */
+    private record PendingSegment(long length, Supplier<OfxTokens> tokens) { }
+
+    @FunctionalInterface
+    private interface SegmentSource {
+        PendingSegment next() throws IOException;
+    }
+
+    private static String leadingDigits(String value) {
+        int end = 0;
+        while (end < value.length() && isDigit(value.charAt(end))) end++;
+        return end > 0 ? value.substring(0, end) : null;
+    }
+
+    private static String leadingWord(String value) {
+        int end = 0;
+        while (end < value.length() && isWordChar(value.charAt(end))) end++;
+        return end > 0 ? value.substring(0, end) : null;
+    }
+
+    private static String leadingAmount(String value) {
+        int end = 0;
+        while (end < value.length() && isAmountChar(value.charAt(end))) end++;
+        return end > 0 ? value.substring(0, end) : null;
+    }
+
+    private static String leadingDate(String value) {
+        if (value.length() < OFX_DATE_LENGTH) return null;
+        for (int i = 0; i < OFX_DATE_LENGTH; i++) {
+            if (!isDigit(value.charAt(i))) return null;
+        }
+        return value.substring(0, OFX_DATE_LENGTH);
+    }
+
+    /**
+     * Equivalente a {@code LocalDateTime.parse(date, "yyyyMMddHHmmss")} no modo SMART (dia ajustado ao
+     * último dia do mês, {@code 24:00:00} vira meia-noite do dia seguinte), sem as alocações do formatter.
+     */
+    static LocalDateTime parseDate(String date) {
+        int year = digits(date, 0, 4);
+        int month = digits(date, 4, 2);
+        int day = digits(date, 6, 2);
+        int hour = digits(date, 8, 2);
+        int minute = digits(date, 10, 2);
+        int second = digits(date, 12, 2);
+
+        if (year == 0) throw new DateTimeException("Ano inválido em " + date);
+        ChronoField.MONTH_OF_YEAR.checkValidValue(month);
+        ChronoField.DAY_OF_MONTH.checkValidValue(day);
+        ChronoField.MINUTE_OF_HOUR.checkValidValue(minute);
+        ChronoField.SECOND_OF_MINUTE.checkValidValue(second);
+
+        boolean endOfDay = hour == 24 && minute == 0 && second == 0;
+        if (!endOfDay) ChronoField.HOUR_OF_DAY.checkValidValue(hour);
+
+        YearMonth yearMonth = YearMonth.of(year, month);
+        LocalDate localDate = yearMonth.atDay(Math.min(day, yearMonth.lengthOfMonth()));
+        return endOfDay ? localDate.plusDays(1).atStartOfDay() : localDate.atTime(hour, minute, second);
+    }
+
+    private static int digits(String value, int start, int length) {
+        int result = 0;
+        for (int i = start; i < start + length; i++) {
+            result = result * 10 + (value.charAt(i) - '0');
+        }
+        return result;
+    }
+
+    private static String nonEmptyTrimmed(String value) {
+        return value.isEmpty() ? null : value.trim();
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isWordChar(char c) {
+        return isDigit(c) || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
     }
 
-    private String buildDescription(String name, String memo) {
-        if (name == null) name = "";
-        if (memo == null) memo = "";
+    private static boolean isAmountChar(char c) {
+        return isDigit(c) || c == '-' || c == '.';
+    }
+
+    /**
+     * Campos de um {@code <STMTTRN>} em aberto. Como no parse anterior por regex, vale a primeira
+     * ocorrência de cada tag cujo valor tenha o formato esperado.
+     */
+    private static final class TransactionFields {
+        private String type;
+        private String amount;
+        private String fitId;
+        private String memo;
+        private String name;
+        private String date;
+
+        void accept(OfxTokens tokens) {
+            if (type == null && tokens.nameEquals(TRNTYPE_TAG)) {
+                type = leadingWord(tokens.value());
+            } else if (amount == null && tokens.nameEquals(TRNAMT_TAG)) {
+                amount = leadingAmount(tokens.value());
+            } else if (fitId == null && tokens.nameEquals(FITID_TAG)) {
+                fitId = nonEmptyTrimmed(tokens.value());
+            } else if (memo == null && tokens.nameEquals(MEMO_TAG)) {
+                memo = nonEmptyTrimmed(tokens.value());
+            } else if (name == null && tokens.nameEquals(NAME_TAG)) {
+                name = nonEmptyTrimmed(tokens.value());
+            } else if (date == null && tokens.nameEquals(DTPOSTED_TAG)) {
+                date = leadingDate(tokens.value());
+            }
+        }
 
-        name = name.trim();
-        memo = memo.trim();
+        BankTransaction toTransaction(String bankCode) {
+            try {
+                if (amount == null) return null;
 
-        if (name.isEmpty()) return memo.isEmpty() ? "Sem descrição" : memo;
-        if (memo.isEmpty()) return name;
+                BigDecimal parsedAmount = new BigDecimal(amount);
 
-        if (name.equalsIgnoreCase(memo)) return name;
+                if (parsedAmount.compareTo(BigDecimal.ZERO) == 0) {
+                    return null;
+                }
 
-        if (memo.toLowerCase().contains(name.toLowerCase())) return memo;
+                return BankTransaction.builder()
+                        .bankCode(bankCode)
+                        .fitId(fitId)
+                        .type(type)
+                        .amount(parsedAmount)
+                        .description(Descriptions.merge(name, memo))
+                        .date(parseDate(date))
+                        .build();
 
-        return name + " - " + memo;
+            } catch (Exception e) {
+                log.error("Falha ao converter transação específica do OFX (FITID: {}, TRNAMT: {}, DTPOSTED: {})",
+                        fitId, amount, date, e);
+                return null;
+            }
+        }
     }
 }
@@ -0,0 +1,77 @@
+package io.github.poupeai.ingestion.service.parser;
+
+import io.github.poupeai.ingestion.domain.exception.OfxParseException;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Divide um OFX em trechos de pelo menos {@code segmentSize} caracteres, sempre cortando imediatamente
+ * antes de um {@code <STMTTRN>}, para que cada trecho possa ser tokenizado de forma independente.
+ * O primeiro trecho carrega o cabeçalho (e portanto o {@code <BANKID>}).
+ * <p>
+ * Um trecho sem {@code <STMTTRN>} onde cortar não passa de {@code maxSegmentSize} caracteres: o arquivo
+ * é recusado em vez de acumulado inteiro em memória.
+ */
+final class OfxSegmenter {
+
+    static final String BOUNDARY = "<STMTTRN>";
+
+    private final Reader reader;
+    private final int segmentSize;
+    private final int maxSegmentSize;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder pending = new StringBuilder();
+    private int scanned;
+    private int lastBoundary;
+    private boolean eof;
+
+    OfxSegmenter(Reader reader, int segmentSize, int maxSegmentSize) {
+        this.reader = reader;
+        this.segmentSize = Math.min(segmentSize, maxSegmentSize);
+        this.maxSegmentSize = maxSegmentSize;
+    }
+
+    /**
+     * @return o próximo trecho, ou {@code null} no fim do stream
+     */
+    String next() throws IOException {
+        while (!eof) {
+            if (pending.length() >= segmentSize && lastBoundary > 0) {
+                String segment = pending.substring(0, lastBoundary);
+                pending.delete(0, lastBoundary);
+                scanned = pending.length();
+                lastBoundary = 0;
+                return segment;
+            }
+            if (pending.length() >= maxSegmentSize) {
+                throw new OfxParseException("OFX sem <STMTTRN> em " + maxSegmentSize + " caracteres seguidos");
+            }
+
+            int read = reader.read(buffer);
+            if (read < 0) {
+                eof = true;
+                break;
+            }
+            pending.append(buffer, 0, read);
+            findBoundaries();
+        }
+
+        if (pending.isEmpty()) return null;
+        String segment = pending.toString();
+        pending.setLength(0);
+        return segment;
+    }
+
+    /**
+     * Procura fronteiras apenas no trecho recém-lido (mais a sobreposição do tamanho da tag).
+     */
+    private void findBoundaries() {
+        int index = pending.indexOf(BOUNDARY, Math.max(0, scanned - BOUNDARY.length() + 1));
+        while (index >= 0) {
+            lastBoundary = index;
+            index = pending.indexOf(BOUNDARY, index + 1);
+        }
+        scanned = pending.length();
+    }
+}
@@ -0,0 +1,120 @@
+package io.github.poupeai.ingestion.service.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Tokenizador OFX de passagem única, compatível com SGML (OFX 1.x) e XML (OFX 2.x).
+ * <p>
+ * Emite apenas tags de abertura (com o texto que as segue na mesma linha) e de fechamento.
+ * O texto fora desse trecho imediato é descartado, então o consumo de memória depende
+ * apenas do tamanho do maior valor de elemento, e não do tamanho do arquivo. Valores não são
+ * truncados, como no parse por regex; o tamanho do trecho lido já é limitado pelo {@link OfxSegmenter}.
+ */
+final class OfxTokenizer implements OfxTokens {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_TAG_LENGTH = 64;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    private final StringBuilder name = new StringBuilder(MAX_TAG_LENGTH);
+    private final StringBuilder value = new StringBuilder(256);
+
+    OfxTokenizer(Reader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public Token next() throws IOException {
+        int c;
+        while ((c = read()) != -1) {
+            if (c == '<') {
+                return readTag();
+            }
+        }
+        return Token.EOF;
+    }
+
+    String name() {
+        return name.toString();
+    }
+
+    @Override
+    public boolean nameEquals(String tag) {
+        return name.length() == tag.length() && name.indexOf(tag) == 0;
+    }
+
+    @Override
+    public String value() {
+        return value.toString();
+    }
+
+    private Token readTag() throws IOException {
+        while (true) {
+            name.setLength(0);
+            value.setLength(0);
+            boolean closing = false;
+            boolean overflow = false;
+            boolean restart = false;
+            int c = read();
+
+            if (c == '/') {
+                closing = true;
+                c = read();
+            }
+
+            while (c != -1 && c != '>') {
+                if (c == '<') {
+                    restart = true;
+                    break;
+                }
+                if (name.length() < MAX_TAG_LENGTH) {
+                    name.append((char) c);
+                } else {
+                    overflow = true;
+                }
+                c = read();
+            }
+
+            if (restart) continue;
+            if (c == -1) return Token.EOF;
+            if (overflow) name.setLength(0);
+
+            if (closing) return Token.END_TAG;
+
+            readInlineValue();
+            return Token.START_TAG;
+        }
+    }
+
+    private void readInlineValue() throws IOException {
+        while (true) {
+            int c = peek();
+            if (c == -1 || c == '<' || c == '\n' || c == '\r') return;
+            position++;
+            value.append((char) c);
+        }
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        if (c != -1) position++;
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (position >= limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position];
+    }
+}
@@ -0,0 +1,22 @@
+package io.github.poupeai.ingestion.service.parser;
+
+import java.io.IOException;
+
+/**
+ * Fonte de tags OFX consumida pelo parser, seja a partir de caracteres ({@link OfxTokenizer})
+ * ou direto de bytes ({@link OfxByteScanner}).
+ */
+interface OfxTokens {
+
+    enum Token { START_TAG, END_TAG, EOF }
+
+    /**
+     * Avança até a próxima tag. Para {@link Token#START_TAG}, {@link #value()} contém o texto
+     * imediatamente após o {@code >} até o próximo {@code <} ou quebra de linha.
+     */
+    Token next() throws IOException;
+
+    boolean nameEquals(String tag);
+
+    String value();
+}
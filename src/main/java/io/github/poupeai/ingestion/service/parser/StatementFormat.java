@@ -0,0 +1,10 @@
+package io.github.poupeai.ingestion.service.parser;
+
+/**
+ * Formatos de extrato reconhecidos pelos {@link StatementParser}s registrados.
+ */
+public enum StatementFormat {
+    OFX_SGML,
+    OFX_XML,
+    CSV
+}
@@ -0,0 +1,27 @@
+package io.github.poupeai.ingestion.service.parser;
+
+import io.github.poupeai.ingestion.domain.model.BankTransaction;
+
+import java.io.InputStream;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Parser de um ou mais formatos de extrato. Implementações registradas como beans são descobertas
+ * pelo {@link StatementParserRegistry} e consultadas na ordem de {@code @Order}; parsers genéricos
+ * (como o CSV) devem ficar por último.
+ */
+public interface StatementParser {
+
+    /**
+     * @return o formato reconhecido no prefixo, ou vazio se o arquivo não é deste parser
+     */
+    Optional<StatementFormat> detect(StatementPrefix prefix);
+
+    /**
+     * Lê o extrato em passagem única, entregando cada transação ao {@code consumer}.
+     *
+     * @return quantidade de transações entregues
+     */
+    int parse(InputStream inputStream, Consumer<BankTransaction> consumer);
+}
@@ -0,0 +1,39 @@
+package io.github.poupeai.ingestion.service.parser;
+
+import io.github.poupeai.ingestion.domain.exception.StatementParseException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Escolhe o {@link StatementParser} pelo conteúdo do arquivo. Novos formatos só precisam
+ * registrar um bean que implemente a interface.
+ */
+@Component
+public class StatementParserRegistry {
+
+    private final List<StatementParser> parsers;
+
+    public StatementParserRegistry(List<StatementParser> parsers) {
+        this.parsers = List.copyOf(parsers);
+    }
+
+    /**
+     * Inspeciona os primeiros bytes sem consumi-los; o stream precisa suportar {@code mark/reset}.
+     *
+     * @throws StatementParseException se nenhum parser reconhecer o conteúdo
+     */
+    public Detection detect(InputStream inputStream) throws IOException {
+        StatementPrefix prefix = StatementPrefix.peek(inputStream);
+        for (StatementParser parser : parsers) {
+            Optional<StatementFormat> format = parser.detect(prefix);
+            if (format.isPresent()) return new Detection(format.get(), parser);
+        }
+        throw new StatementParseException("Formato de extrato não reconhecido");
+    }
+
+    public record Detection(StatementFormat format, StatementParser parser) { }
+}
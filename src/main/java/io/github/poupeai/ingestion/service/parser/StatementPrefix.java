@@ -0,0 +1,75 @@
+package io.github.poupeai.ingestion.service.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Primeiros bytes de um extrato, lidos sem consumir o stream, usados pelos parsers para
+ * reconhecer o próprio formato.
+ */
+public final class StatementPrefix {
+
+    static final int SIZE = 1024;
+
+    private final byte[] bytes;
+    private final int contentStart;
+
+    StatementPrefix(byte[] bytes) {
+        this.bytes = bytes;
+        int start = CharsetSniffer.hasUtf8Bom(bytes, bytes.length) ? 3 : 0;
+        while (start < bytes.length && Character.isWhitespace(bytes[start])) start++;
+        this.contentStart = start;
+    }
+
+    /**
+     * Lê até {@link #SIZE} bytes e volta o stream ao início; o stream precisa suportar {@code mark/reset}.
+     */
+    static StatementPrefix peek(InputStream inputStream) throws IOException {
+        inputStream.mark(SIZE);
+        byte[] head = inputStream.readNBytes(SIZE);
+        inputStream.reset();
+        return new StatementPrefix(head);
+    }
+
+    public boolean isEmpty() {
+        return contentStart >= bytes.length;
+    }
+
+    /**
+     * Compara o início do conteúdo (após BOM e espaços) ignorando caixa; {@code prefix} deve ser ASCII.
+     */
+    public boolean startsWithIgnoreCase(String prefix) {
+        if (bytes.length - contentStart < prefix.length()) return false;
+        return new String(bytes, contentStart, prefix.length(), StandardCharsets.ISO_8859_1).equalsIgnoreCase(prefix);
+    }
+
+    /**
+     * Procura um trecho ASCII em todo o prefixo, ignorando caixa.
+     */
+    public boolean containsIgnoreCase(String text) {
+        String content = new String(bytes, contentStart, bytes.length - contentStart, StandardCharsets.ISO_8859_1);
+        return content.toUpperCase(Locale.ROOT).contains(text.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Primeira linha não vazia do conteúdo, decodificada como Latin-1 (suficiente para inspecionar delimitadores).
+     */
+    public String firstLine() {
+        int end = contentStart;
+        while (end < bytes.length && bytes[end] != '\n' && bytes[end] != '\r') end++;
+        return new String(bytes, contentStart, end - contentStart, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Indica a presença de bytes de controle típicos de arquivos binários (ZIP, PDF, XLS).
+     */
+    public boolean looksBinary() {
+        for (int i = contentStart; i < bytes.length; i++) {
+            int b = bytes[i] & 0xFF;
+            if (b < 0x09 || (b > 0x0D && b < 0x20)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,367 @@
+package io.github.poupeai.ingestion.service.pipeline;
+
+import io.github.poupeai.ingestion.audit.IngestionMetrics;
+import io.github.poupeai.ingestion.audit.MdcContext;
+import io.github.poupeai.ingestion.domain.model.BankTransaction;
+import io.github.poupeai.ingestion.domain.model.IngestionJobContext;
+import io.github.poupeai.ingestion.domain.model.PersistenceTarget;
+import io.github.poupeai.ingestion.domain.model.TransactionBatch;
+import io.github.poupeai.ingestion.dto.CategoryDTO;
+import io.github.poupeai.ingestion.service.CategorizationService;
+import io.github.poupeai.ingestion.service.CategorizationService.CategorizationResult;
+import io.github.poupeai.ingestion.service.TransactionPersistenceService;
+import io.github.poupeai.ingestion.service.checkpoint.CheckpointStore;
+import io.github.poupeai.ingestion.service.checkpoint.JobCheckpoint;
+import io.github.poupeai.ingestion.service.dedup.StatementDeduplicator;
+import io.github.poupeai.ingestion.service.parser.MappedStatementParser;
+import io.github.poupeai.ingestion.service.parser.StatementParserRegistry;
+import io.github.poupeai.ingestion.service.storage.StagedContent;
+import io.micrometer.observation.Observation;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Executa parse → categorização → persistência em lotes de tamanho fixo.
+ * <p>
+ * O parser é escolhido pelo {@link StatementParserRegistry} a partir dos primeiros bytes do arquivo;
+ * a partir daí todos os formatos seguem exatamente o mesmo caminho.
+ * <p>
+ * Cada estágio roda em sua própria virtual thread e se comunica com o seguinte por uma fila limitada,
+ * de modo que enquanto o lote N é persistido o N+1 é categorizado e o N+2 é lido do arquivo.
+ * A memória do job fica limitada a {@code (2 * queue-capacity + 3) * chunk-size} transações; depois de
+ * categorizados, os lotes seguem no formato colunar do {@link TransactionBatch}.
+ * <p>
+ * Antes da categorização, o {@link StatementDeduplicator} descarta transações já enviadas em outro
+ * extrato da mesma conta ou repetidas no próprio arquivo. As chaves de um lote só são registradas depois
+ * que o Core Service o aceita, antes do checkpoint, para que uma reentrega já as encontre.
+ * <p>
+ * Cada lote aceito pelo Core Service é registrado no {@link CheckpointStore}. Se a mensagem for
+ * reentregue, lotes já confirmados e FITIDs já enviados são descartados antes da categorização.
+ * <p>
+ * Cada estágio é uma observação filha da que estiver corrente na thread que chama {@link #run}, e o
+ * tempo parado nas filas é registrado à parte ({@link IngestionMetrics#waited}) para separar o estágio
+ * lento do que só está esperando por ele.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IngestionPipeline {
+
+    private static final Chunk END_OF_STREAM = new Chunk(-1, List.of());
+    private static final EncodedChunk END_OF_BATCHES = new EncodedChunk(-1, null, List.of());
+
+    private final StatementParserRegistry parsers;
+    private final CategorizationService categorizationService;
+    private final TransactionPersistenceService persistenceService;
+    private final CheckpointStore checkpointStore;
+    private final StatementDeduplicator deduplicator;
+    private final IngestionMetrics metrics;
+
+    @Value("${app.ingestion.chunk-size}")
+    private int chunkSize;
+
+    @Value("${app.ingestion.pipeline.queue-capacity}")
+    private int queueCapacity;
+
+    /**
+     * @param progress chamado na thread de persistência a cada lote aceito; não deve bloquear
+     */
+    public IngestionResult run(InputStream inputStream, IngestionJobContext context,
+                               Consumer<IngestionProgress> progress) throws Exception {
+        BlockingQueue<Chunk> parsed = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<EncodedChunk> categorized = new ArrayBlockingQueue<>(queueCapacity);
+        PersistenceTarget target = PersistenceTarget.from(context);
+        ParseProgress parseProgress = new ParseProgress();
+        Observation job = metrics.current();
+
+        JobCheckpoint checkpoint = checkpointStore.load(context.jobId());
+        if (!checkpoint.isEmpty()) {
+            metrics.event(log, "INGESTION_JOB_RESUMED", "Retomando job a partir do checkpoint: {} lotes e {} transações já enviados.",
+                    checkpoint.committedChunks(), checkpoint.sentKeys().size());
+        }
+
+        ExecutorService stages = Executors.newVirtualThreadPerTaskExecutor();
+        try (StatementDeduplicator.Session dedup = deduplicator.open(context.bankAccountId())) {
+            BlockingQueue<Future<?>> finished = new LinkedBlockingQueue<>();
+            Future<Integer> parsing = submit(stages, finished, () -> metrics.stage(IngestionMetrics.PARSE, job)
+                    .observeChecked(() -> parseStage(inputStream, parsed, parseProgress)));
+            Future<CategorizationResult> categorizing = submit(stages, finished, () -> metrics.stage(IngestionMetrics.CATEGORIZE, job)
+                    .observeChecked(() -> categorizeStage(context, checkpoint, dedup, parsed, categorized)));
+            Future<Integer> persisting = submit(stages, finished, () -> metrics.stage(IngestionMetrics.PERSIST, job)
+                    .observeChecked(() -> persistStage(context, target, dedup, categorized,
+                            persisted -> progress.accept(parseProgress.snapshot(persisted)))));
+            List<Future<?>> futures = List.of(parsing, categorizing, persisting);
+
+            for (int i = 0; i < futures.size(); i++) {
+                Future<?> done = finished.take();
+                try {
+                    done.get();
+                } catch (ExecutionException e) {
+                    futures.forEach(future -> future.cancel(true));
+                    if (e.getCause() instanceof Exception cause) throw cause;
+                    throw e;
+                }
+            }
+
+            CategorizationResult categorization = categorizing.get();
+            return new IngestionResult(parsing.get(), categorization.byRules(), categorization.byAi(), dedup.duplicates());
+        } finally {
+            stages.shutdownNow();
+        }
+    }
+
+    /**
+     * Roda o estágio com o MDC de quem chamou e, ao terminar (com sucesso, erro ou cancelamento), coloca o
+     * future em {@code finished}, para que {@link #run} reaja à primeira falha em qualquer estágio.
+     */
+    private static <T> Future<T> submit(ExecutorService stages, BlockingQueue<Future<?>> finished, Callable<T> stage) {
+        FutureTask<T> task = new FutureTask<>(MdcContext.wrap(stage)) {
+            @Override
+            protected void done() {
+                finished.add(this);
+            }
+        };
+        stages.execute(task);
+        return task;
+    }
+
+    private int parseStage(InputStream inputStream, BlockingQueue<Chunk> output, ParseProgress progress)
+            throws InterruptedException, IOException {
+        long startedAt = System.nanoTime();
+        ChunkCollector collector = new ChunkCollector(output, progress);
+        CountingInputStream counted = new CountingInputStream(inputStream);
+        InputStream buffered = new BufferedInputStream(counted);
+        StatementParserRegistry.Detection detection = parsers.detect(buffered);
+
+        int total = parse(inputStream, counted, buffered, detection, collector);
+        collector.flush();
+        progress.complete(total);
+        long outputWait = collector.waitedNanos + put(output, END_OF_STREAM);
+
+        metrics.parsed(detection.format().name(), total, System.nanoTime() - startedAt - outputWait);
+        metrics.waited(IngestionMetrics.PARSE, 0, outputWait);
+
+        metrics.event(log, "STATEMENT_PARSED", "Extrato {} parseado. {} transações encontradas.", detection.format(), total);
+        return total;
+    }
+
+    /**
+     * Conteúdo já baixado para disco é lido por mapeamento de memória quando o parser suporta;
+     * caso contrário, pelo stream. No mapeamento a espera pelo storage acontece toda em
+     * {@link StagedContent#mapFully()}, e não durante o parse.
+     */
+    private int parse(InputStream source, CountingInputStream counted, InputStream buffered,
+                      StatementParserRegistry.Detection detection, Consumer<BankTransaction> consumer) throws IOException {
+        if (source instanceof StagedContent staged && detection.parser() instanceof MappedStatementParser mappedParser) {
+            long startedAt = System.nanoTime();
+            Optional<ByteBuffer> content = staged.mapFully();
+            if (content.isPresent()) {
+                metrics.downloaded(IngestionMetrics.MAPPED_ACCESS, content.get().remaining(), System.nanoTime() - startedAt);
+                return mappedParser.parse(content.get(), consumer);
+            }
+        }
+        int total = detection.parser().parse(buffered, consumer);
+        metrics.downloaded(IngestionMetrics.STREAM_ACCESS, counted.count, counted.readNanos);
+        return total;
+    }
+
+    private CategorizationResult categorizeStage(IngestionJobContext context, JobCheckpoint checkpoint, StatementDeduplicator.Session dedup,
+                                                 BlockingQueue<Chunk> input, BlockingQueue<EncodedChunk> output) throws InterruptedException {
+        List<CategoryDTO> userCategories = null;
+        int byRules = 0;
+        int byAi = 0;
+        long inputWait = 0;
+        long outputWait = 0;
+
+        while (true) {
+            long waitStart = System.nanoTime();
+            Chunk chunk = input.take();
+            inputWait += System.nanoTime() - waitStart;
+            if (chunk == END_OF_STREAM) break;
+
+            StatementDeduplicator.Result deduplicated = dedup.filter(chunk.transactions());
+            chunk = skipAlreadySent(new Chunk(chunk.index(), deduplicated.fresh()), checkpoint, context);
+            if (chunk.transactions().isEmpty()) continue;
+
+            if (userCategories == null) {
+                userCategories = categorizationService.fetchCategoriesSafely(context.profileId());
+            }
+            CategorizationResult result = categorizationService.applyCategorization(context.profileId(), chunk.transactions(), userCategories);
+            byRules += result.byRules();
+            byAi += result.byAi();
+            outputWait += put(output, new EncodedChunk(chunk.index(), TransactionBatch.of(chunk.transactions()), deduplicated.keys()));
+        }
+        outputWait += put(output, END_OF_BATCHES);
+        metrics.waited(IngestionMetrics.CATEGORIZE, inputWait, outputWait);
+        return new CategorizationResult(byRules, byAi);
+    }
+
+    private int persistStage(IngestionJobContext context, PersistenceTarget target, StatementDeduplicator.Session dedup,
+                             BlockingQueue<EncodedChunk> input, IntConsumer onPersisted) throws InterruptedException {
+        int persisted = 0;
+        long inputWait = 0;
+
+        while (true) {
+            long waitStart = System.nanoTime();
+            EncodedChunk chunk = input.take();
+            inputWait += System.nanoTime() - waitStart;
+            if (chunk == END_OF_BATCHES) break;
+
+            TransactionBatch batch = chunk.batch();
+            metrics.event(log, "TRANSACTIONS_PERSISTING", "Enviando lote {} com {} transações para persistência.", chunk.index() + 1, batch.size());
+            persistenceService.persistTransactionsBatch(batch, target);
+            dedup.record(chunk.dedupKeys());
+            checkpointStore.commitChunk(context.jobId(), chunkSize, chunk.index(), context.bankAccountId(), batch.fitIds());
+            metrics.persisted(batch.size());
+            persisted += batch.size();
+            onPersisted.accept(persisted);
+        }
+        metrics.waited(IngestionMetrics.PERSIST, inputWait, 0);
+        return persisted;
+    }
+
+    /**
+     * @return tempo bloqueado esperando espaço na fila
+     */
+    private static <T> long put(BlockingQueue<T> queue, T item) throws InterruptedException {
+        long start = System.nanoTime();
+        queue.put(item);
+        return System.nanoTime() - start;
+    }
+
+    private Chunk skipAlreadySent(Chunk chunk, JobCheckpoint checkpoint, IngestionJobContext context) {
+        if (checkpoint.isEmpty()) return chunk;
+        if (checkpoint.isChunkCommitted(chunkSize, chunk.index())) {
+            return new Chunk(chunk.index(), List.of());
+        }
+        List<BankTransaction> pending = chunk.transactions().stream()
+                .filter(tx -> !checkpoint.isSent(context.bankAccountId(), tx.getFitId()))
+                .toList();
+        return pending.size() == chunk.transactions().size() ? chunk : new Chunk(chunk.index(), pending);
+    }
+
+    private record Chunk(int index, List<BankTransaction> transactions) { }
+
+    /**
+     * Lote já categorizado, convertido para o formato colunar; os {@link BankTransaction} do parse
+     * deixam de ser referenciados assim que a categorização termina.
+     */
+    private record EncodedChunk(int index, TransactionBatch batch, List<String> dedupKeys) { }
+
+    /**
+     * Contagem do estágio de parse lida pelo estágio de persistência para montar o {@link IngestionProgress}.
+     */
+    private static final class ParseProgress {
+        private volatile int parsed;
+        private volatile boolean complete;
+
+        void add(int transactions) {
+            parsed += transactions;
+        }
+
+        void complete(int total) {
+            parsed = total;
+            complete = true;
+        }
+
+        IngestionProgress snapshot(int persisted) {
+            boolean done = complete;
+            return new IngestionProgress(parsed, persisted, done);
+        }
+    }
+
+    /**
+     * Conta os bytes lidos do storage e o tempo bloqueado lendo, que é onde o download de fato acontece.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+        private long readNanos;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            long start = System.nanoTime();
+            int b = super.read();
+            readNanos += System.nanoTime() - start;
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            long start = System.nanoTime();
+            int read = super.read(buffer, offset, length);
+            readNanos += System.nanoTime() - start;
+            if (read > 0) count += read;
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long start = System.nanoTime();
+            long skipped = super.skip(n);
+            readNanos += System.nanoTime() - start;
+            count += skipped;
+            return skipped;
+        }
+    }
+
+    private final class ChunkCollector implements Consumer<BankTransaction> {
+        private final BlockingQueue<Chunk> output;
+        private final ParseProgress progress;
+        private List<BankTransaction> current = new ArrayList<>(chunkSize);
+        private int index;
+        private long waitedNanos;
+
+        private ChunkCollector(BlockingQueue<Chunk> output, ParseProgress progress) {
+            this.output = output;
+            this.progress = progress;
+        }
+
+        @Override
+        public void accept(BankTransaction transaction) {
+            current.add(transaction);
+            if (current.size() >= chunkSize) {
+                try {
+                    flush();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("Pipeline de ingestão interrompido");
+                }
+            }
+        }
+
+        void flush() throws InterruptedException {
+            if (current.isEmpty()) return;
+            progress.add(current.size());
+            waitedNanos += put(output, new Chunk(index++, current));
+            current = new ArrayList<>(chunkSize);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package io.github.poupeai.ingestion.service.pipeline;
+
+/**
+ * Andamento de um job, publicado a cada lote aceito pelo Core Service.
+ *
+ * @param parsedTransactions    transações lidas do arquivo até agora
+ * @param persistedTransactions transações já aceitas pelo Core Service
+ * @param parseComplete         se o arquivo já foi lido até o fim (e {@code parsedTransactions} é o total)
+ */
+public record IngestionProgress(
+        int parsedTransactions,
+        int persistedTransactions,
+        boolean parseComplete
+) { }
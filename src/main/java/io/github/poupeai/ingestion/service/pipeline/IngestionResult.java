@@ -0,0 +1,8 @@
+package io.github.poupeai.ingestion.service.pipeline;
+
+public record IngestionResult(
+        int totalTransactions,
+        int ruleCategorized,
+        int aiCategorized,
+        int duplicatesSkipped
+) { }
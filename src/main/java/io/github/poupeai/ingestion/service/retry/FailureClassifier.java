@@ -0,0 +1,57 @@
+package io.github.poupeai.ingestion.service.retry;
+
+import feign.FeignException;
+import io.github.poupeai.ingestion.domain.exception.DownstreamServiceException;
+import io.github.poupeai.ingestion.domain.exception.StatementParseException;
+import io.minio.errors.ServerException;
+
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Decide se a falha de um job é temporária e vale nova tentativa.
+ * <p>
+ * Temporárias: I/O (inclusive leitura do extrato interrompida no meio do download e recusa do bulkhead),
+ * timeouts, 5xx e 429 dos serviços e erros de servidor do MinIO. Todo o resto é definitivo, em
+ * especial extratos inválidos ({@link StatementParseException}) e 4xx: repetir daria o mesmo resultado.
+ */
+public final class FailureClassifier {
+
+    private static final int MAX_DEPTH = 16;
+
+    private FailureClassifier() {
+    }
+
+    public static boolean isRetryable(Throwable failure) {
+        Throwable current = failure;
+        for (int depth = 0; current != null && depth < MAX_DEPTH; depth++, current = current.getCause()) {
+            switch (current) {
+                case StatementParseException parse -> {
+                    return parse.getCause() instanceof IOException;
+                }
+                case DownstreamServiceException downstream -> {
+                    if (downstream.getStatus() != -1) return isRetryableStatus(downstream.getStatus());
+                }
+                case FeignException feign -> {
+                    return feign.status() == -1 || isRetryableStatus(feign.status());
+                }
+                case IOException ignored -> {
+                    return true;
+                }
+                case TimeoutException ignored -> {
+                    return true;
+                }
+                case ServerException ignored -> {
+                    return true;
+                }
+                default -> {
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isRetryableStatus(int status) {
+        return status >= 500 || status == 429 || status == 408;
+    }
+}
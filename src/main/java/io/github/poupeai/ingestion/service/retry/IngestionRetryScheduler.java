@@ -0,0 +1,107 @@
+package io.github.poupeai.ingestion.service.retry;
+
+import io.github.poupeai.ingestion.domain.event.IngestionEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Reagenda ou estaciona um job que falhou, republicando o evento nas filas da {@link RetryTopology}.
+ * <p>
+ * A espera fica por conta do TTL da fila de atraso no broker: o consumer dá ack na entrega atual assim
+ * que a republicação é confirmada e nenhuma thread fica bloqueada aguardando a próxima tentativa. Se o
+ * broker não confirmar em {@code confirm-timeout}, lança {@link AmqpException}; o job então termina com
+ * erro e a entrega atual é rejeitada, caindo na fila de estacionamento pelo dead-letter da fila da faixa.
+ */
+@Component
+public class IngestionRetryScheduler {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final RabbitTemplate rabbitTemplate;
+    private final RetryTopology topology;
+    private final Duration confirmTimeout;
+    private final Counter scheduled;
+    private final Counter parked;
+
+    public IngestionRetryScheduler(RabbitTemplate rabbitTemplate,
+                                   RetryTopology topology,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.rabbitmq.retry.confirm-timeout}") Duration confirmTimeout) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.topology = topology;
+        this.confirmTimeout = confirmTimeout;
+        this.scheduled = counter(meterRegistry, "scheduled");
+        this.parked = counter(meterRegistry, "parked");
+    }
+
+    /**
+     * @return se a tentativa {@code attempt} ainda tem uma seguinte
+     */
+    public boolean canRetry(int attempt) {
+        return attempt < topology.maxAttempts();
+    }
+
+    /**
+     * Publica o evento na fila de atraso da tentativa {@code attempt}, marcado como tentativa seguinte.
+     *
+     * @return atraso até a nova entrega
+     */
+    public Duration retry(IngestionEvent event, int attempt, Throwable cause) {
+        publish(topology.delayQueue(attempt), event, attempt + 1, cause);
+        scheduled.increment();
+        return topology.delay(attempt);
+    }
+
+    /**
+     * Publica o evento na fila de estacionamento, para inspeção e reenvio manual.
+     */
+    public void park(IngestionEvent event, int attempt, Throwable cause) {
+        publish(topology.parkingQueue(), event, attempt, cause);
+        parked.increment();
+    }
+
+    private void publish(String queue, IngestionEvent event, int attempt, Throwable cause) {
+        CorrelationData correlation = new CorrelationData(UUID.randomUUID().toString());
+        rabbitTemplate.convertAndSend("", queue, event, message -> {
+            message.getMessageProperties().setHeader(RetryTopology.ATTEMPT_HEADER, attempt);
+            message.getMessageProperties().setHeader(RetryTopology.ERROR_HEADER, describe(cause));
+            return message;
+        }, correlation);
+
+        CorrelationData.Confirm confirm;
+        try {
+            confirm = correlation.getFuture().get(confirmTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmqpException("Interrompido aguardando confirmação da republicação em " + queue, e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new AmqpException("Republicação em " + queue + " não confirmada", e);
+        }
+        if (!confirm.ack() || correlation.getReturned() != null) {
+            throw new AmqpException("Broker recusou a republicação em " + queue + ": " + confirm.reason());
+        }
+    }
+
+    private static String describe(Throwable cause) {
+        String description = cause.getClass().getSimpleName() + ": " + cause.getMessage();
+        return description.length() > MAX_ERROR_LENGTH ? description.substring(0, MAX_ERROR_LENGTH) : description;
+    }
+
+    private static Counter counter(MeterRegistry registry, String result) {
+        return Counter.builder("ingestion.retries")
+                .description("Jobs reagendados após falha temporária ou estacionados após esgotar as tentativas")
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -0,0 +1,92 @@
+package io.github.poupeai.ingestion.service.retry;
+
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Filas de nova tentativa da fila de jobs {@code queue}.
+ * <p>
+ * Cada tentativa que falha com erro temporário vai para {@code <queue>.retry.<atraso em ms>}, uma fila sem
+ * consumers cujo TTL é o atraso daquela tentativa: {@code initial-delay * multiplier^(tentativa - 1)},
+ * limitado a {@code max-delay}. Expirada, a mensagem volta pela default exchange para {@code queue}.
+ * Como o TTL é da fila, todas as mensagens de uma fila expiram na ordem em que chegaram. Jobs que esgotam
+ * {@code max-attempts} ficam em {@code <queue>.parking}.
+ * <p>
+ * O broker recusa redeclarar uma fila com argumentos diferentes, por isso o TTL faz parte do nome da fila
+ * de atraso: mudar {@code app.rabbitmq.retry.*} só declara filas novas. As antigas continuam devolvendo o
+ * que ainda têm para {@code queue} e podem ser apagadas quando vazias.
+ * <p>
+ * A fila de jobs é declarada sem argumentos, como sempre foi. O dead-letter das entregas rejeitadas nela
+ * vem de uma policy do broker, aplicada uma vez por ambiente (ver {@link #jobQueuePolicy()}):
+ * <pre>
+ * rabbitmqctl set_policy ingestion-jobs-parking '^ingestion_jobs$' \
+ *   '{"dead-letter-exchange":"","dead-letter-routing-key":"ingestion_jobs.parking"}' --apply-to queues
+ * </pre>
+ */
+public record RetryTopology(String queue, int maxAttempts, Duration initialDelay, double multiplier, Duration maxDelay) {
+
+    /**
+     * Número da tentativa da entrega atual, a partir de 1; ausente na primeira entrega.
+     */
+    public static final String ATTEMPT_HEADER = "x-ingestion-attempt";
+
+    /**
+     * Classe e mensagem do último erro, nas mensagens reenviadas ou estacionadas.
+     */
+    public static final String ERROR_HEADER = "x-ingestion-error";
+
+    public String delayQueue(int attempt) {
+        return queue + ".retry." + delay(attempt).toMillis();
+    }
+
+    public String parkingQueue() {
+        return queue + ".parking";
+    }
+
+    /**
+     * @return quanto esperar depois da falha da tentativa {@code attempt}
+     */
+    public Duration delay(int attempt) {
+        double millis = initialDelay.toMillis() * Math.pow(multiplier, attempt - 1);
+        return Duration.ofMillis((long) Math.min(millis, maxDelay.toMillis()));
+    }
+
+    public Queue jobQueue() {
+        return QueueBuilder.durable(queue).build();
+    }
+
+    /**
+     * Definição da policy que manda as entregas rejeitadas na fila de jobs para a fila de estacionamento.
+     */
+    public Map<String, Object> jobQueuePolicy() {
+        return Map.of("dead-letter-exchange", "", "dead-letter-routing-key", parkingQueue());
+    }
+
+    /**
+     * Fila de estacionamento e uma fila de atraso por atraso distinto; tentativas que já chegaram a
+     * {@code max-delay} dividem a mesma fila.
+     */
+    public Declarables declarables() {
+        List<Declarable> declarables = new ArrayList<>();
+        declarables.add(QueueBuilder.durable(parkingQueue()).build());
+        Set<String> delayQueues = new HashSet<>();
+        for (int attempt = 1; attempt < maxAttempts; attempt++) {
+            if (!delayQueues.add(delayQueue(attempt))) continue;
+            declarables.add(QueueBuilder.durable(delayQueue(attempt))
+                    .ttl((int) delay(attempt).toMillis())
+                    .deadLetterExchange("")
+                    .deadLetterRoutingKey(queue)
+                    .build());
+        }
+        return new Declarables(declarables);
+    }
+}
@@ -0,0 +1,253 @@
+package io.github.poupeai.ingestion.service.status;
+
+import io.github.poupeai.ingestion.audit.Log;
+import io.github.poupeai.ingestion.audit.MdcContext;
+import io.github.poupeai.ingestion.client.CoreServiceClient;
+import io.github.poupeai.ingestion.client.dto.UpdateIngestionJobRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Envia as atualizações de status dos jobs ({@code PATCH /api/internal/ingestion-jobs/{id}}) fora da
+ * thread do job.
+ * <p>
+ * Atualizações intermediárias de um mesmo job são agrupadas: a primeira abre uma janela de
+ * {@code debounce} e, ao fim dela, só o estado mais recente é enviado. Estados terminais
+ * ({@code COMPLETED}/{@code FAILED}) descartam o que estiver pendente, são enviados imediatamente e
+ * repetidos com backoff exponencial até {@code terminal-attempts} tentativas; depois deles o job não
+ * aceita mais atualizações. Cada job tem no máximo um envio em andamento, então o Core Service recebe
+ * os estados na ordem em que foram publicados.
+ * <p>
+ * O canal de um job é descartado depois do envio do estado terminal ou, para jobs que saem deste pod sem
+ * estado terminal (ex.: reagendados), depois do envio pendente no {@link #release}.
+ */
+@Slf4j
+@Component
+public class JobStatusPublisher implements DisposableBean {
+
+    private static final Set<String> TERMINAL_STATUSES = Set.of("COMPLETED", "FAILED");
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private final CoreServiceClient coreServiceClient;
+    private final Duration debounce;
+    private final int terminalAttempts;
+    private final Duration retryBackoff;
+
+    private final ConcurrentMap<String, JobChannel> channels = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timers = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("job-status-timer").daemon().factory());
+    private final ExecutorService senders = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("job-status-", 0).factory());
+
+    private final Counter sent;
+    private final Counter failed;
+    private final Counter coalesced;
+
+    public JobStatusPublisher(CoreServiceClient coreServiceClient,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.ingestion.status.debounce}") Duration debounce,
+                              @Value("${app.ingestion.status.terminal-attempts}") int terminalAttempts,
+                              @Value("${app.ingestion.status.retry-backoff}") Duration retryBackoff) {
+        this.coreServiceClient = coreServiceClient;
+        this.debounce = debounce;
+        this.terminalAttempts = Math.max(1, terminalAttempts);
+        this.retryBackoff = retryBackoff;
+        this.sent = counter(meterRegistry, "sent");
+        this.failed = counter(meterRegistry, "failed");
+        this.coalesced = counter(meterRegistry, "coalesced");
+    }
+
+    /**
+     * Enfileira o novo estado do job e retorna imediatamente.
+     */
+    public void publish(String jobId, String status, String summary, String errorDetails) {
+        if (jobId == null) return;
+        UpdateIngestionJobRequest request = UpdateIngestionJobRequest.builder()
+                .status(status)
+                .summary(summary)
+                .errorDetails(errorDetails)
+                .build();
+        channels.computeIfAbsent(jobId, JobChannel::new).offer(request, TERMINAL_STATUSES.contains(status));
+    }
+
+    /**
+     * Envia o que estiver pendente sem esperar a janela e descarta o canal do job. Usado quando o job deixa
+     * este pod sem estado terminal, como ao ser reagendado: a próxima tentativa pode ser consumida por outra
+     * réplica. Atualizações publicadas depois disso reabrem o canal.
+     */
+    public void release(String jobId) {
+        if (jobId == null) return;
+        JobChannel channel = channels.get(jobId);
+        if (channel != null) channel.release();
+    }
+
+    /**
+     * Envia o que estiver pendente sem esperar a janela e aguarda os envios em andamento, inclusive
+     * as novas tentativas de estados terminais.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        timers.shutdownNow();
+        channels.values().forEach(JobChannel::flushNow);
+        senders.shutdown();
+        if (!senders.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            Log.warn(log, "UPDATE_STATUS_SHUTDOWN_TIMEOUT", "Atualizações de status ainda pendentes no desligamento: {}", channels.keySet());
+            senders.shutdownNow();
+        }
+    }
+
+    int openChannels() {
+        return channels.size();
+    }
+
+    private void send(String jobId, UpdateIngestionJobRequest request, boolean terminal) {
+        int attempts = terminal ? terminalAttempts : 1;
+        for (int attempt = 1; attempt <= attempts; attempt++) {
+            try {
+                coreServiceClient.updateStatus(jobId, request);
+                sent.increment();
+                return;
+            } catch (Exception e) {
+                if (attempt == attempts) {
+                    failed.increment();
+                    Log.error(log, "UPDATE_STATUS_FAIL", "Falha ao atualizar status do job para " + request.getStatus()
+                            + " após " + attempts + " tentativa(s)", e);
+                    return;
+                }
+                Log.warn(log, "UPDATE_STATUS_RETRY", "Falha ao atualizar status do job para {} (tentativa {} de {}): {}",
+                        request.getStatus(), attempt, attempts, e.getMessage());
+                if (!sleep(retryBackoff.multipliedBy(1L << Math.min(attempt - 1, 10)))) return;
+            }
+        }
+    }
+
+    private static boolean sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("ingestion.job.status.updates")
+                .description("Atualizações de status de job enviadas ao Core Service")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Estado pendente e envio em andamento de um job. Os envios rodam com o MDC de quem publicou a
+     * primeira atualização, mesmo quando disparados pelo timer.
+     */
+    private final class JobChannel {
+        private final String jobId;
+        private final Executor executor = MdcContext.propagating(senders);
+
+        private UpdateIngestionJobRequest pending;
+        private boolean pendingTerminal;
+        private boolean closed;
+        private boolean released;
+        private boolean sending;
+        private ScheduledFuture<?> timer;
+
+        private JobChannel(String jobId) {
+            this.jobId = jobId;
+        }
+
+        synchronized void offer(UpdateIngestionJobRequest request, boolean terminal) {
+            if (closed) return;
+            released = false;
+            if (pending != null) coalesced.increment();
+            pending = request;
+            pendingTerminal = terminal;
+            closed = terminal;
+
+            if (sending) return;
+            if (terminal || timers.isShutdown()) {
+                startSending();
+            } else if (timer == null) {
+                timer = timers.schedule(this::onTimer, debounce.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+
+        synchronized void release() {
+            released = true;
+            if (sending) return;
+            if (pending != null) {
+                startSending();
+            } else {
+                channels.remove(jobId, this);
+            }
+        }
+
+        synchronized void flushNow() {
+            if (!sending && pending != null) startSending();
+        }
+
+        private synchronized void onTimer() {
+            timer = null;
+            if (!sending && pending != null) startSending();
+        }
+
+        private void startSending() {
+            if (timer != null) {
+                timer.cancel(false);
+                timer = null;
+            }
+            sending = true;
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                sending = false;
+                Log.warn(log, "UPDATE_STATUS_DROPPED", "Atualização de status {} descartada: publicador desligado.", pending.getStatus());
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                UpdateIngestionJobRequest request;
+                boolean terminal;
+                synchronized (this) {
+                    if (pending == null) {
+                        sending = false;
+                        if (closed || released) channels.remove(jobId, this);
+                        return;
+                    }
+                    request = pending;
+                    terminal = pendingTerminal;
+                    pending = null;
+                }
+
+                send(jobId, request, terminal);
+
+                synchronized (this) {
+                    if (pending != null && !pendingTerminal && !released && !timers.isShutdown()) {
+                        // o próximo estado intermediário espera uma nova janela
+                        sending = false;
+                        timer = timers.schedule(this::onTimer, debounce.toNanos(), TimeUnit.NANOSECONDS);
+                        return;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package io.github.poupeai.ingestion.service.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Acesso a um intervalo de bytes de um objeto já identificado (bucket e chave resolvidos).
+ */
+@FunctionalInterface
+public interface ObjectRangeSource {
+
+    InputStream open(long offset, long length) throws IOException;
+}
@@ -0,0 +1,55 @@
+package io.github.poupeai.ingestion.service.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Baixa um objeto em partes de {@code partSize} com até {@code parallelism} requisições de intervalo
+ * simultâneas, devolvendo um {@link InputStream} sequencial que pode ser consumido enquanto o download
+ * ainda está em andamento.
+ * <p>
+ * Até {@code spillThreshold} as partes ficam em memória, limitadas a {@code parallelism + 1} partes;
+ * acima disso são gravadas em um arquivo temporário e lidas por mapeamento de memória.
+ */
+public final class RangedDownloader {
+
+    private final int partSize;
+    private final int parallelism;
+    private final long spillThreshold;
+    private final Path spillDirectory;
+    private final ExecutorService executor;
+
+    public RangedDownloader(int partSize, int parallelism, long spillThreshold, Path spillDirectory, ExecutorService executor) {
+        if (partSize <= 0 || parallelism <= 0) {
+            throw new IllegalArgumentException("partSize e parallelism devem ser positivos");
+        }
+        this.partSize = partSize;
+        this.parallelism = parallelism;
+        this.spillThreshold = spillThreshold;
+        this.spillDirectory = spillDirectory;
+        this.executor = executor;
+    }
+
+    public InputStream open(ObjectRangeSource source, long size) throws IOException {
+        if (size >= spillThreshold) {
+            Files.createDirectories(spillDirectory);
+            Path file = Files.createTempFile(spillDirectory, "download-", ".part");
+            return new SpilledObjectInputStream(source, size, partSize, parallelism, file, executor);
+        }
+        return new RangedObjectInputStream(source, size, partSize, parallelism, executor);
+    }
+
+    static byte[] fetch(ObjectRangeSource source, long offset, int length) throws IOException {
+        try (InputStream in = source.open(offset, length)) {
+            byte[] data = in.readNBytes(length);
+            if (data.length != length) {
+                throw new IOException("Intervalo truncado: esperados " + length + " bytes a partir de " + offset
+                        + ", recebidos " + data.length);
+            }
+            return data;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package io.github.poupeai.ingestion.service.storage;
+
+import io.github.poupeai.ingestion.audit.MdcContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Mantém uma janela de {@code parallelism} partes sendo baixadas à frente da posição de leitura.
+ * Cada parte consumida libera espaço para a próxima, então a memória fica limitada a
+ * {@code (parallelism + 1) * partSize} bytes independentemente do tamanho do objeto.
+ */
+final class RangedObjectInputStream extends InputStream {
+
+    private final ObjectRangeSource source;
+    private final long size;
+    private final int partSize;
+    private final int parallelism;
+    private final ExecutorService executor;
+    private final Deque<Future<byte[]>> window = new ArrayDeque<>();
+
+    private long nextOffset;
+    private byte[] current = new byte[0];
+    private int position;
+    private boolean closed;
+
+    RangedObjectInputStream(ObjectRangeSource source, long size, int partSize, int parallelism, ExecutorService executor) {
+        this.source = source;
+        this.size = size;
+        this.partSize = partSize;
+        this.parallelism = parallelism;
+        this.executor = executor;
+        fillWindow();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureAvailable()) return -1;
+        return current[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) return 0;
+        if (!ensureAvailable()) return -1;
+        int count = Math.min(length, current.length - position);
+        System.arraycopy(current, position, buffer, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return current.length - position;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        window.forEach(future -> future.cancel(true));
+        window.clear();
+    }
+
+    private boolean ensureAvailable() throws IOException {
+        if (closed) throw new IOException("Stream fechado");
+        while (position >= current.length) {
+            Future<byte[]> next = window.poll();
+            if (next == null) return false;
+            current = await(next);
+            position = 0;
+            fillWindow();
+        }
+        return true;
+    }
+
+    private void fillWindow() {
+        while (window.size() < parallelism && nextOffset < size) {
+            long offset = nextOffset;
+            int length = (int) Math.min(partSize, size - offset);
+            nextOffset += length;
+            window.add(executor.submit(MdcContext.wrap(() -> RangedDownloader.fetch(source, offset, length))));
+        }
+    }
+
+    private static byte[] await(Future<byte[]> part) throws IOException {
+        try {
+            return part.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Download interrompido");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IOException("Falha ao baixar parte do objeto", e.getCause());
+        }
+    }
+}
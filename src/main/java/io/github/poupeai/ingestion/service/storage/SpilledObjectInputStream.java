@@ -0,0 +1,143 @@
+package io.github.poupeai.ingestion.service.storage;
+
+import io.github.poupeai.ingestion.audit.MdcContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Baixa todas as partes direto para um arquivo temporário (escritas posicionais, até {@code parallelism}
+ * simultâneas) e entrega o conteúdo em ordem, mapeando cada parte em memória assim que ela termina.
+ * O arquivo é aberto com {@code DELETE_ON_CLOSE}: some do diretório no {@link #close()} (no Linux, já
+ * na abertura), então nem um processo morto deixa arquivos para trás.
+ */
+final class SpilledObjectInputStream extends InputStream implements StagedContent {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private final int partSize;
+    private final List<Future<?>> parts = new ArrayList<>();
+
+    private int partIndex = -1;
+    private MappedByteBuffer current;
+    private boolean closed;
+
+    SpilledObjectInputStream(ObjectRangeSource source, long size, int partSize, int parallelism,
+                             Path file, ExecutorService executor) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE);
+        this.size = size;
+        this.partSize = partSize;
+
+        Semaphore permits = new Semaphore(parallelism, true);
+        for (long offset = 0; offset < size; offset += partSize) {
+            long partOffset = offset;
+            long length = Math.min(partSize, size - offset);
+            parts.add(executor.submit(MdcContext.wrap(() -> {
+                permits.acquire();
+                try {
+                    writePart(source, partOffset, length);
+                } finally {
+                    permits.release();
+                }
+                return null;
+            })));
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureAvailable()) return -1;
+        return current.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) return 0;
+        if (!ensureAvailable()) return -1;
+        int count = Math.min(length, current.remaining());
+        current.get(buffer, offset, count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return current != null ? current.remaining() : 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        parts.forEach(part -> part.cancel(true));
+        channel.close();
+    }
+
+    @Override
+    public Optional<ByteBuffer> mapFully() throws IOException {
+        if (closed) throw new IOException("Stream fechado");
+        if (size > Integer.MAX_VALUE) return Optional.empty();
+        for (Future<?> part : parts) {
+            await(part);
+        }
+        return Optional.of(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+    }
+
+    private boolean ensureAvailable() throws IOException {
+        if (closed) throw new IOException("Stream fechado");
+        while (current == null || !current.hasRemaining()) {
+            if (partIndex + 1 >= parts.size()) return false;
+            partIndex++;
+            await(parts.get(partIndex));
+            long offset = (long) partIndex * partSize;
+            current = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(partSize, size - offset));
+        }
+        return true;
+    }
+
+    private void writePart(ObjectRangeSource source, long offset, long length) throws IOException {
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        long position = offset;
+        long end = offset + length;
+        try (InputStream in = source.open(offset, length)) {
+            int read;
+            while (position < end && (read = in.read(buffer, 0, (int) Math.min(buffer.length, end - position))) > 0) {
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                while (chunk.hasRemaining()) {
+                    position += channel.write(chunk, position);
+                }
+            }
+        }
+        if (position != end) {
+            throw new IOException("Intervalo truncado: esperados " + length + " bytes a partir de " + offset
+                    + ", recebidos " + (position - offset));
+        }
+    }
+
+    private static void await(Future<?> part) throws IOException {
+        try {
+            part.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Download interrompido");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IOException("Falha ao baixar parte do objeto", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package io.github.poupeai.ingestion.service.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+/**
+ * Conteúdo baixado para disco local, que pode ser lido por mapeamento de memória em vez de stream.
+ */
+public interface StagedContent {
+
+    /**
+     * Aguarda o fim do download e mapeia o conteúdo inteiro.
+     *
+     * @return vazio se o conteúdo não cabe em um único mapeamento (acima de 2 GB)
+     */
+    Optional<ByteBuffer> mapFully() throws IOException;
+}
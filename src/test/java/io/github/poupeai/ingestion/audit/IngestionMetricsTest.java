@@ -0,0 +1,74 @@
+package io.github.poupeai.ingestion.audit;
+
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+class IngestionMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ObservationRegistry observationRegistry = ObservationRegistry.create();
+    private final IngestionMetrics metrics;
+
+    IngestionMetricsTest() {
+        observationRegistry.observationConfig().observationHandler(new DefaultMeterObservationHandler(meterRegistry));
+        metrics = new IngestionMetrics(meterRegistry, observationRegistry);
+    }
+
+    @AfterEach
+    void clearMdc() {
+        MDC.clear();
+    }
+
+    @Test
+    void stagesOnOtherThreadsAreTimedByStageWithoutJobIdTags() throws Exception {
+        MDC.put("job.id", "job-123");
+        Observation job = metrics.job().start();
+        try (Observation.Scope ignored = job.openScope();
+             ExecutorService stages = Executors.newVirtualThreadPerTaskExecutor()) {
+            Observation parent = metrics.current();
+            stages.submit(() -> metrics.stage(IngestionMetrics.PARSE, parent).observe(
+                    () -> metrics.event(log, "STATEMENT_PARSED", "Extrato parseado."))).get();
+            job.lowCardinalityKeyValue("result", "completed");
+        } finally {
+            job.stop();
+        }
+
+        assertThat(meterRegistry.get("ingestion.job").tag("result", "completed").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("ingestion.stage").tag("stage", "parse").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("ingestion.stage.statement.parsed").tag("stage", "parse").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.getMeters()).flatExtracting(meter -> meter.getId().getTags())
+                .noneMatch(tag -> tag.getValue().equals("job-123"));
+    }
+
+    @Test
+    void recordsThroughputAndCategorizationSources() {
+        metrics.parsed("OFX_SGML", 2000, 500_000_000L);
+        metrics.categorized("rule", 3);
+        metrics.categorized("ai", 0);
+        metrics.waited(IngestionMetrics.CATEGORIZE, 1_000_000, 0);
+        metrics.downloaded(IngestionMetrics.STREAM_ACCESS, 4096, 2_000_000);
+        metrics.downloaded(IngestionMetrics.MAPPED_ACCESS, 4096, 5_000_000);
+
+        assertThat(meterRegistry.get("ingestion.parse.rows").tag("format", "ofx_sgml").counter().count()).isEqualTo(2000);
+        assertThat(meterRegistry.get("ingestion.parse.throughput").summary().max()).isEqualTo(4000);
+        assertThat(meterRegistry.get("ingestion.categorized.rows").tag("source", "rule").counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.find("ingestion.categorized.rows").tag("source", "ai").meters()).isEmpty();
+        assertThat(meterRegistry.get("ingestion.stage.wait").tag("queue", "input").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("ingestion.download.read").tag("access", "stream").timer().totalTime(TimeUnit.MILLISECONDS)).isEqualTo(2);
+        assertThat(meterRegistry.get("ingestion.download.read").tag("access", "mapped").timer().totalTime(TimeUnit.MILLISECONDS)).isEqualTo(5);
+        assertThat(meterRegistry.get("ingestion.download.bytes").summary().count()).isEqualTo(2);
+    }
+}
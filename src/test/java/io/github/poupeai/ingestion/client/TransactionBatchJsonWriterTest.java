@@ -0,0 +1,127 @@
+package io.github.poupeai.ingestion.client;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.luben.zstd.ZstdInputStream;
+import io.github.poupeai.ingestion.client.dto.CreateTransactionRequest;
+import io.github.poupeai.ingestion.config.RabbitMQConfig;
+import io.github.poupeai.ingestion.domain.model.BankTransaction;
+import io.github.poupeai.ingestion.domain.model.IngestionJobContext;
+import io.github.poupeai.ingestion.domain.model.PersistenceTarget;
+import io.github.poupeai.ingestion.domain.model.TransactionBatch;
+import io.github.poupeai.ingestion.service.TransactionPersistenceService;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionBatchJsonWriterTest {
+
+    private static final String CATEGORY = "3F2504E0-4F89-11D3-9A0C-0305E82C3301";
+
+    private final ObjectMapper objectMapper = new RabbitMQConfig().objectMapper();
+    private final PersistenceTarget target = PersistenceTarget.from(new IngestionJobContext(
+            "job", UUID.randomUUID().toString(), UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(), UUID.randomUUID().toString()));
+
+    @Test
+    void writesSameJsonAsJacksonSerializingTheRequestDtos() throws IOException {
+        TransactionBatch batch = TransactionBatch.of(List.of(
+                tx("F1", "-25.90", "UBER", CATEGORY, LocalDateTime.of(2024, 1, 5, 12, 0)),
+                tx("F2", "150", "SALARIO", null, LocalDateTime.of(2024, 2, 29, 0, 0)),
+                tx(null, "3500.5", "UBER", null, LocalDateTime.of(1999, 12, 31, 23, 59)),
+                tx("F4", "-0.01", "TARIFA \"PACOTE\"", CATEGORY.toLowerCase(), LocalDateTime.of(2024, 1, 5, 0, 0)),
+                tx("F5", "-1.005", "CÂMBIO", null, LocalDateTime.of(2024, 1, 6, 0, 0)),
+                tx("F6", "92233720368547758.07", "GRANDE", null, LocalDateTime.of(2024, 1, 7, 0, 0))));
+
+        StringWriter columnar = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(columnar)) {
+            new TransactionBatchJsonWriter(objectMapper).write(generator, batch, target);
+        }
+        String fromDtos = objectMapper.writeValueAsString(
+                new TransactionPersistenceService(null, null).toCreateRequests(batch, target));
+
+        assertThat(columnar.toString()).isEqualTo(fromDtos);
+        assertThat(fromDtos).contains("\"amount\":25.90,", "\"amount\":150,", "\"amount\":3500.5,", "\"amount\":1.005,",
+                "\"category_id\":\"" + CATEGORY.toLowerCase() + "\"", "\"date\":\"2024-02-29\"");
+    }
+
+    @Test
+    void encodesRepeatedDescriptionsAndCategoriesOncePerBatch() {
+        TransactionBatch batch = TransactionBatch.of(List.of(
+                tx("F1", "-10.00", "UBER", CATEGORY, LocalDateTime.of(2024, 1, 5, 12, 0)),
+                tx("F2", "-12.00", "UBER", CATEGORY, LocalDateTime.of(2024, 1, 6, 12, 0)),
+                tx(null, "-8.00", "PADARIA", null, LocalDateTime.of(2024, 1, 7, 12, 0))));
+
+        assertThat(batch.description(0)).isSameAs(batch.description(1));
+        assertThat(batch.categoryCount()).isEqualTo(1);
+        assertThat(batch.categoryId(2)).isEqualTo(-1);
+        assertThat(batch.absoluteCents(1)).isEqualTo(1200);
+        assertThat(batch.fitIds()).containsExactly("F1", "F2");
+    }
+
+    @Test
+    void columnarFormatCarriesSameRowsThroughEveryCompression() throws IOException {
+        TransactionBatch batch = TransactionBatch.of(List.of(
+                tx("F1", "-25.90", "UBER", CATEGORY, LocalDateTime.of(2024, 1, 5, 12, 0)),
+                tx(null, "150", "SALARIO", null, LocalDateTime.of(2024, 2, 29, 0, 0))));
+        List<CreateTransactionRequest> expected = new TransactionPersistenceService(null, null).toCreateRequests(batch, target);
+
+        for (WireCompression compression : WireCompression.values()) {
+            ByteArrayOutputStream wire = new ByteArrayOutputStream();
+            try (OutputStream body = compression.wrap(wire);
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(body)) {
+                new TransactionBatchJsonWriter(objectMapper).writeColumnar(generator, batch, target);
+            }
+
+            JsonNode root = objectMapper.readTree(decompress(compression, wire.toByteArray()));
+            assertThat(root.get("profile_id").asText()).isEqualTo(expected.get(0).profileId().toString());
+            assertThat(root.get("bank_account_id").asText()).isEqualTo(expected.get(0).bankAccountId().toString());
+            assertThat(objectMapper.convertValue(root.get("columns"), String[].class))
+                    .containsExactly("description", "amount", "type", "date", "category_id", "original_statement_id");
+            assertThat(root.get("rows")).hasSize(2);
+            for (int row = 0; row < expected.size(); row++) {
+                JsonNode values = root.get("rows").get(row);
+                CreateTransactionRequest request = expected.get(row);
+                assertThat(values.get(0).asText()).isEqualTo(request.description());
+                assertThat(values.get(1).decimalValue()).isEqualByComparingTo(request.amount());
+                assertThat(values.get(2).asText()).isEqualTo(request.type().name());
+                assertThat(values.get(3).asText()).isEqualTo(request.date().toString());
+                assertThat(values.get(4).textValue()).isEqualTo(Objects.toString(request.categoryId(), null));
+                assertThat(values.get(5).textValue()).isEqualTo(request.originalStatementId());
+            }
+        }
+    }
+
+    private static InputStream decompress(WireCompression compression, byte[] body) throws IOException {
+        InputStream in = new ByteArrayInputStream(body);
+        return switch (compression) {
+            case NONE -> in;
+            case GZIP -> new GZIPInputStream(in);
+            case ZSTD -> new ZstdInputStream(in);
+        };
+    }
+
+    private static BankTransaction tx(String fitId, String amount, String description, String categoryId, LocalDateTime date) {
+        return BankTransaction.builder()
+                .fitId(fitId)
+                .amount(new BigDecimal(amount))
+                .description(description)
+                .categoryId(categoryId)
+                .date(date)
+                .build();
+    }
+}
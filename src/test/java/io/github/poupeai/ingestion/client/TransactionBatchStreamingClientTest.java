@@ -0,0 +1,141 @@
+package io.github.poupeai.ingestion.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import feign.RequestInterceptor;
+import io.github.poupeai.ingestion.client.bulkhead.Bulkhead;
+import io.github.poupeai.ingestion.config.RabbitMQConfig;
+import io.github.poupeai.ingestion.domain.exception.DownstreamServiceException;
+import io.github.poupeai.ingestion.domain.model.BankTransaction;
+import io.github.poupeai.ingestion.domain.model.IngestionJobContext;
+import io.github.poupeai.ingestion.domain.model.PersistenceTarget;
+import io.github.poupeai.ingestion.domain.model.TransactionBatch;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.openfeign.FeignClientFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TransactionBatchStreamingClientTest {
+
+    private final ObjectMapper objectMapper = new RabbitMQConfig().objectMapper();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final PersistenceTarget target = PersistenceTarget.from(new IngestionJobContext(
+            "job", UUID.randomUUID().toString(), UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(), UUID.randomUUID().toString()));
+    private final TransactionBatch batch = TransactionBatch.of(List.of(BankTransaction.builder()
+            .fitId("F1")
+            .date(LocalDateTime.of(2024, 1, 5, 12, 0))
+            .amount(new BigDecimal("-25.90"))
+            .description("UBER")
+            .build()));
+
+    private final Queue<Integer> responses = new ConcurrentLinkedQueue<>();
+    private final Queue<Received> received = new ConcurrentLinkedQueue<>();
+    private HttpServer server;
+    private Bulkhead bulkhead;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext(TransactionBatchStreamingClient.BATCH_PATH, exchange -> {
+            String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+            byte[] body;
+            try (InputStream in = "gzip".equals(encoding) ? new GZIPInputStream(exchange.getRequestBody()) : exchange.getRequestBody()) {
+                body = in.readAllBytes();
+            }
+            received.add(new Received(exchange.getRequestHeaders().getFirst("Content-Type"),
+                    exchange.getRequestHeaders().getFirst("x-api-key"), objectMapper.readTree(body)));
+            Integer code = responses.poll();
+            exchange.sendResponseHeaders(code != null ? code : 201, -1);
+            exchange.close();
+        });
+        server.start();
+        bulkhead = new Bulkhead("core-service", new Bulkhead.Settings(4, Duration.ofSeconds(1), Duration.ofSeconds(5),
+                2, 1, 4, Duration.ofSeconds(5), 4, Duration.ofSeconds(1)), registry);
+    }
+
+    @AfterEach
+    void stop() {
+        bulkhead.close();
+        server.stop(0);
+    }
+
+    @Test
+    void streamsBatchWithFeignInterceptorsAndRecordsOwnMeter() {
+        client(WireFormat.JSON, WireCompression.NONE).createTransactionsBatch(batch, target);
+
+        Received request = received.poll();
+        assertThat(request.apiKey()).isEqualTo("secret");
+        assertThat(request.contentType()).startsWith("application/json");
+        assertThat(request.body().get(0).get("original_statement_id").asText()).isEqualTo("F1");
+        assertThat(registry.get("transactions.batch.requests")
+                .tag("status", "201").tag("outcome", "SUCCESS").tag("exception", "none").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void fallsBackToPlainJsonWhenCoreRejectsWireFormat() {
+        responses.add(415);
+        TransactionBatchStreamingClient client = client(WireFormat.COLUMNAR_JSON, WireCompression.GZIP);
+
+        client.createTransactionsBatch(batch, target);
+
+        assertThat(received).extracting(Received::contentType)
+                .satisfiesExactly(
+                        type -> assertThat(type).startsWith(WireFormat.COLUMNAR_JSON.mimeType()),
+                        type -> assertThat(type).startsWith("application/json"));
+    }
+
+    @Test
+    void surfacesErrorStatusAsDownstreamFailure() {
+        responses.add(500);
+
+        assertThatThrownBy(() -> client(WireFormat.JSON, WireCompression.NONE).createTransactionsBatch(batch, target))
+                .isInstanceOf(DownstreamServiceException.class);
+        assertThat(registry.get("transactions.batch.requests").tag("outcome", "SERVER_ERROR").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void entityContentMatchesStreamedBody() throws IOException {
+        var entity = client(WireFormat.JSON, WireCompression.NONE).entity(batch, target, WireFormat.JSON, WireCompression.NONE);
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        entity.writeTo(streamed);
+
+        try (InputStream content = entity.getContent()) {
+            assertThat(content.readAllBytes()).isEqualTo(streamed.toByteArray());
+        }
+    }
+
+    private TransactionBatchStreamingClient client(WireFormat format, WireCompression compression) {
+        RequestInterceptor apiKey = template -> template.header("x-api-key", "secret");
+        FeignClientFactory feignClientFactory = new FeignClientFactory() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> Map<String, T> getInstances(String name, Class<T> type) {
+                return (Map<String, T>) Map.of("apiKey", apiKey);
+            }
+        };
+        return new TransactionBatchStreamingClient(bulkhead, feignClientFactory, objectMapper, registry,
+                "http://127.0.0.1:" + server.getAddress().getPort(), format, compression);
+    }
+
+    private record Received(String contentType, String apiKey, JsonNode body) { }
+}
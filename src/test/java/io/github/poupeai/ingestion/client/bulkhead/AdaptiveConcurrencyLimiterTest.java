@@ -0,0 +1,76 @@
+package io.github.poupeai.ingestion.client.bulkhead;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+    private static final long SLOW = Duration.ofSeconds(5).toNanos();
+
+    @Test
+    void growsAdditivelyWhileFastAndShrinksMultiplicativelyWhenSlowOrOverloaded() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 0, Duration.ZERO);
+
+        for (int i = 0; i < 4; i++) limiter.acquire();
+        limiter.release(FAST, false);
+        limiter.release(FAST, false);
+        assertThat(limiter.limit()).isEqualTo(6);
+
+        // com menos da metade dos slots em uso, o limite não cresce
+        limiter.release(FAST, false);
+        assertThat(limiter.limit()).isEqualTo(6);
+
+        limiter.release(SLOW, false);
+        assertThat(limiter.limit()).isEqualTo(5);
+        for (int i = 0; i < 50; i++) {
+            limiter.acquire();
+            limiter.release(FAST, true);
+        }
+        assertThat(limiter.limit()).isEqualTo(1);
+        assertThat(limiter.inFlight()).isZero();
+    }
+
+    @Test
+    void queuesBrieflyThenShedsWhenLimitIsReached() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1, Duration.ofSeconds(5));
+        limiter.acquire();
+
+        CompletableFuture<Void> waiting = CompletableFuture.runAsync(() -> {
+            try {
+                limiter.acquire();
+            } catch (ConcurrencyLimitExceededException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (limiter.queued() == 0) Thread.sleep(1);
+
+        assertThatThrownBy(limiter::acquire).isInstanceOf(ConcurrencyLimitExceededException.class);
+        assertThat(limiter.rejected()).isEqualTo(1);
+
+        limiter.release(FAST, false);
+        waiting.get(5, TimeUnit.SECONDS);
+        assertThat(limiter.inFlight()).isEqualTo(1);
+        assertThat(limiter.queued()).isZero();
+    }
+
+    @Test
+    void rejectsQueuedCallAfterQueueTimeout() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1, Duration.ofMillis(20));
+        limiter.acquire();
+
+        assertThatThrownBy(limiter::acquire).isInstanceOf(ConcurrencyLimitExceededException.class);
+        assertThat(limiter.rejected()).isEqualTo(1);
+        assertThat(limiter.queued()).isZero();
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter(int initial, int maxQueued, Duration queueTimeout) {
+        return new AdaptiveConcurrencyLimiter(initial, 1, 32, Duration.ofSeconds(1), maxQueued, queueTimeout);
+    }
+}
@@ -0,0 +1,127 @@
+package io.github.poupeai.ingestion.listener;
+
+import io.github.poupeai.ingestion.domain.event.IngestionEvent;
+import io.github.poupeai.ingestion.domain.event.IngestionJobPayload;
+import io.github.poupeai.ingestion.domain.exception.StorageException;
+import io.github.poupeai.ingestion.service.StorageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IngestionLaneRouterTest {
+
+    private final Map<String, Long> sizes = Map.of("u1/pessoal.ofx", 12_000L, "u2/empresa.ofx", 300_000_000L);
+    private final List<String> statted = new ArrayList<>();
+    private final ForwardingTemplate template = new ForwardingTemplate();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final IngestionLaneRouter router = new IngestionLaneRouter(new SizedStorage(), template, registry,
+            "ingestion_jobs", DataSize.ofMegabytes(1), Duration.ofSeconds(1));
+
+    @Test
+    void routesBySizeHintOrObjectSizeAndForwardsMessageWithSize() {
+        assertThat(router.route(event("u1/pessoal.ofx", null), message())).isCompleted();
+        assertThat(router.route(event("u2/empresa.ofx", null), message())).isCompleted();
+        assertThat(router.route(event("u2/empresa.ofx", 500L), message())).isCompleted();
+
+        assertThat(template.queues).containsExactly("ingestion_jobs.small", "ingestion_jobs.large", "ingestion_jobs.small");
+        assertThat(template.messages).allSatisfy(forwarded -> {
+            assertThat(forwarded.getBody()).isEqualTo("{}".getBytes());
+            assertThat(forwarded.getMessageProperties().<Integer>getHeader("x-ingestion-attempt")).isEqualTo(2);
+        });
+        assertThat(template.messages).extracting(forwarded -> forwarded.getMessageProperties().<Long>getHeader(IngestionLaneRouter.FILE_SIZE_HEADER))
+                .containsExactly(12_000L, 300_000_000L, 500L);
+        assertThat(statted).containsExactly("u1/pessoal.ofx", "u2/empresa.ofx");
+        assertThat(registry.get("ingestion.lane.routed").tag("lane", "small").tag("source", "hint").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void unknownSizeGoesToLargeLane() {
+        Message message = message();
+
+        assertThat(router.route(event("u3/sumiu.ofx", null), message)).isCompleted();
+
+        assertThat(template.queues).containsExactly("ingestion_jobs.large");
+        assertThat(message.getMessageProperties().<Long>getHeader(IngestionLaneRouter.FILE_SIZE_HEADER)).isNull();
+        assertThat(registry.get("ingestion.lane.routed").tag("source", "unknown").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void acksOnlyWhenBrokerConfirmsWithoutHoldingTheConsumer() {
+        template.confirmImmediately = false;
+
+        CompletableFuture<Void> confirmed = router.route(event("u1/pessoal.ofx", 1L), message());
+        CompletableFuture<Void> refused = router.route(event("u1/pessoal.ofx", 1L), message());
+
+        assertThat(confirmed).isNotDone();
+        assertThat(refused).isNotDone();
+        template.pending.get(0).getFuture().complete(new CorrelationData.Confirm(true, null));
+        template.pending.get(1).getFuture().complete(new CorrelationData.Confirm(false, "queue full"));
+
+        assertThat(confirmed).isCompleted();
+        assertThatThrownBy(refused::join).hasCauseInstanceOf(AmqpException.class).hasMessageContaining("queue full");
+    }
+
+    private static Message message() {
+        MessageProperties properties = new MessageProperties();
+        properties.setHeader("x-ingestion-attempt", 2);
+        return new Message("{}".getBytes(), properties);
+    }
+
+    private static IngestionEvent event(String fileKey, Long fileSize) {
+        return new IngestionEvent("m1", null, "UPLOAD", "INGESTION_REQUESTED",
+                new IngestionJobPayload("job-1", fileKey, new IngestionJobPayload.ProfileInfo("p1", "User", "u1@poupe.ai"),
+                        new IngestionJobPayload.AccountInfo("a1", "Conta"), null, null, fileSize));
+    }
+
+    private final class SizedStorage implements StorageService {
+        @Override
+        public InputStream downloadFile(String fileKey) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long sizeOf(String fileKey) {
+            statted.add(fileKey);
+            Long size = sizes.get(fileKey);
+            if (size == null) throw new StorageException("NoSuchKey: " + fileKey);
+            return size;
+        }
+    }
+
+    /**
+     * Guarda a fila de destino e confirma cada encaminhamento na hora ou, com {@code confirmImmediately = false},
+     * deixa o confirm para o teste.
+     */
+    private static final class ForwardingTemplate extends RabbitTemplate {
+        private final List<String> queues = new ArrayList<>();
+        private final List<Message> messages = new ArrayList<>();
+        private final List<CorrelationData> pending = new ArrayList<>();
+        private boolean confirmImmediately = true;
+
+        @Override
+        public void send(String exchange, String routingKey, Message message, CorrelationData correlation) {
+            queues.add(routingKey);
+            messages.add(message);
+            if (confirmImmediately) {
+                correlation.getFuture().complete(new CorrelationData.Confirm(true, null));
+            } else {
+                pending.add(correlation);
+            }
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package io.github.poupeai.ingestion.listener;
+
+import io.github.poupeai.ingestion.audit.IngestionMetrics;
+import io.github.poupeai.ingestion.domain.event.IngestionEvent;
+import io.github.poupeai.ingestion.domain.event.IngestionJobPayload;
+import io.github.poupeai.ingestion.domain.exception.OfxParseException;
+import io.github.poupeai.ingestion.domain.exception.StorageException;
+import io.github.poupeai.ingestion.domain.model.IngestionJobContext;
+import io.github.poupeai.ingestion.service.NotificationProducer;
+import io.github.poupeai.ingestion.service.StorageService;
+import io.github.poupeai.ingestion.service.checkpoint.CheckpointStore;
+import io.github.poupeai.ingestion.service.checkpoint.JobCheckpoint;
+import io.github.poupeai.ingestion.service.pipeline.IngestionPipeline;
+import io.github.poupeai.ingestion.service.pipeline.IngestionProgress;
+import io.github.poupeai.ingestion.service.pipeline.IngestionResult;
+import io.github.poupeai.ingestion.service.retry.IngestionRetryScheduler;
+import io.github.poupeai.ingestion.service.retry.RetryTopology;
+import io.github.poupeai.ingestion.service.status.JobStatusPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IngestionListenerTest {
+
+    private static final String JOB_ID = "job-1";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RetryTopology topology = new RetryTopology("ingestion_jobs", 3, Duration.ofSeconds(30), 4, Duration.ofMinutes(1));
+    private final RecordingBroker broker = new RecordingBroker();
+    private final RecordingStatusPublisher statusPublisher = new RecordingStatusPublisher(registry);
+    private final RecordingNotifications notifications = new RecordingNotifications();
+    private final RecordingCheckpoints checkpoints = new RecordingCheckpoints();
+    private final InMemoryStorage storage = new InMemoryStorage();
+    private final ProfileOrderedJobExecutor jobExecutor = new ProfileOrderedJobExecutor(2, 1, registry);
+
+    private volatile Exception failure;
+
+    private final IngestionListener listener = new IngestionListener(
+            storage,
+            new FailingPipeline(),
+            statusPublisher,
+            notifications,
+            jobExecutor,
+            checkpoints,
+            new IngestionMetrics(registry, ObservationRegistry.create()),
+            new IngestionRetryScheduler(broker, topology, registry, Duration.ofSeconds(1)));
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        jobExecutor.destroy();
+        statusPublisher.destroy();
+    }
+
+    @Test
+    void keepsCheckpointAndReleasesStatusChannelWhenRetryIsScheduled() {
+        failure = new StorageException("download", new SocketTimeoutException("minio"));
+
+        listener.handleSmallLane(event(), null, null).join();
+
+        assertThat(broker.queues).containsExactly("ingestion_jobs.retry.30000");
+        assertThat(statusPublisher.statuses).last().isEqualTo("PROCESSING");
+        assertThat(statusPublisher.released).containsExactly(JOB_ID);
+        assertThat(checkpoints.discarded).isEmpty();
+        assertThat(notifications.errors).isEmpty();
+    }
+
+    @Test
+    void discardsCheckpointWhenFailureIsDefinitive() {
+        failure = new OfxParseException("OFX sem STMTTRN");
+
+        listener.handleSmallLane(event(), null, null).join();
+
+        assertThat(broker.queues).isEmpty();
+        assertThat(statusPublisher.statuses).last().isEqualTo("FAILED");
+        assertThat(checkpoints.discarded).containsExactly(JOB_ID);
+        assertThat(notifications.errors).containsExactly("INTERNAL_ERROR");
+    }
+
+    @Test
+    void parksJobAfterLastAttemptKeepingCheckpoint() {
+        failure = new StorageException("download", new SocketTimeoutException("minio"));
+
+        listener.handleLargeLane(event(), topology.maxAttempts(), 300_000_000L).join();
+
+        assertThat(storage.knownSizes).containsExactly(300_000_000L);
+        assertThat(broker.queues).containsExactly("ingestion_jobs.parking");
+        assertThat(statusPublisher.statuses).last().isEqualTo("FAILED");
+        assertThat(statusPublisher.released).isEmpty();
+        assertThat(checkpoints.discarded).isEmpty();
+        assertThat(notifications.errors).containsExactly("INTERNAL_ERROR");
+    }
+
+    @Test
+    void rejectsDeliveryWhenBrokerDoesNotConfirmRepublish() {
+        failure = new StorageException("download", new SocketTimeoutException("minio"));
+        broker.confirm = false;
+
+        CompletableFuture<Void> delivery = listener.handleSmallLane(event(), null, null);
+
+        assertThatThrownBy(delivery::join).hasCauseInstanceOf(AmqpException.class);
+        assertThat(broker.queues).containsExactly("ingestion_jobs.retry.30000", "ingestion_jobs.parking");
+        assertThat(statusPublisher.statuses).last().isEqualTo("FAILED");
+        assertThat(checkpoints.discarded).isEmpty();
+    }
+
+    private static IngestionEvent event() {
+        return new IngestionEvent("m1", OffsetDateTime.parse("2024-01-05T12:00:00Z"), "UPLOAD", "INGESTION_REQUESTED",
+                new IngestionJobPayload(JOB_ID, "u1/extrato.ofx", new IngestionJobPayload.ProfileInfo("p1", "User", "u1@poupe.ai"),
+                        new IngestionJobPayload.AccountInfo("a1", "Conta"), null, null, null));
+    }
+
+    private final class FailingPipeline extends IngestionPipeline {
+        private FailingPipeline() {
+            super(null, null, null, null, null, null);
+        }
+
+        @Override
+        public IngestionResult run(InputStream inputStream, IngestionJobContext context,
+                                   Consumer<IngestionProgress> progress) throws Exception {
+            throw failure;
+        }
+    }
+
+    private static final class InMemoryStorage implements StorageService {
+        private final List<Long> knownSizes = new CopyOnWriteArrayList<>();
+
+        @Override
+        public InputStream downloadFile(String fileKey) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        @Override
+        public InputStream downloadFile(String fileKey, long size) {
+            knownSizes.add(size);
+            return downloadFile(fileKey);
+        }
+
+        @Override
+        public long sizeOf(String fileKey) {
+            return 0;
+        }
+    }
+
+    /**
+     * Confirma (ou recusa, com {@code confirm = false}) cada republicação e guarda a fila de destino.
+     */
+    private static final class RecordingBroker extends RabbitTemplate {
+        private final List<String> queues = new CopyOnWriteArrayList<>();
+        private volatile boolean confirm = true;
+
+        @Override
+        public void convertAndSend(String exchange, String routingKey, Object payload,
+                                   MessagePostProcessor postProcessor, CorrelationData correlation) {
+            queues.add(routingKey);
+            correlation.getFuture().complete(new CorrelationData.Confirm(confirm, confirm ? null : "nack"));
+        }
+    }
+
+    private static final class RecordingStatusPublisher extends JobStatusPublisher {
+        private final List<String> statuses = new CopyOnWriteArrayList<>();
+        private final List<String> released = new CopyOnWriteArrayList<>();
+
+        private RecordingStatusPublisher(SimpleMeterRegistry registry) {
+            super(null, registry, Duration.ZERO, 1, Duration.ZERO);
+        }
+
+        @Override
+        public void publish(String jobId, String status, String summary, String errorDetails) {
+            statuses.add(status);
+        }
+
+        @Override
+        public void release(String jobId) {
+            released.add(jobId);
+        }
+    }
+
+    private static final class RecordingNotifications extends NotificationProducer {
+        private final List<String> errors = new CopyOnWriteArrayList<>();
+
+        private RecordingNotifications() {
+            super(null);
+        }
+
+        @Override
+        public void sendError(String userId, String email, String name, String fileName, String accountName,
+                              String errorCode, String errorMessage) {
+            errors.add(errorCode);
+        }
+    }
+
+    private static final class RecordingCheckpoints implements CheckpointStore {
+        private final List<String> discarded = new CopyOnWriteArrayList<>();
+
+        @Override
+        public JobCheckpoint load(String jobId) {
+            return JobCheckpoint.empty();
+        }
+
+        @Override
+        public void commitChunk(String jobId, int chunkSize, int chunkIndex, String bankAccountId, Collection<String> fitIds) {
+        }
+
+        @Override
+        public void discard(String jobId) {
+            discarded.add(jobId);
+        }
+    }
+}
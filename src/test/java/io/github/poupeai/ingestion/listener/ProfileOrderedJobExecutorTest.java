@@ -0,0 +1,126 @@
+package io.github.poupeai.ingestion.listener;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProfileOrderedJobExecutorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ProfileOrderedJobExecutor executor = new ProfileOrderedJobExecutor(4, 1, registry);
+
+    @AfterEach
+    void tearDown() {
+        executor.destroy();
+        MDC.clear();
+    }
+
+    @Test
+    void runsJobsOfSameProfileInSubmissionOrder() {
+        List<Integer> executed = new CopyOnWriteArrayList<>();
+
+        CompletableFuture<?>[] futures = IntStream.range(0, 20)
+                .mapToObj(i -> executor.submit("profile-1", IngestionLane.SMALL, () -> {
+                    if (i % 3 == 0) sleep(5);
+                    executed.add(i);
+                }))
+                .toArray(CompletableFuture[]::new);
+
+        CompletableFuture.allOf(futures).join();
+        assertThat(executed).containsExactlyElementsOf(IntStream.range(0, 20).boxed().toList());
+    }
+
+    @Test
+    void runsDifferentProfilesConcurrentlyUpToLimit() throws Exception {
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+
+        CompletableFuture<Void> first = executor.submit("a", IngestionLane.SMALL, () -> block(started, release, running));
+        CompletableFuture<Void> second = executor.submit("b", IngestionLane.SMALL, () -> block(started, release, running));
+
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(running.get()).isEqualTo(2);
+
+        release.countDown();
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void failedJobDoesNotBlockNextJobOfSameProfile() {
+        CompletableFuture<Void> failing = executor.submit("p", IngestionLane.SMALL, () -> {
+            throw new IllegalStateException("boom");
+        });
+        CompletableFuture<Void> next = executor.submit("p", IngestionLane.SMALL, () -> { });
+
+        assertThat(next).succeedsWithin(5, TimeUnit.SECONDS);
+        assertThat(failing).isCompletedExceptionally();
+    }
+
+    @Test
+    void propagatesMdcToJobThread() {
+        MDC.put("trace.id", "abc");
+        AtomicInteger seen = new AtomicInteger();
+
+        executor.submit("p", IngestionLane.SMALL, () -> {
+            if ("abc".equals(MDC.get("trace.id"))) seen.incrementAndGet();
+        }).join();
+
+        assertThat(seen.get()).isEqualTo(1);
+    }
+
+    @Test
+    void saturatedLargeLaneDoesNotDelaySmallJobs() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+
+        CompletableFuture<Void> large = executor.submit("corporate", IngestionLane.LARGE, () -> block(started, release, running));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Void> queuedLarge = executor.submit("corporate-2", IngestionLane.LARGE, () -> { });
+        while (gauge("ingestion.lane.waiting", "large") == 0) Thread.sleep(1);
+
+        CompletableFuture<Void> small = executor.submit("personal", IngestionLane.SMALL, () -> { });
+        assertThat(small).succeedsWithin(5, TimeUnit.SECONDS);
+        assertThat(queuedLarge).isNotDone();
+        assertThat(gauge("ingestion.lane.active", "large")).isEqualTo(1);
+        assertThat(registry.get("ingestion.lane.latency").tag("lane", "small").timer().count()).isEqualTo(1);
+
+        release.countDown();
+        CompletableFuture.allOf(large, queuedLarge).get(5, TimeUnit.SECONDS);
+        assertThat(gauge("ingestion.lane.active", "large")).isZero();
+    }
+
+    private double gauge(String name, String lane) {
+        return registry.get(name).tag("lane", lane).gauge().value();
+    }
+
+    private static void block(CountDownLatch started, CountDownLatch release, AtomicInteger running) {
+        running.incrementAndGet();
+        started.countDown();
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package io.github.poupeai.ingestion.service.categorization;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AhoCorasickMatcherTest {
+
+    private final AhoCorasickMatcher<String> matcher = new AhoCorasickMatcher<>(Map.of(
+            "RENDIMENTO", "investimento",
+            "RENDIMENTO POUPANCA", "poupanca",
+            "IOF", "imposto"));
+
+    @Test
+    void prefersLongestPatternFound() {
+        assertThat(matcher.findLongest("CREDITO RENDIMENTO POUPANCA 05/2024")).isEqualTo("poupanca");
+        assertThat(matcher.findLongest("RENDIMENTO CDB")).isEqualTo("investimento");
+    }
+
+    @Test
+    void matchesWholeWordsOnly() {
+        assertThat(matcher.findLongest("IOF COMPRA EXTERIOR")).isEqualTo("imposto");
+        assertThat(matcher.findLongest("RADIOFARMACIA")).isNull();
+        assertThat(matcher.findLongest("RENDIMENTOS")).isNull();
+    }
+
+    @Test
+    void returnsNullWithoutAnyPattern() {
+        assertThat(matcher.findLongest("PADARIA")).isNull();
+        assertThat(new AhoCorasickMatcher<String>(Map.of()).findLongest("IOF")).isNull();
+    }
+}
@@ -0,0 +1,53 @@
+package io.github.poupeai.ingestion.service.categorization;
+
+import io.github.poupeai.ingestion.dto.CategoryDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CategorizationCacheTest {
+
+    private static final List<CategoryDTO> CATEGORIES = List.of(
+            new CategoryDTO("mercado", "Mercado", "EXPENSE"),
+            new CategoryDTO("transporte", "Transporte", "EXPENSE"));
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CategorizationCache cache = new CategorizationCache(1_000, Duration.ofDays(30), registry);
+
+    @Test
+    void returnsPredictionsByOriginalDescriptionMatchingOnNormalizedForm() {
+        String fingerprint = CategorizationCache.fingerprint(CATEGORIES);
+        cache.putAll("p1", fingerprint, Map.of("Uber *Trip", "transporte"));
+
+        Map<String, String> hits = cache.getAll("p1", fingerprint, List.of("UBER  *TRIP", "PADARIA"));
+
+        assertThat(hits).containsExactly(Map.entry("UBER  *TRIP", "transporte"));
+        assertThat(registry.get("cache.gets").tag("cache", "categorization.predictions").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void predictionsAreScopedByProfileAndCategorySet() {
+        String fingerprint = CategorizationCache.fingerprint(CATEGORIES);
+        cache.putAll("p1", fingerprint, Map.of("UBER", "transporte"));
+
+        String changed = CategorizationCache.fingerprint(List.of(new CategoryDTO("mobilidade", "Mobilidade", "EXPENSE")));
+
+        assertThat(cache.getAll("p2", fingerprint, List.of("UBER"))).isEmpty();
+        assertThat(cache.getAll("p1", changed, List.of("UBER"))).isEmpty();
+        assertThat(cache.getAll("p1", fingerprint, List.of("UBER"))).containsEntry("UBER", "transporte");
+    }
+
+    @Test
+    void fingerprintIgnoresCategoryOrder() {
+        assertThat(CategorizationCache.fingerprint(CATEGORIES))
+                .isEqualTo(CategorizationCache.fingerprint(List.of(CATEGORIES.get(1), CATEGORIES.get(0))))
+                .isNotEqualTo(CategorizationCache.fingerprint(List.of(new CategoryDTO("mercado", "Supermercado", "EXPENSE"),
+                        CATEGORIES.get(1))));
+    }
+}
@@ -0,0 +1,140 @@
+package io.github.poupeai.ingestion.service.categorization;
+
+import feign.FeignException;
+import feign.Request;
+import feign.Response;
+import io.github.poupeai.ingestion.client.CoreServiceClient;
+import io.github.poupeai.ingestion.client.dto.CreateTransactionRequest;
+import io.github.poupeai.ingestion.client.dto.ExistingTransaction;
+import io.github.poupeai.ingestion.client.dto.TransactionLookupRequest;
+import io.github.poupeai.ingestion.client.dto.UpdateIngestionJobRequest;
+import io.github.poupeai.ingestion.dto.CategoryDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CategoryListCacheTest {
+
+    private static final List<CategoryDTO> V1 = List.of(new CategoryDTO("mercado", "Mercado", "EXPENSE"));
+    private static final List<CategoryDTO> V2 = List.of(new CategoryDTO("mercado", "Mercado", "EXPENSE"),
+            new CategoryDTO("transporte", "Transporte", "EXPENSE"));
+
+    private final StubCoreClient core = new StubCoreClient();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CategoryListCache cache = new CategoryListCache(core, registry, 100, Duration.ofMillis(1), Duration.ofHours(1));
+
+    @AfterEach
+    void stop() {
+        cache.destroy();
+    }
+
+    @Test
+    void keepsCurrentListWhenRevalidationReturnsNotModified() throws InterruptedException {
+        core.responses.add(ok(V1, "\"v1\""));
+        core.responses.add(notModified());
+
+        assertThat(cache.get("p1")).isEqualTo(V1);
+        refreshUntil(() -> revalidations("not_modified") >= 1);
+
+        assertThat(cache.get("p1")).isEqualTo(V1);
+        assertThat(core.ifNoneMatch).startsWith(null, "\"v1\"");
+        assertThat(revalidations("modified")).isZero();
+    }
+
+    @Test
+    void replacesListAndEtagWhenRevalidationReturnsNewVersion() throws InterruptedException {
+        core.responses.add(ok(V1, "\"v1\""));
+        core.responses.add(ok(V2, "\"v2\""));
+        core.responses.add(notModified());
+
+        assertThat(cache.get("p1")).isEqualTo(V1);
+        refreshUntil(() -> revalidations("not_modified") >= 1);
+
+        assertThat(cache.get("p1")).isEqualTo(V2);
+        assertThat(core.ifNoneMatch).startsWith(null, "\"v1\"", "\"v2\"");
+        assertThat(revalidations("modified")).isEqualTo(1);
+    }
+
+    @Test
+    void stopsRevalidatingAfterDestroy() throws InterruptedException {
+        core.responses.add(ok(V1, "\"v1\""));
+
+        assertThat(cache.get("p1")).isEqualTo(V1);
+        cache.destroy();
+        Thread.sleep(10);
+
+        assertThat(cache.get("p1")).isEqualTo(V1);
+        Thread.sleep(50);
+        assertThat(core.ifNoneMatch).hasSize(1);
+    }
+
+    /**
+     * Lê a entrada até a revalidação em segundo plano chegar ao estado esperado.
+     */
+    private void refreshUntil(BooleanSupplier done) throws InterruptedException {
+        for (int i = 0; i < 500 && !done.getAsBoolean(); i++) {
+            Thread.sleep(5);
+            cache.get("p1");
+        }
+        assertThat(done.getAsBoolean()).isTrue();
+    }
+
+    private double revalidations(String result) {
+        return registry.get("categories.revalidations").tag("result", result).counter().count();
+    }
+
+    private static ResponseEntity<List<CategoryDTO>> ok(List<CategoryDTO> categories, String etag) {
+        return ResponseEntity.ok().eTag(etag).body(categories);
+    }
+
+    private static FeignException notModified() {
+        Request request = Request.create(Request.HttpMethod.GET, "/api/internal/categories", Map.of(), null,
+                StandardCharsets.UTF_8, null);
+        return FeignException.errorStatus("CoreServiceClient#getCategories",
+                Response.builder().status(304).reason("Not Modified").request(request).headers(Map.of()).build());
+    }
+
+    /**
+     * Responde na ordem enfileirada e, depois da última resposta, repete 304.
+     */
+    private static final class StubCoreClient implements CoreServiceClient {
+        private final ConcurrentLinkedQueue<Object> responses = new ConcurrentLinkedQueue<>();
+        private final List<String> ifNoneMatch = new CopyOnWriteArrayList<>();
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public ResponseEntity<List<CategoryDTO>> getCategories(String profileId, String ifNoneMatch) {
+            this.ifNoneMatch.add(ifNoneMatch);
+            Object response = responses.poll();
+            if (response == null) response = notModified();
+            if (response instanceof RuntimeException e) throw e;
+            return (ResponseEntity<List<CategoryDTO>>) response;
+        }
+
+        @Override
+        public void createTransactionsBatch(List<CreateTransactionRequest> transactions) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void updateStatus(String id, UpdateIngestionJobRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<ExistingTransaction> lookupTransactions(TransactionLookupRequest request) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
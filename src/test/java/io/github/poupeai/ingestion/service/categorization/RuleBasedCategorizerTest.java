@@ -0,0 +1,72 @@
+package io.github.poupeai.ingestion.service.categorization;
+
+import io.github.poupeai.ingestion.domain.model.BankTransaction;
+import io.github.poupeai.ingestion.dto.CategoryDTO;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RuleBasedCategorizerTest {
+
+    private static final List<CategoryDTO> CATEGORIES = List.of(
+            new CategoryDTO("mercado", "Mercado", "EXPENSE"),
+            new CategoryDTO("tarifas", "Tarifas bancárias", "EXPENSE"),
+            new CategoryDTO("salario-receita", "Salário", "INCOME"),
+            new CategoryDTO("salario-despesa", "Salário", "EXPENSE"));
+
+    private final RuleBasedCategorizer categorizer = new RuleBasedCategorizer(List.of(
+            "TARIFA=Tarifas bancárias", "SALARIO=Salário", "RENDIMENTO=Investimentos"));
+
+    @Test
+    void categoryNameOnlyMatchesWholeDescription() {
+        BankTransaction exact = tx("mercado", "-50.00");
+        BankTransaction marketplace = tx("MERCADO LIVRE ESTORNO", "80.00");
+
+        int matched = categorizer.apply(List.of(exact, marketplace), CATEGORIES, "fp");
+
+        assertThat(matched).isEqualTo(1);
+        assertThat(exact.getCategoryId()).isEqualTo("mercado");
+        assertThat(marketplace.getCategoryId()).isNull();
+    }
+
+    @Test
+    void keywordRulesMatchInsideDescription() {
+        BankTransaction fee = tx("TARIFA PACOTE SERVICOS", "-35.00");
+
+        categorizer.apply(List.of(fee), CATEGORIES, "fp");
+
+        assertThat(fee.getCategoryId()).isEqualTo("tarifas");
+    }
+
+    @Test
+    void picksCategoryOfTransactionType() {
+        BankTransaction income = tx("CREDITO SALARIO EMPRESA", "5000.00");
+        BankTransaction expense = tx("SALARIO", "-1200.00");
+
+        categorizer.apply(List.of(income, expense), CATEGORIES, "fp");
+
+        assertThat(income.getCategoryId()).isEqualTo("salario-receita");
+        assertThat(expense.getCategoryId()).isEqualTo("salario-despesa");
+    }
+
+    @Test
+    void ignoresRulesForMissingCategoriesAndAlreadyCategorizedTransactions() {
+        BankTransaction yield = tx("RENDIMENTO CDB", "12.00");
+        BankTransaction categorized = tx("TARIFA", "-10.00");
+        categorized.setCategoryId("manual");
+
+        assertThat(categorizer.apply(List.of(yield, categorized), CATEGORIES, "fp")).isZero();
+        assertThat(yield.getCategoryId()).isNull();
+        assertThat(categorized.getCategoryId()).isEqualTo("manual");
+    }
+
+    private static BankTransaction tx(String description, String amount) {
+        return BankTransaction.builder()
+                .description(description)
+                .amount(new BigDecimal(amount))
+                .build();
+    }
+}
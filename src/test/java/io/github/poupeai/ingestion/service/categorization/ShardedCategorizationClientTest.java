@@ -0,0 +1,147 @@
+package io.github.poupeai.ingestion.service.categorization;
+
+import feign.Request;
+import io.github.poupeai.ingestion.client.ReportServiceClient;
+import io.github.poupeai.ingestion.client.dto.CategorizationRequest;
+import io.github.poupeai.ingestion.client.dto.CategorizationResponse;
+import io.github.poupeai.ingestion.dto.CategoryDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShardedCategorizationClientTest {
+
+    private static final List<CategoryDTO> CATEGORIES = List.of(new CategoryDTO("c1", "Mercado", "EXPENSE"));
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private ShardedCategorizationClient client;
+
+    @AfterEach
+    void shutdown() {
+        client.destroy();
+    }
+
+    @Test
+    void hedgedRequestAnswersWhenFirstCallStallsAndCancelsIt() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch loserInterrupted = new CountDownLatch(1);
+        client = client((request, options) -> {
+            if (calls.incrementAndGet() == 1 && !sleep(Duration.ofSeconds(2))) loserInterrupted.countDown();
+            return answer(request);
+        }, true);
+
+        long start = System.nanoTime();
+        Map<String, String> predictions = client.predict(List.of("PADARIA"), CATEGORIES);
+
+        assertThat(predictions).containsEntry("PADARIA", "c1");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+        assertThat(calls).hasValue(2);
+        assertThat(registry.get("categorization.ai.hedges").tag("result", "won").counter().count()).isEqualTo(1);
+        assertThat(loserInterrupted.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(client.circuitBreaker().failureLatency()).isZero();
+    }
+
+    @Test
+    void timeoutStartsOnlyAfterPermitAndPermitWaitIsNotABreakerFailure() {
+        client = client((request, options) -> {
+            sleep(Duration.ofMillis(300));
+            return answer(request);
+        }, 1, Duration.ofMillis(400), false);
+
+        Map<String, String> predictions = client.predict(List.of("A", "B", "C"), CATEGORIES);
+
+        assertThat(predictions).containsOnlyKeys("A", "B");
+        assertThat(client.circuitBreaker().failureLatency()).isZero();
+        assertThat(client.circuitBreaker().state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void passesShardTimeoutAsReadTimeoutOfEachCall() {
+        AtomicReference<Request.Options> used = new AtomicReference<>();
+        client = client((request, options) -> {
+            used.set(options);
+            return answer(request);
+        }, 4, Duration.ofMillis(750), false);
+
+        client.predict(List.of("A"), CATEGORIES);
+
+        assertThat(used.get().readTimeoutMillis()).isEqualTo(750);
+        assertThat(used.get().connectTimeoutMillis()).isEqualTo(1000);
+    }
+
+    @Test
+    void callThatExceedsTimeoutIsInterruptedAndCountsAsFailure() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        client = client((request, options) -> {
+            if (!sleep(Duration.ofSeconds(5))) interrupted.countDown();
+            return answer(request);
+        }, 4, Duration.ofMillis(200), false);
+
+        assertThat(client.predict(List.of("A"), CATEGORIES)).isEmpty();
+        assertThat(interrupted.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(client.circuitBreaker().failureLatency()).isPositive();
+    }
+
+    @Test
+    void openCircuitSkipsReportServiceUntilProbeSucceeds() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        AtomicInteger failuresLeft = new AtomicInteger(2);
+        client = client((request, options) -> {
+            calls.incrementAndGet();
+            if (failuresLeft.getAndDecrement() > 0) throw new IllegalStateException("503");
+            return answer(request);
+        }, false);
+
+        assertThat(client.predict(List.of("A"), CATEGORIES)).isEmpty();
+        assertThat(client.circuitBreaker().state()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        assertThat(client.predict(List.of("B"), CATEGORIES)).isEmpty();
+        assertThat(calls).hasValue(2);
+        assertThat(registry.get("categorization.ai.circuit.short-circuited").counter().count()).isEqualTo(1);
+        assertThat(registry.get("categorization.ai.circuit.state").tag("state", "open").gauge().value()).isEqualTo(1);
+
+        Thread.sleep(250);
+        assertThat(client.predict(List.of("C"), CATEGORIES)).containsEntry("C", "c1");
+        assertThat(client.circuitBreaker().state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    private ShardedCategorizationClient client(ReportServiceClient reportService, boolean hedge) {
+        return client(reportService, 4, Duration.ofSeconds(5), hedge);
+    }
+
+    private ShardedCategorizationClient client(ReportServiceClient reportService, int maxConcurrentShards,
+                                               Duration shardTimeout, boolean hedge) {
+        int shardSize = maxConcurrentShards == 1 ? 1 : 200;
+        return new ShardedCategorizationClient(reportService, registry, shardSize, maxConcurrentShards, shardTimeout, Duration.ofSeconds(1), 1,
+                hedge, 0.95, Duration.ofMillis(100), 10, 2, 0.5, Duration.ofMillis(200));
+    }
+
+    private static CategorizationResponse answer(CategorizationRequest request) {
+        return new CategorizationResponse(new CategorizationResponse.Content(request.descriptions().stream()
+                .map(description -> new CategorizationResponse.CategorizationItem(description, "c1"))
+                .toList()));
+    }
+
+    /**
+     * @return {@code false} se a thread foi interrompida antes do fim
+     */
+    private static boolean sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
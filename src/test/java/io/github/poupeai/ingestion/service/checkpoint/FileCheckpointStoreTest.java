@@ -0,0 +1,68 @@
+package io.github.poupeai.ingestion.service.checkpoint;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileCheckpointStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void returnsEmptyCheckpointForUnknownJob() {
+        FileCheckpointStore store = new FileCheckpointStore(directory, Duration.ofDays(7));
+
+        assertThat(store.load("job-1").isEmpty()).isTrue();
+    }
+
+    @Test
+    void reloadsCommittedChunksAndSentFitIdsAfterRestart() {
+        new FileCheckpointStore(directory, Duration.ofDays(7))
+                .commitChunk("job-1", 500, 0, "acc", List.of("F1", "F2"));
+        new FileCheckpointStore(directory, Duration.ofDays(7))
+                .commitChunk("job-1", 500, 1, "acc", List.of("F3"));
+
+        JobCheckpoint checkpoint = new FileCheckpointStore(directory, Duration.ofDays(7)).load("job-1");
+
+        assertThat(checkpoint.committedChunks()).isEqualTo(2);
+        assertThat(checkpoint.isChunkCommitted(500, 1)).isTrue();
+        assertThat(checkpoint.isChunkCommitted(500, 2)).isFalse();
+        assertThat(checkpoint.isChunkCommitted(250, 0)).isFalse();
+        assertThat(checkpoint.isSent("acc", "F3")).isTrue();
+        assertThat(checkpoint.isSent("other", "F3")).isFalse();
+    }
+
+    @Test
+    void ignoresRecordsWrittenWithoutCommitMarker() throws IOException {
+        FileCheckpointStore store = new FileCheckpointStore(directory, Duration.ofDays(7));
+        store.commitChunk("job-1", 500, 0, "acc", List.of("F1"));
+        Files.writeString(directory.resolve("job-1.ckpt"), "F\t1\tacc\tF2\nF\t1\tac",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        JobCheckpoint checkpoint = store.load("job-1");
+
+        assertThat(checkpoint.committedChunks()).isEqualTo(1);
+        assertThat(checkpoint.isSent("acc", "F1")).isTrue();
+        assertThat(checkpoint.isSent("acc", "F2")).isFalse();
+    }
+
+    @Test
+    void discardRemovesCheckpoint() {
+        FileCheckpointStore store = new FileCheckpointStore(directory, Duration.ofDays(7));
+        store.commitChunk("job/../1", 500, 0, "acc", List.of("F1"));
+
+        store.discard("job/../1");
+
+        assertThat(store.load("job/../1").isEmpty()).isTrue();
+    }
+}
@@ -0,0 +1,255 @@
+package io.github.poupeai.ingestion.service.dedup;
+
+import io.github.poupeai.ingestion.client.dto.ExistingTransaction;
+import io.github.poupeai.ingestion.client.dto.TransactionType;
+import io.github.poupeai.ingestion.domain.model.BankTransaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatementDeduplicatorTest {
+
+    private static final String ACCOUNT = "acc-1";
+
+    @TempDir
+    Path directory;
+
+    private final FakeCore core = new FakeCore();
+
+    @Test
+    void skipsTransactionsAlreadySentInOverlappingStatement() {
+        send(deduplicator(true), List.of(tx("A", 10, "-10.00", "UBER"), tx("B", 20, "-20.00", "PADARIA")));
+
+        try (StatementDeduplicator.Session session = deduplicator(true).open(ACCOUNT)) {
+            StatementDeduplicator.Result result = session.filter(List.of(
+                    tx("B", 20, "-20.0", "PADARIA"), tx("C", 25, "-5.00", "CAFE")));
+
+            assertThat(result.fresh()).extracting(BankTransaction::getFitId).containsExactly("C");
+            assertThat(result.duplicates()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void readsExactKeysOnlyOnPossibleHit() {
+        CountingStore store = new CountingStore(new FileDuplicateStore(directory, 0.01));
+        StatementDeduplicator deduplicator = new StatementDeduplicator(store, Optional.empty(), true, true, Set.of(), 1_000);
+
+        send(deduplicator, List.of(tx("A", 10, "-10.00", "UBER")));
+        try (StatementDeduplicator.Session session = deduplicator.open("acc-2")) {
+            assertThat(session.filter(List.of(tx("A", 10, "-10.00", "UBER"))).fresh()).hasSize(1);
+        }
+        assertThat(store.keyLoads).isZero();
+
+        try (StatementDeduplicator.Session session = deduplicator.open(ACCOUNT)) {
+            assertThat(session.filter(List.of(tx("A", 10, "-10.00", "UBER"))).fresh()).isEmpty();
+            assertThat(session.filter(List.of(tx("A", 11, "-10.00", "UBER"))).fresh()).isEmpty();
+        }
+        assertThat(store.keyLoads).isEqualTo(1);
+    }
+
+    @Test
+    void sameFitIdWithDifferentAmountIsNotADuplicate() {
+        send(deduplicator(true), List.of(tx("A", 10, "-10.00", "UBER")));
+
+        try (StatementDeduplicator.Session session = deduplicator(true).open(ACCOUNT)) {
+            assertThat(session.filter(List.of(tx("A", 10, "10.00", "UBER"))).fresh()).hasSize(1);
+        }
+    }
+
+    @Test
+    void stableFitIdsAreNotMatchedByFingerprint() {
+        send(deduplicator(true), List.of(tx("S1", 20, "-4.50", "Café")));
+
+        try (StatementDeduplicator.Session session = deduplicator(true).open(ACCOUNT)) {
+            assertThat(session.filter(List.of(tx("S2", 20, "-4.50", "CAFE"))).fresh()).hasSize(1);
+        }
+    }
+
+    @Test
+    void fallsBackToFingerprintForBanksWithUnstableFitIds() {
+        send(deduplicator(true), List.of(tx("X1", 20, "-4.50", "Café"), tx("X2", 20, "-4.50", "Café")));
+
+        try (StatementDeduplicator.Session session = deduplicator(true).open(ACCOUNT)) {
+            StatementDeduplicator.Result result = session.filter(List.of(
+                    tx("Y1", 20, "-4.50", "CAFE"), tx("Y2", 20, "-4.50", "CAFE"), tx("Y3", 20, "-4.50", "CAFE")));
+
+            assertThat(result.fresh()).extracting(BankTransaction::getFitId).containsExactly("Y3");
+        }
+    }
+
+    @Test
+    void fingerprintsTransactionsWithoutFitIdOnlyWhenFallbackIsEnabled() {
+        send(deduplicator(true), List.of(tx(null, 20, "-4.50", "CAFE")));
+
+        try (StatementDeduplicator.Session session = deduplicator(true).open(ACCOUNT)) {
+            assertThat(session.filter(List.of(tx(null, 20, "-4.50", "CAFE"), tx(null, 20, "-4.50", "CAFE"))).fresh()).hasSize(1);
+        }
+        try (StatementDeduplicator.Session session = deduplicator(false).open(ACCOUNT)) {
+            assertThat(session.filter(List.of(tx(null, 20, "-4.50", "CAFE"))).fresh()).hasSize(1);
+        }
+    }
+
+    @Test
+    void dropsFitIdRepeatedWithinTheSameFile() {
+        try (StatementDeduplicator.Session session = deduplicator(true).open(ACCOUNT)) {
+            StatementDeduplicator.Result first = session.filter(List.of(tx("A", 10, "-10.00", "UBER")));
+            StatementDeduplicator.Result second = session.filter(List.of(
+                    tx("A", 10, "-10.00", "UBER"), tx("A", 11, "-99.00", "OUTRO LANCAMENTO")));
+
+            assertThat(first.fresh()).hasSize(1);
+            assertThat(second.fresh()).extracting(BankTransaction::getAmount).containsExactly(new BigDecimal("-99.00"));
+            assertThat(session.duplicates()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void stopsTrackingNewKeysAtTheLimit() {
+        StatementDeduplicator deduplicator = new StatementDeduplicator(new FileDuplicateStore(directory, 0.01),
+                Optional.empty(), true, true, Set.of(), 1);
+
+        try (StatementDeduplicator.Session session = deduplicator.open(ACCOUNT)) {
+            StatementDeduplicator.Result result = session.filter(List.of(
+                    tx("A", 10, "-10.00", "UBER"), tx("B", 11, "-5.00", "PAO"),
+                    tx("A", 10, "-10.00", "UBER"), tx("B", 11, "-5.00", "PAO")));
+
+            assertThat(result.fresh()).extracting(BankTransaction::getFitId).containsExactly("A", "B", "B");
+        }
+    }
+
+    @Test
+    void confirmsPossibleHitsWithCoreWhenLookupIsEnabled() {
+        send(coreDeduplicator(), List.of(tx("A", 10, "-10.00", "UBER"), tx(null, 11, "-3.00", "PAO")));
+
+        try (StatementDeduplicator.Session session = coreDeduplicator().open(ACCOUNT)) {
+            StatementDeduplicator.Result result = session.filter(List.of(
+                    tx("A", 10, "-10.00", "UBER"), tx(null, 11, "-3.00", "PAO"), tx("C", 12, "-7.00", "CAFE")));
+
+            assertThat(result.fresh()).extracting(BankTransaction::getFitId).containsExactly("C");
+            assertThat(core.requestedFitIds).containsExactly("A");
+            assertThat(core.requestedDays).containsExactly(LocalDate.of(2024, 1, 11));
+        }
+    }
+
+    @Test
+    void reimportsTransactionsDeletedFromCoreWhenLookupIsEnabled() {
+        send(coreDeduplicator(), List.of(tx("A", 10, "-10.00", "UBER"), tx(null, 11, "-3.00", "PAO")));
+        core.stored.clear();
+
+        try (StatementDeduplicator.Session session = coreDeduplicator().open(ACCOUNT)) {
+            StatementDeduplicator.Result result = session.filter(List.of(tx("A", 10, "-10.00", "UBER"), tx(null, 11, "-3.00", "PAO")));
+
+            assertThat(result.fresh()).hasSize(2);
+            assertThat(result.duplicates()).isZero();
+        }
+    }
+
+    @Test
+    void doesNotAskCoreWithoutPossibleHits() {
+        try (StatementDeduplicator.Session session = coreDeduplicator().open(ACCOUNT)) {
+            assertThat(session.filter(List.of(tx("A", 10, "-10.00", "UBER"), tx(null, 11, "-3.00", "PAO"))).fresh()).hasSize(2);
+        }
+        assertThat(core.requestedFitIds).isEmpty();
+        assertThat(core.requestedDays).isEmpty();
+    }
+
+    private StatementDeduplicator deduplicator(boolean fingerprintFallback) {
+        return new StatementDeduplicator(new FileDuplicateStore(directory, 0.01), Optional.empty(), true,
+                fingerprintFallback, Set.of("UNSTABLE"), 1_000);
+    }
+
+    private StatementDeduplicator coreDeduplicator() {
+        return new StatementDeduplicator(new FileDuplicateStore(directory, 0.01), Optional.of(core), true,
+                true, Set.of("UNSTABLE"), 1_000);
+    }
+
+    /**
+     * Envia o lote como o pipeline: só as transações novas chegam ao Core Service e as chaves são
+     * registradas depois que ele as aceita.
+     */
+    private void send(StatementDeduplicator deduplicator, List<BankTransaction> transactions) {
+        try (StatementDeduplicator.Session session = deduplicator.open(ACCOUNT)) {
+            StatementDeduplicator.Result result = session.filter(transactions);
+            core.store(result.fresh());
+            session.record(result.keys());
+        }
+        core.requestedFitIds.clear();
+        core.requestedDays.clear();
+    }
+
+    private static BankTransaction tx(String fitId, int day, String amount, String description) {
+        return BankTransaction.builder()
+                .fitId(fitId)
+                .bankCode(fitId != null && (fitId.startsWith("X") || fitId.startsWith("Y")) ? "UNSTABLE" : "001")
+                .date(LocalDateTime.of(2024, 1, day, 12, 0))
+                .amount(new BigDecimal(amount))
+                .description(description)
+                .build();
+    }
+
+    private static final class CountingStore implements DuplicateStore {
+        private final DuplicateStore delegate;
+        private int keyLoads;
+
+        private CountingStore(DuplicateStore delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public BloomFilter loadFilter(String bankAccountId) {
+            return delegate.loadFilter(bankAccountId);
+        }
+
+        @Override
+        public Set<String> loadKeys(String bankAccountId) {
+            keyLoads++;
+            return delegate.loadKeys(bankAccountId);
+        }
+
+        @Override
+        public void append(String bankAccountId, Collection<String> keys) {
+            delegate.append(bankAccountId, keys);
+        }
+
+        @Override
+        public void saveFilter(String bankAccountId, BloomFilter filter) {
+            delegate.saveFilter(bankAccountId, filter);
+        }
+    }
+
+    /**
+     * Core Service em memória, com as transações aceitas por ele.
+     */
+    private static final class FakeCore implements SentTransactionLookup {
+        private final List<ExistingTransaction> stored = new ArrayList<>();
+        private final List<String> requestedFitIds = new ArrayList<>();
+        private final List<LocalDate> requestedDays = new ArrayList<>();
+
+        private void store(List<BankTransaction> transactions) {
+            for (BankTransaction tx : transactions) {
+                stored.add(new ExistingTransaction(tx.getFitId(), tx.getAmount().abs(),
+                        tx.getAmount().signum() < 0 ? TransactionType.EXPENSE : TransactionType.INCOME,
+                        tx.getDate().toLocalDate(), tx.getDescription()));
+            }
+        }
+
+        @Override
+        public List<ExistingTransaction> find(String bankAccountId, Collection<String> fitIds, Collection<LocalDate> dates) {
+            requestedFitIds.addAll(fitIds);
+            requestedDays.addAll(dates);
+            return stored.stream()
+                    .filter(tx -> fitIds.contains(tx.originalStatementId()) || dates.contains(tx.date()))
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package io.github.poupeai.ingestion.service.impl;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.poupeai.ingestion.domain.exception.StorageException;
+import io.github.poupeai.ingestion.service.storage.StagedContent;
+import io.minio.MinioClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MinioStorageServiceTest {
+
+    private static final String BUCKET = "statements";
+
+    @TempDir
+    Path spillDirectory;
+
+    private FakeS3 s3;
+    private MinioClient client;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        s3 = new FakeS3();
+        client = MinioClient.builder()
+                .endpoint("http://127.0.0.1:" + s3.port())
+                .region("us-east-1")
+                .credentials("test", "test-secret")
+                .build();
+    }
+
+    @AfterEach
+    void stopServer() {
+        s3.stop();
+    }
+
+    @Test
+    void smallObjectsUseSingleGetObject() throws IOException {
+        byte[] content = randomBytes(10_000);
+        s3.put("small.ofx", content);
+
+        MinioStorageService storage = storage(DataSize.ofKilobytes(64), DataSize.ofMegabytes(1));
+        try (InputStream in = storage.downloadFile("small.ofx")) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        } finally {
+            storage.destroy();
+        }
+
+        assertThat(s3.ranges()).isEmpty();
+    }
+
+    @Test
+    void largeObjectsAreReassembledInOrderFromParallelRanges() throws IOException {
+        byte[] content = randomBytes(1_000_003);
+        s3.put("large.ofx", content);
+
+        MinioStorageService storage = storage(DataSize.ofKilobytes(64), DataSize.ofMegabytes(100));
+        try (InputStream in = storage.downloadFile("large.ofx")) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        } finally {
+            storage.destroy();
+        }
+
+        assertThat(s3.ranges()).hasSize(16).contains("bytes=983040-1000002");
+    }
+
+    @Test
+    void knownSizeSkipsStat() throws IOException {
+        byte[] content = randomBytes(1_000_003);
+        s3.put("large.ofx", content);
+
+        MinioStorageService storage = storage(DataSize.ofKilobytes(64), DataSize.ofMegabytes(100));
+        try (InputStream in = storage.downloadFile("large.ofx")) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+        try (InputStream in = storage.downloadFile("large.ofx", content.length)) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        } finally {
+            storage.destroy();
+        }
+
+        assertThat(s3.stats()).isEqualTo(1);
+        assertThat(s3.ranges()).hasSize(32);
+    }
+
+    @Test
+    void veryLargeObjectsAreSpilledToDiskWithoutLeavingFilesBehind() throws IOException {
+        byte[] content = randomBytes(700_001);
+        s3.put("huge.ofx", content);
+
+        MinioStorageService storage = storage(DataSize.ofKilobytes(64), DataSize.ofKilobytes(512));
+        try (InputStream in = storage.downloadFile("huge.ofx")) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        } finally {
+            storage.destroy();
+        }
+
+        try (var files = Files.list(spillDirectory)) {
+            assertThat(files).isEmpty();
+        }
+        assertThat(s3.ranges()).hasSize(11);
+    }
+
+    @Test
+    void spilledObjectsCanBeMappedWhole() throws IOException {
+        byte[] content = randomBytes(700_001);
+        s3.put("huge.ofx", content);
+
+        MinioStorageService storage = storage(DataSize.ofKilobytes(64), DataSize.ofKilobytes(512));
+        try (InputStream in = storage.downloadFile("huge.ofx")) {
+            assertThat(in).isInstanceOf(StagedContent.class);
+            ByteBuffer mapped = ((StagedContent) in).mapFully().orElseThrow();
+            byte[] staged = new byte[mapped.remaining()];
+            mapped.get(staged);
+            assertThat(staged).isEqualTo(content);
+        } finally {
+            storage.destroy();
+        }
+    }
+
+    @Test
+    void missingObjectsFailWithStorageException() {
+        MinioStorageService storage = storage(DataSize.ofKilobytes(64), DataSize.ofMegabytes(1));
+        try {
+            assertThatThrownBy(() -> storage.downloadFile("missing.ofx")).isInstanceOf(StorageException.class);
+        } finally {
+            storage.destroy();
+        }
+    }
+
+    private MinioStorageService storage(DataSize partSize, DataSize spillThreshold) {
+        return new MinioStorageService(client, BUCKET, true, DataSize.ofKilobytes(100), partSize, 4,
+                spillThreshold, spillDirectory);
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * Subconjunto mínimo da API S3 usado pelo serviço: HEAD (stat) e GET com ou sem {@code Range}.
+     */
+    private static final class FakeS3 {
+        private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+        private static final String LAST_MODIFIED = "Mon, 01 Jan 2024 00:00:00 GMT";
+
+        private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+        private final List<String> ranges = new CopyOnWriteArrayList<>();
+        private final AtomicInteger stats = new AtomicInteger();
+        private final HttpServer server;
+
+        FakeS3() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/", this::handle);
+            server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+            server.start();
+        }
+
+        int port() {
+            return server.getAddress().getPort();
+        }
+
+        void put(String key, byte[] content) {
+            objects.put("/" + BUCKET + "/" + key, content);
+        }
+
+        List<String> ranges() {
+            return ranges;
+        }
+
+        int stats() {
+            return stats.get();
+        }
+
+        void stop() {
+            server.stop(0);
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            try (exchange) {
+                byte[] content = objects.get(exchange.getRequestURI().getPath());
+                var headers = exchange.getResponseHeaders();
+                headers.add("Last-Modified", LAST_MODIFIED);
+                headers.add("ETag", "\"etag\"");
+                headers.add("Content-Type", "application/octet-stream");
+
+                if (content == null) {
+                    byte[] error = ("<Error><Code>NoSuchKey</Code><Message>not found</Message><Resource>"
+                            + exchange.getRequestURI().getPath() + "</Resource></Error>").getBytes();
+                    headers.set("Content-Type", "application/xml");
+                    exchange.sendResponseHeaders(404, "HEAD".equals(exchange.getRequestMethod()) ? -1 : error.length);
+                    if (!"HEAD".equals(exchange.getRequestMethod())) exchange.getResponseBody().write(error);
+                    return;
+                }
+
+                if ("HEAD".equals(exchange.getRequestMethod())) {
+                    stats.incrementAndGet();
+                    headers.add("Content-Length", String.valueOf(content.length));
+                    exchange.sendResponseHeaders(200, -1);
+                    return;
+                }
+
+                int start = 0;
+                int end = content.length - 1;
+                int status = 200;
+                String range = exchange.getRequestHeaders().getFirst("Range");
+                if (range != null) {
+                    ranges.add(range);
+                    Matcher matcher = RANGE.matcher(range);
+                    if (matcher.matches()) {
+                        start = Integer.parseInt(matcher.group(1));
+                        end = Math.min(Integer.parseInt(matcher.group(2)), content.length - 1);
+                        status = 206;
+                        headers.add("Content-Range", "bytes " + start + "-" + end + "/" + content.length);
+                    }
+                }
+                exchange.sendResponseHeaders(status, end - start + 1);
+                try (OutputStream body = exchange.getResponseBody()) {
+                    body.write(content, start, end - start + 1);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package io.github.poupeai.ingestion.service.notification;
+
+import io.github.poupeai.ingestion.domain.event.NotificationEvent;
+import io.github.poupeai.ingestion.domain.event.NotificationPayload;
+import io.github.poupeai.ingestion.domain.event.NotificationRecipient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationOutboxTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ConfirmingTemplate template = new ConfirmingTemplate();
+
+    @Test
+    void retriesNackedAndReturnedMessagesUntilConfirmed() throws Exception {
+        NotificationOutbox outbox = outbox(10, Duration.ofSeconds(1));
+        template.outcomes.add(Outcome.NACK);
+        template.outcomes.add(Outcome.RETURN);
+
+        NotificationEvent first = event("STATEMENT_PROCESSING_COMPLETED");
+        NotificationEvent second = event("STATEMENT_PROCESSING_FAILED");
+        assertThat(outbox.enqueue(first)).isTrue();
+        assertThat(outbox.enqueue(second)).isTrue();
+        outbox.destroy();
+
+        assertThat(template.messageIds).hasSize(4).containsOnly(first.messageId(), second.messageId());
+        assertThat(counter("confirmed")).isEqualTo(2);
+        assertThat(counter("retried")).isEqualTo(2);
+        assertThat(registry.get("notification.publish.confirm").timer().count()).isEqualTo(4);
+        assertThat(registry.get("notification.outbox.depth").gauge().value()).isZero();
+    }
+
+    @Test
+    void pendingRetryDoesNotHoldBackNewEvents() throws Exception {
+        NotificationOutbox outbox = outbox(10, Duration.ofSeconds(1), Duration.ofSeconds(1));
+        template.outcomes.add(Outcome.NACK);
+
+        NotificationEvent nacked = event("STATEMENT_PROCESSING_FAILED");
+        assertThat(outbox.enqueue(nacked)).isTrue();
+        while (counter("retried") == 0) Thread.sleep(5);
+
+        long start = System.nanoTime();
+        NotificationEvent fresh = event("STATEMENT_PROCESSING_COMPLETED");
+        assertThat(outbox.enqueue(fresh)).isTrue();
+        while (counter("confirmed") == 0) Thread.sleep(5);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(500));
+        assertThat(template.messageIds).containsExactly(nacked.messageId(), fresh.messageId());
+
+        outbox.destroy();
+        assertThat(template.messageIds).containsExactly(nacked.messageId(), fresh.messageId(), nacked.messageId());
+        assertThat(counter("confirmed")).isEqualTo(2);
+    }
+
+    @Test
+    void boundedQueueAppliesBackpressureAndDropsWhenBrokerIsStuck() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        template.blockUntil = release;
+        NotificationOutbox outbox = outbox(1, Duration.ofMillis(50));
+
+        assertThat(outbox.enqueue(event("A"))).isTrue();
+        while (template.messageIds.isEmpty()) Thread.sleep(5);
+        assertThat(outbox.enqueue(event("B"))).isTrue();
+        long start = System.nanoTime();
+        assertThat(outbox.enqueue(event("C"))).isFalse();
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(50));
+        assertThat(registry.get("notification.outbox.depth").gauge().value()).isEqualTo(1);
+        assertThat(counter("dropped")).isEqualTo(1);
+
+        release.countDown();
+        outbox.destroy();
+        assertThat(counter("confirmed")).isEqualTo(2);
+    }
+
+    private NotificationOutbox outbox(int capacity, Duration offerTimeout) {
+        return outbox(capacity, offerTimeout, Duration.ofMillis(1));
+    }
+
+    private NotificationOutbox outbox(int capacity, Duration offerTimeout, Duration retryBackoff) {
+        return new NotificationOutbox(template, registry, "notification_exchange", "notification.event",
+                capacity, 10, offerTimeout, Duration.ofSeconds(5), 3, retryBackoff);
+    }
+
+    private double counter(String result) {
+        return registry.get("notification.publish").tag("result", result).counter().count();
+    }
+
+    private static NotificationEvent event(String type) {
+        return NotificationEvent.create(type, new NotificationRecipient("u1", "u1@poupe.ai", "User"),
+                NotificationPayload.success("extrato.ofx", "Conta"));
+    }
+
+    private enum Outcome { ACK, NACK, RETURN }
+
+    /**
+     * Simula o broker: confirma cada publicação na hora, com o resultado da vez em {@code outcomes}.
+     */
+    private static final class ConfirmingTemplate extends RabbitTemplate {
+        private final Queue<Outcome> outcomes = new ConcurrentLinkedQueue<>();
+        private final List<String> messageIds = new CopyOnWriteArrayList<>();
+        private volatile CountDownLatch blockUntil = new CountDownLatch(0);
+
+        @Override
+        public void convertAndSend(String exchange, String routingKey, Object payload,
+                                   MessagePostProcessor postProcessor, CorrelationData correlation) {
+            Message message = postProcessor.postProcessMessage(new Message(new byte[0], new MessageProperties()));
+            messageIds.add(message.getMessageProperties().getMessageId());
+            try {
+                blockUntil.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            Outcome outcome = outcomes.poll();
+            if (outcome == Outcome.RETURN) {
+                correlation.setReturned(new ReturnedMessage(message, 312, "NO_ROUTE", exchange, routingKey));
+            }
+            correlation.getFuture().complete(new CorrelationData.Confirm(outcome != Outcome.NACK, outcome == Outcome.NACK ? "nack" : null));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package io.github.poupeai.ingestion.service.parser;
+
+import io.github.poupeai.ingestion.domain.model.BankTransaction;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsvParserServiceTest {
+
+    private static final String INTER_STATEMENT = """
+            Extrato Conta Corrente
+            Conta ;123456
+            Período ;01/01/2024 a 31/01/2024
+
+            Data Lançamento;Histórico;Descrição;Valor;Saldo
+            05/01/2024;Pix enviado;Padaria São João;-1.234,56;10.000,00
+            05/01/2024;Saldo do dia;;0,00;10.000,00
+            06/01/2024;Salário;;3.500,00;13.500,00
+            06/01/2024;Pix enviado;Padaria São João;-1.234,56;12.265,44
+            07/01/2024;Pix enviado;Padaria São João;-1.234,56;11.030,88
+            """;
+
+    private static final String NUBANK_STATEMENT = """
+            Data,Valor,Identificador,Descrição
+            01/02/2024,-99.90,abc-1,"Compra no débito - Mercado, Centro"
+            02/02/2024,1500.00,abc-2,Transferência recebida
+            """;
+
+    private static final String DEBIT_CREDIT_STATEMENT = """
+            Data\tDescrição\tDébito\tCrédito
+            2024-03-01\tTarifa\t12.50\t
+            2024-03-02\tTED recebida\t\t1,000.00
+            """;
+
+    private final CsvParserService parser = new CsvParserService();
+
+    @Test
+    void parsesWindows1252StatementWithPreambleDecimalCommaAndBalanceLines() {
+        List<BankTransaction> transactions = parser.parse(stream(INTER_STATEMENT, Charset.forName("windows-1252")));
+
+        assertThat(transactions).hasSize(4);
+        assertThat(transactions).extracting(BankTransaction::getBankCode).containsOnly("INTER");
+        assertThat(transactions.get(0).getDescription()).isEqualTo("Pix enviado - Padaria São João");
+        assertThat(transactions.get(0).getAmount()).isEqualByComparingTo("-1234.56");
+        assertThat(transactions.get(0).getType()).isEqualTo("DEBIT");
+        assertThat(transactions.get(0).getDate()).isEqualTo(LocalDateTime.of(2024, 1, 5, 0, 0));
+        assertThat(transactions.get(1).getAmount()).isEqualByComparingTo("3500");
+        assertThat(transactions.get(1).getType()).isEqualTo("CREDIT");
+    }
+
+    @Test
+    void generatesStableDistinctFitIdsWhenLayoutHasNoIdentifier() {
+        List<BankTransaction> first = parser.parse(stream(INTER_STATEMENT, StandardCharsets.UTF_8));
+        List<BankTransaction> second = parser.parse(stream(INTER_STATEMENT, StandardCharsets.UTF_8));
+
+        assertThat(first).extracting(BankTransaction::getFitId).doesNotHaveDuplicates().allMatch(id -> id.startsWith("CSV-"));
+        assertThat(first).extracting(BankTransaction::getFitId)
+                .containsExactlyElementsOf(second.stream().map(BankTransaction::getFitId).toList());
+    }
+
+    @Test
+    void keepsRepeatedRowsDistinctInUnsortedStatement() {
+        String unsorted = """
+                Data;Descrição;Valor
+                01/03/2024;Padaria;-8,00
+                02/03/2024;Mercado;-50,00
+                01/03/2024;Padaria;-8,00
+                02/03/2024;Mercado;-50,00
+                01/03/2024;Padaria;-8,00
+                """;
+
+        List<BankTransaction> first = parser.parse(stream(unsorted, StandardCharsets.UTF_8));
+        List<BankTransaction> second = parser.parse(stream(unsorted, StandardCharsets.UTF_8));
+
+        assertThat(first).hasSize(5).extracting(BankTransaction::getFitId).doesNotHaveDuplicates();
+        assertThat(first).extracting(BankTransaction::getFitId)
+                .containsExactlyElementsOf(second.stream().map(BankTransaction::getFitId).toList());
+    }
+
+    @Test
+    void parsesCommaDelimitedStatementWithQuotedFieldsAndIdentifiers() {
+        List<BankTransaction> transactions = parser.parse(stream("﻿" + NUBANK_STATEMENT, StandardCharsets.UTF_8));
+
+        assertThat(transactions).extracting(BankTransaction::getFitId).containsExactly("abc-1", "abc-2");
+        assertThat(transactions).extracting(BankTransaction::getAmount)
+                .containsExactly(new BigDecimal("-99.90"), new BigDecimal("1500.00"));
+        assertThat(transactions.get(0).getDescription()).isEqualTo("Compra no débito - Mercado, Centro");
+        assertThat(transactions.get(0).getBankCode()).isEqualTo("NUBANK");
+    }
+
+    @Test
+    void combinesDebitAndCreditColumns() {
+        List<String> emitted = new ArrayList<>();
+        int count = parser.parse(stream(DEBIT_CREDIT_STATEMENT, StandardCharsets.UTF_8),
+                tx -> emitted.add(tx.getAmount().toPlainString()));
+
+        assertThat(count).isEqualTo(2);
+        assertThat(emitted).containsExactly("-12.50", "1000.00");
+    }
+
+    private static InputStream stream(String content, Charset charset) {
+        return new ByteArrayInputStream(content.getBytes(charset));
+    }
+}
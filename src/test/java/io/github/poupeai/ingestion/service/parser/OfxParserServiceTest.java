@@ -0,0 +1,294 @@
+package io.github.poupeai.ingestion.service.parser;
+
+import io.github.poupeai.ingestion.domain.exception.OfxParseException;
+import io.github.poupeai.ingestion.domain.model.BankTransaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OfxParserServiceTest {
+
+    private static final String SGML_STATEMENT = """
+            OFXHEADER:100
+            DATA:OFXSGML
+            VERSION:102
+            CHARSET:1252
+
+            <OFX>
+            <BANKMSGSRSV1><STMTTRNRS><STMTRS>
+            <BANKACCTFROM>
+            <BANKID>0341
+            <ACCTID>12345
+            </BANKACCTFROM>
+            <BANKTRANLIST>
+            <STMTTRN>
+            <TRNTYPE>DEBIT
+            <DTPOSTED>20240105120000[-3:BRT]
+            <TRNAMT>-25.90
+            <FITID> 0001
+            <NAME>UBER
+            <MEMO>UBER *TRIP SAO PAULO
+            </STMTTRN>
+            <STMTTRN>
+            <TRNTYPE>CREDIT
+            <DTPOSTED>20240106000000
+            <TRNAMT>3500.00
+            <FITID>0002
+            <MEMO>SALARIO
+            </STMTTRN>
+            <STMTTRN>
+            <TRNTYPE>OTHER
+            <DTPOSTED>20240107000000
+            <TRNAMT>0.00
+            <FITID>0003
+            <MEMO>ESTORNO ZERADO
+            </STMTTRN>
+            <STMTTRN>
+            <TRNTYPE>DEBIT
+            <DTPOSTED>20240108
+            <TRNAMT>-10.00
+            <FITID>0004
+            </STMTTRN>
+            <STMTTRN>
+            <TRNTYPE>DEBIT
+            <DTPOSTED>20240109100000
+            <TRNAMT>-4.50
+            <FITID>0005
+            <NAME>PADARIA
+            <MEMO>CAFE
+            </STMTTRN>
+            </BANKTRANLIST>
+            </STMTRS></STMTTRNRS></BANKMSGSRSV1>
+            </OFX>
+            """;
+
+    private static final String XML_STATEMENT = """
+            <?xml version="1.0" encoding="UTF-8" standalone="no"?>
+            <?OFX OFXHEADER="200" VERSION="220" SECURITY="NONE"?>
+            <OFX><BANKMSGSRSV1><STMTTRNRS><STMTRS><BANKACCTFROM><BANKID>260</BANKID></BANKACCTFROM><BANKTRANLIST>\
+            <STMTTRN><TRNTYPE>DEBIT</TRNTYPE><DTPOSTED>20240201083000</DTPOSTED><TRNAMT>-99.99</TRNAMT>\
+            <FITID>X1</FITID><NAME>Mercado</NAME><MEMO>mercado</MEMO></STMTTRN>\
+            <STMTTRN><TRNTYPE>CREDIT</TRNTYPE><DTPOSTED>20240202000000</DTPOSTED><TRNAMT>150</TRNAMT>\
+            <FITID>X2</FITID></STMTTRN>\
+            </BANKTRANLIST></STMTRS></STMTTRNRS></BANKMSGSRSV1></OFX>
+            """;
+
+    private final OfxParserService parser = new OfxParserService();
+
+    @Test
+    void parsesSgmlStatementApplyingDescriptionRulesAndSkippingInvalidEntries() {
+        List<BankTransaction> transactions = parser.parse(stream(SGML_STATEMENT));
+
+        assertThat(transactions).extracting(BankTransaction::getFitId).containsExactly("0001", "0002", "0005");
+        assertThat(transactions).extracting(BankTransaction::getBankCode).containsOnly("0341");
+        assertThat(transactions).extracting(BankTransaction::getDescription)
+                .containsExactly("UBER *TRIP SAO PAULO", "SALARIO", "PADARIA - CAFE");
+        assertThat(transactions).extracting(BankTransaction::getAmount)
+                .containsExactly(new BigDecimal("-25.90"), new BigDecimal("3500.00"), new BigDecimal("-4.50"));
+        assertThat(transactions.get(0).getType()).isEqualTo("DEBIT");
+        assertThat(transactions.get(0).getDate()).isEqualTo(LocalDateTime.of(2024, 1, 5, 12, 0));
+    }
+
+    @Test
+    void parsesXmlStatementOnSingleLine() {
+        List<BankTransaction> transactions = parser.parse(stream(XML_STATEMENT));
+
+        assertThat(transactions).hasSize(2);
+        assertThat(transactions.get(0).getDescription()).isEqualTo("Mercado");
+        assertThat(transactions.get(0).getBankCode()).isEqualTo("260");
+        assertThat(transactions.get(1).getDescription()).isEqualTo("Sem descrição");
+        assertThat(transactions.get(1).getAmount()).isEqualByComparingTo("150");
+    }
+
+    @Test
+    void streamsEachTransactionAsSoonAsItCloses() {
+        List<String> emitted = new ArrayList<>();
+        int count = parser.parse(stream(SGML_STATEMENT), tx -> emitted.add(tx.getFitId()));
+
+        assertThat(count).isEqualTo(3);
+        assertThat(emitted).containsExactly("0001", "0002", "0005");
+    }
+
+    @Test
+    void parallelSegmentsKeepOriginalOrderAndFields() {
+        String statement = largeStatement(3000, 0);
+        OfxParserService parallel = new OfxParserService(DataSize.ofBytes(0), DataSize.ofKilobytes(4));
+
+        List<BankTransaction> expected = sequentialParser().parse(stream(statement));
+        List<BankTransaction> actual = parallel.parse(stream(statement));
+
+        assertThat(actual).hasSize(3000).containsExactlyElementsOf(expected);
+        assertThat(actual).extracting(BankTransaction::getBankCode).containsOnly("0341");
+    }
+
+    @Test
+    void parallelSegmentsResolveBankIdDeclaredAfterFirstTransactions() {
+        String statement = largeStatement(3000, 1500);
+        OfxParserService parallel = new OfxParserService(DataSize.ofBytes(0), DataSize.ofKilobytes(4));
+
+        List<BankTransaction> expected = sequentialParser().parse(stream(statement));
+        List<BankTransaction> actual = parallel.parse(stream(statement));
+
+        assertThat(actual).containsExactlyElementsOf(expected);
+        assertThat(actual).extracting(BankTransaction::getBankCode).containsOnly("0341");
+    }
+
+    @Test
+    void firstBankIdAppliesToTransactionsDeclaredBeforeIt() {
+        List<String> emitted = new ArrayList<>();
+        List<BankTransaction> transactions = new ArrayList<>();
+
+        int count = parser.parse(stream(largeStatement(3, 2)), tx -> {
+            emitted.add(tx.getFitId());
+            transactions.add(tx);
+        });
+
+        assertThat(count).isEqualTo(3);
+        assertThat(emitted).containsExactly("0", "1", "2");
+        assertThat(transactions).extracting(BankTransaction::getBankCode).containsOnly("0341");
+    }
+
+    @Test
+    void statementWithoutBankIdFallsBackToUnknown() {
+        List<BankTransaction> transactions = parser.parse(stream(largeStatement(3, -1)));
+
+        assertThat(transactions).hasSize(3).extracting(BankTransaction::getBankCode).containsOnly("UNKNOWN");
+    }
+
+    @Test
+    void keepsLongValuesWhole() {
+        String memo = "PARCELA ".repeat(1000).trim();
+        String statement = SGML_STATEMENT.replace("<MEMO>SALARIO", "<MEMO>" + memo);
+
+        List<BankTransaction> fromStream = parser.parse(stream(statement));
+        List<BankTransaction> fromBytes = new ArrayList<>();
+        parser.parse(ByteBuffer.wrap(statement.getBytes(StandardCharsets.UTF_8)), fromBytes::add);
+
+        assertThat(fromStream.get(1).getDescription()).isEqualTo(memo);
+        assertThat(fromBytes).containsExactlyElementsOf(fromStream);
+    }
+
+    @Test
+    void refusesFilesWithoutTransactionBoundaryWithinMaxSegmentSize() {
+        String statement = "OFXHEADER:100\n<OFX>\n" + "<NOTE>texto sem transações\n".repeat(1000) + "</OFX>\n";
+        OfxParserService bounded = new OfxParserService(DataSize.ofMegabytes(4), DataSize.ofKilobytes(1), DataSize.ofKilobytes(16));
+
+        assertThatThrownBy(() -> bounded.parse(stream(statement)))
+                .isInstanceOf(OfxParseException.class).hasMessageContaining("<STMTTRN>");
+        assertThatThrownBy(() -> bounded.parse(ByteBuffer.wrap(statement.getBytes(StandardCharsets.UTF_8)), tx -> { }))
+                .isInstanceOf(OfxParseException.class).hasMessageContaining("<STMTTRN>");
+    }
+
+    @Test
+    void mappedBufferParseMatchesStreamParse() {
+        for (String statement : List.of(SGML_STATEMENT, XML_STATEMENT, largeStatement(3000, 1500))) {
+            List<BankTransaction> fromStream = parser.parse(stream(statement));
+            List<BankTransaction> fromBytes = new ArrayList<>();
+            parser.parse(ByteBuffer.wrap(statement.getBytes(StandardCharsets.UTF_8)), fromBytes::add);
+
+            assertThat(fromBytes).containsExactlyElementsOf(fromStream);
+        }
+    }
+
+    @Test
+    void mappedBufferParseSplitsIntoParallelSlices() {
+        String statement = largeStatement(3000, 1500);
+        OfxParserService parallel = new OfxParserService(DataSize.ofBytes(0), DataSize.ofKilobytes(4));
+        List<BankTransaction> fromBytes = new ArrayList<>();
+
+        int count = parallel.parse(ByteBuffer.wrap(statement.getBytes(StandardCharsets.UTF_8)), fromBytes::add);
+
+        assertThat(count).isEqualTo(3000);
+        assertThat(fromBytes).containsExactlyElementsOf(sequentialParser().parse(stream(statement)));
+    }
+
+    @Test
+    void parsesStagedFileThroughMemoryMapping(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("statement.ofx");
+        Files.writeString(file, SGML_STATEMENT.replace("<NAME>PADARIA", "<NAME>PADARIA SÃO JOÃO"), StandardCharsets.UTF_8);
+        List<BankTransaction> transactions = new ArrayList<>();
+
+        parser.parse(file, transactions::add);
+
+        assertThat(transactions).extracting(BankTransaction::getDescription)
+                .containsExactly("UBER *TRIP SAO PAULO", "SALARIO", "PADARIA SÃO JOÃO - CAFE");
+    }
+
+    @Test
+    void decodesCharsetDeclaredInHeaderEvenWhenAccentsAppearLate() {
+        String statement = largeStatement(3000, 0)
+                .replace("OFXHEADER:100\n", "OFXHEADER:100\nENCODING:USASCII\nCHARSET:1252\n")
+                .replace("<NAME>LOJA 3\n<MEMO>COMPRA 2999", "<NAME>AÇOUGUE SÃO JOÃO\n<MEMO>COMPRA 2999");
+        byte[] bytes = statement.getBytes(CharsetSniffer.WINDOWS_1252);
+        assertThat(statement.indexOf("AÇOUGUE")).isGreaterThan(OfxCharset.SAMPLE_SIZE);
+
+        List<BankTransaction> fromStream = parser.parse(new ByteArrayInputStream(bytes));
+        List<BankTransaction> fromBytes = new ArrayList<>();
+        parser.parse(ByteBuffer.wrap(bytes), fromBytes::add);
+
+        assertThat(fromStream.get(2999).getDescription()).isEqualTo("AÇOUGUE SÃO JOÃO - COMPRA 2999");
+        assertThat(fromBytes).containsExactlyElementsOf(fromStream);
+    }
+
+    @Test
+    void detectsWindows1252FromBytesWhenHeaderIsMissing() {
+        String statement = SGML_STATEMENT.substring(SGML_STATEMENT.indexOf("<OFX>"))
+                .replace("<NAME>PADARIA", "<NAME>PADARIA CORAÇÃO");
+        byte[] bytes = statement.getBytes(CharsetSniffer.WINDOWS_1252);
+
+        List<BankTransaction> transactions = parser.parse(new ByteArrayInputStream(bytes));
+
+        assertThat(transactions.get(2).getDescription()).isEqualTo("PADARIA CORAÇÃO - CAFE");
+    }
+
+    @Test
+    void prefersUtf8ContentOverLatinDeclarationAndHonoursXmlEncoding() {
+        String sgml = SGML_STATEMENT.replace("<NAME>PADARIA", "<NAME>PADARIA SÃO JOÃO");
+        String xml = XML_STATEMENT.replace("encoding=\"UTF-8\"", "encoding=\"ISO-8859-1\"")
+                .replace("<NAME>Mercado", "<NAME>Mercado Ipê");
+
+        List<BankTransaction> utf8WithLatinHeader = parser.parse(stream(sgml));
+        List<BankTransaction> latinXml = parser.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.ISO_8859_1)));
+
+        assertThat(utf8WithLatinHeader.get(2).getDescription()).isEqualTo("PADARIA SÃO JOÃO - CAFE");
+        assertThat(latinXml.get(0).getDescription()).isEqualTo("Mercado Ipê - mercado");
+    }
+
+    private static OfxParserService sequentialParser() {
+        return new OfxParserService(DataSize.ofGigabytes(1), DataSize.ofGigabytes(1));
+    }
+
+    /**
+     * Extrato SGML com {@code transactions} lançamentos e o {@code <BANKID>} declarado antes do lançamento
+     * de índice {@code bankIdAt} (negativo para nenhum).
+     */
+    private static String largeStatement(int transactions, int bankIdAt) {
+        StringBuilder ofx = new StringBuilder("OFXHEADER:100\nDATA:OFXSGML\n\n<OFX>\n<BANKTRANLIST>\n");
+        for (int i = 0; i < transactions; i++) {
+            if (i == bankIdAt) ofx.append("<BANKACCTFROM>\n<BANKID>0341\n</BANKACCTFROM>\n");
+            ofx.append("<STMTTRN>\n<TRNTYPE>DEBIT\n<DTPOSTED>20240105120000\n<TRNAMT>-").append(i + 1).append(".50\n")
+                    .append("<FITID>").append(i).append("\n<NAME>LOJA ").append(i % 7).append("\n<MEMO>COMPRA ").append(i)
+                    .append("\n</STMTTRN>\n");
+        }
+        return ofx.append("</BANKTRANLIST>\n</OFX>\n").toString();
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,47 @@
+package io.github.poupeai.ingestion.service.parser;
+
+import io.github.poupeai.ingestion.domain.exception.StatementParseException;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StatementParserRegistryTest {
+
+    private final OfxParserService ofxParser = new OfxParserService();
+    private final CsvParserService csvParser = new CsvParserService();
+    private final StatementParserRegistry registry = new StatementParserRegistry(List.of(ofxParser, csvParser));
+
+    @Test
+    void detectsFormatFromFirstBytesWithoutConsumingThem() throws IOException {
+        InputStream csv = stream("Data,Valor,Identificador,Descrição\n01/02/2024,-99.90,abc-1,Mercado\n");
+
+        assertThat(registry.detect(stream("\n  OFXHEADER:100\n<OFX>")).format()).isEqualTo(StatementFormat.OFX_SGML);
+        assertThat(registry.detect(stream("\uFEFF<?xml version=\"1.0\"?><?OFX OFXHEADER=\"200\"?>")).format())
+                .isEqualTo(StatementFormat.OFX_XML);
+
+        StatementParserRegistry.Detection detection = registry.detect(csv);
+        assertThat(detection.format()).isEqualTo(StatementFormat.CSV);
+        assertThat(detection.parser()).isSameAs(csvParser);
+        assertThat(csvParser.parse(csv)).hasSize(1);
+    }
+
+    @Test
+    void rejectsContentNoParserRecognizes() {
+        assertThatThrownBy(() -> registry.detect(stream("%PDF-1.7\n\u0001\u0002")))
+                .isInstanceOf(StatementParseException.class);
+        assertThatThrownBy(() -> registry.detect(stream("")))
+                .isInstanceOf(StatementParseException.class);
+    }
+
+    private static InputStream stream(String content) {
+        return new BufferedInputStream(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}
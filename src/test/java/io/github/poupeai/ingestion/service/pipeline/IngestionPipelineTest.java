@@ -0,0 +1,229 @@
+package io.github.poupeai.ingestion.service.pipeline;
+
+import io.github.poupeai.ingestion.audit.IngestionMetrics;
+import io.github.poupeai.ingestion.domain.exception.DownstreamServiceException;
+import io.github.poupeai.ingestion.domain.model.BankTransaction;
+import io.github.poupeai.ingestion.domain.model.IngestionJobContext;
+import io.github.poupeai.ingestion.domain.model.PersistenceTarget;
+import io.github.poupeai.ingestion.domain.model.TransactionBatch;
+import io.github.poupeai.ingestion.dto.CategoryDTO;
+import io.github.poupeai.ingestion.service.CategorizationService;
+import io.github.poupeai.ingestion.service.CategorizationService.CategorizationResult;
+import io.github.poupeai.ingestion.service.TransactionPersistenceService;
+import io.github.poupeai.ingestion.service.checkpoint.CheckpointStore;
+import io.github.poupeai.ingestion.service.checkpoint.JobCheckpoint;
+import io.github.poupeai.ingestion.service.dedup.StatementDeduplicator;
+import io.github.poupeai.ingestion.service.parser.StatementFormat;
+import io.github.poupeai.ingestion.service.parser.StatementParser;
+import io.github.poupeai.ingestion.service.parser.StatementParserRegistry;
+import io.github.poupeai.ingestion.service.parser.StatementPrefix;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IngestionPipelineTest {
+
+    private static final String ACCOUNT = UUID.randomUUID().toString();
+    private static final IngestionJobContext CONTEXT = new IngestionJobContext("job-1", UUID.randomUUID().toString(),
+            ACCOUNT, null, null);
+
+    private final GeneratingParser parser = new GeneratingParser();
+    private final RecordingCategorization categorization = new RecordingCategorization();
+    private final RecordingPersistence persistence = new RecordingPersistence();
+    private final RecordingCheckpoints checkpoints = new RecordingCheckpoints();
+    private final List<IngestionProgress> progress = new CopyOnWriteArrayList<>();
+
+    @Test
+    void persistsChunksInFileOrderAndCommitsEachOne() throws Exception {
+        parser.total = 25;
+
+        IngestionResult result = pipeline(10, 2).run(input(), CONTEXT, progress::add);
+
+        assertThat(result.totalTransactions()).isEqualTo(25);
+        assertThat(persistence.batches).containsExactly(fitIds(0, 10), fitIds(10, 20), fitIds(20, 25));
+        assertThat(checkpoints.committed).containsExactly(0, 1, 2);
+        assertThat(progress).extracting(IngestionProgress::persistedTransactions).containsExactly(10, 20, 25);
+    }
+
+    @Test
+    void boundedQueuesHoldParserBackWhileCoreIsSlow() throws Exception {
+        parser.total = 100;
+        CountDownLatch release = new CountDownLatch(1);
+        persistence.blockUntil = release;
+        IngestionPipeline pipeline = pipeline(1, 1);
+
+        Thread job = Thread.ofVirtual().start(() -> {
+            try {
+                pipeline.run(input(), CONTEXT, progress::add);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(200);
+
+        // (2 * queue-capacity + 3) * chunk-size: um lote em cada fila, um em cada estágio e o que o parser monta
+        assertThat(parser.emitted.get()).isLessThanOrEqualTo(5);
+        release.countDown();
+        assertThat(job.join(Duration.ofSeconds(5))).isTrue();
+        assertThat(persistence.batches).hasSize(100);
+    }
+
+    @Test
+    void failingStageCancelsTheOthers() throws Exception {
+        parser.total = Integer.MAX_VALUE;
+        persistence.failure = new DownstreamServiceException("Core Service respondeu 400", 400);
+
+        assertThatThrownBy(() -> pipeline(1, 1).run(input(), CONTEXT, progress::add))
+                .isSameAs(persistence.failure);
+
+        assertThat(parser.stopped.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(parser.emitted.get()).isLessThan(100);
+        assertThat(checkpoints.committed).isEmpty();
+    }
+
+    @Test
+    void skipsChunksAndTransactionsAlreadyConfirmedInCheckpoint() throws Exception {
+        parser.total = 25;
+        checkpoints.checkpoint = new JobCheckpoint(10, 1, Set.of(JobCheckpoint.key(ACCOUNT, "F12")));
+
+        IngestionResult result = pipeline(10, 2).run(input(), CONTEXT, progress::add);
+
+        List<String> resumed = new ArrayList<>(fitIds(10, 20));
+        resumed.remove("F12");
+        assertThat(result.totalTransactions()).isEqualTo(25);
+        assertThat(categorization.categorized).containsExactly(resumed, fitIds(20, 25));
+        assertThat(persistence.batches).containsExactly(resumed, fitIds(20, 25));
+        assertThat(checkpoints.committed).containsExactly(1, 2);
+    }
+
+    private IngestionPipeline pipeline(int chunkSize, int queueCapacity) {
+        IngestionPipeline pipeline = new IngestionPipeline(new StatementParserRegistry(List.of(parser)), categorization,
+                persistence, checkpoints, new StatementDeduplicator(null, Optional.empty(), false, false, Set.of(), 1_000),
+                new IngestionMetrics(new SimpleMeterRegistry(), ObservationRegistry.create()));
+        ReflectionTestUtils.setField(pipeline, "chunkSize", chunkSize);
+        ReflectionTestUtils.setField(pipeline, "queueCapacity", queueCapacity);
+        return pipeline;
+    }
+
+    private static InputStream input() {
+        return new ByteArrayInputStream("data;valor;descricao\n".getBytes());
+    }
+
+    private static List<String> fitIds(int from, int to) {
+        return IntStream.range(from, to).mapToObj(i -> "F" + i).toList();
+    }
+
+    /**
+     * Gera {@code total} transações sem ler o arquivo, contando quantas já entregou ao pipeline.
+     */
+    private static final class GeneratingParser implements StatementParser {
+        private final AtomicInteger emitted = new AtomicInteger();
+        private final CountDownLatch stopped = new CountDownLatch(1);
+        private volatile int total;
+
+        @Override
+        public Optional<StatementFormat> detect(StatementPrefix prefix) {
+            return Optional.of(StatementFormat.CSV);
+        }
+
+        @Override
+        public int parse(InputStream inputStream, Consumer<BankTransaction> consumer) {
+            try {
+                for (int i = 0; i < total; i++) {
+                    emitted.incrementAndGet();
+                    consumer.accept(BankTransaction.builder()
+                            .fitId("F" + i)
+                            .date(LocalDateTime.of(2024, 1, 5, 12, 0))
+                            .amount(new BigDecimal("-10.00"))
+                            .description("COMPRA " + i)
+                            .build());
+                }
+                return total;
+            } finally {
+                stopped.countDown();
+            }
+        }
+    }
+
+    private static final class RecordingCategorization extends CategorizationService {
+        private final List<List<String>> categorized = new CopyOnWriteArrayList<>();
+
+        private RecordingCategorization() {
+            super(null, null, null, null, null);
+        }
+
+        @Override
+        public List<CategoryDTO> fetchCategoriesSafely(String profileId) {
+            return List.of();
+        }
+
+        @Override
+        public CategorizationResult applyCategorization(String profileId, List<BankTransaction> transactions,
+                                                        List<CategoryDTO> userCategories) {
+            categorized.add(transactions.stream().map(BankTransaction::getFitId).toList());
+            return new CategorizationResult(0, 0);
+        }
+    }
+
+    private static final class RecordingPersistence extends TransactionPersistenceService {
+        private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+        private volatile CountDownLatch blockUntil = new CountDownLatch(0);
+        private volatile RuntimeException failure;
+
+        private RecordingPersistence() {
+            super(null, null);
+        }
+
+        @Override
+        public void persistTransactionsBatch(TransactionBatch batch, PersistenceTarget target) {
+            try {
+                blockUntil.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure != null) throw failure;
+            batches.add(batch.fitIds());
+        }
+    }
+
+    private static final class RecordingCheckpoints implements CheckpointStore {
+        private final List<Integer> committed = new CopyOnWriteArrayList<>();
+        private volatile JobCheckpoint checkpoint = JobCheckpoint.empty();
+
+        @Override
+        public JobCheckpoint load(String jobId) {
+            return checkpoint;
+        }
+
+        @Override
+        public void commitChunk(String jobId, int chunkSize, int chunkIndex, String bankAccountId, Collection<String> fitIds) {
+            committed.add(chunkIndex);
+        }
+
+        @Override
+        public void discard(String jobId) {
+        }
+    }
+}
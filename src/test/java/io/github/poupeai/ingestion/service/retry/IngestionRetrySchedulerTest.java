@@ -0,0 +1,166 @@
+package io.github.poupeai.ingestion.service.retry;
+
+import io.github.poupeai.ingestion.client.bulkhead.ConcurrencyLimitExceededException;
+import io.github.poupeai.ingestion.config.RabbitMQConfig;
+import io.github.poupeai.ingestion.domain.event.IngestionEvent;
+import io.github.poupeai.ingestion.domain.event.IngestionJobPayload;
+import io.github.poupeai.ingestion.domain.exception.DownstreamServiceException;
+import io.github.poupeai.ingestion.domain.exception.OfxParseException;
+import io.github.poupeai.ingestion.domain.exception.StorageException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IngestionRetrySchedulerTest {
+
+    private final RetryTopology topology = new RetryTopology("ingestion_jobs", 3, Duration.ofSeconds(30), 4, Duration.ofMinutes(1));
+    private final InMemoryBroker broker = new InMemoryBroker(topology);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final IngestionRetryScheduler scheduler = new IngestionRetryScheduler(broker, topology, registry, Duration.ofSeconds(1));
+
+    @Test
+    void delaysEachAttemptInItsOwnQueueAndRedeliversToJobQueue() {
+        IngestionEvent event = event();
+
+        assertThat(scheduler.retry(event, 1, new SocketTimeoutException("minio"))).isEqualTo(Duration.ofSeconds(30));
+        assertThat(broker.ttl("ingestion_jobs.retry.30000")).isEqualTo(Duration.ofSeconds(30));
+        assertThat(broker.depth("ingestion_jobs")).isZero();
+
+        broker.expire("ingestion_jobs.retry.30000");
+        Message redelivered = broker.take("ingestion_jobs");
+        assertThat(redelivered.getMessageProperties().<Integer>getHeader(RetryTopology.ATTEMPT_HEADER)).isEqualTo(2);
+        assertThat(broker.payload(redelivered)).isEqualTo(event);
+
+        assertThat(scheduler.canRetry(2)).isTrue();
+        assertThat(scheduler.retry(event, 2, new IOException("reset"))).isEqualTo(Duration.ofMinutes(1));
+        assertThat(broker.ttl("ingestion_jobs.retry.60000")).isEqualTo(Duration.ofMinutes(1));
+        assertThat(scheduler.canRetry(3)).isFalse();
+        assertThat(registry.get("ingestion.retries").tag("result", "scheduled").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void delayIsPartOfTheQueueNameSoChangingItNeverRedeclaresAQueue() {
+        RetryTopology changed = new RetryTopology("ingestion_jobs", 6, Duration.ofSeconds(10), 4, Duration.ofMinutes(1));
+
+        assertThat(changed.declarables().getDeclarablesByType(Queue.class)).extracting(Queue::getName)
+                .containsExactly("ingestion_jobs.parking", "ingestion_jobs.retry.10000", "ingestion_jobs.retry.40000",
+                        "ingestion_jobs.retry.60000");
+        assertThat(changed.jobQueue().getArguments()).isEmpty();
+    }
+
+    @Test
+    void parksExhaustedJobsAndRejectedDeliveries() {
+        IngestionEvent event = event();
+
+        scheduler.park(event, 3, new DownstreamServiceException("Core Service respondeu 503", 503));
+        Message parked = broker.take("ingestion_jobs.parking");
+        assertThat(parked.getMessageProperties().<Integer>getHeader(RetryTopology.ATTEMPT_HEADER)).isEqualTo(3);
+        assertThat(parked.getMessageProperties().<String>getHeader(RetryTopology.ERROR_HEADER))
+                .isEqualTo("DownstreamServiceException: Core Service respondeu 503");
+
+        broker.convertAndSend("", "ingestion_jobs", event, message -> message, new CorrelationData("rejected"));
+        broker.expire("ingestion_jobs");
+        assertThat(broker.payload(broker.take("ingestion_jobs.parking"))).isEqualTo(event);
+        assertThat(registry.get("ingestion.retries").tag("result", "parked").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void classifiesTransientFailuresAsRetryableAndBadStatementsAsFatal() {
+        assertThat(FailureClassifier.isRetryable(new StorageException("download", new SocketTimeoutException()))).isTrue();
+        assertThat(FailureClassifier.isRetryable(new DownstreamServiceException("I/O", new IOException("reset")))).isTrue();
+        assertThat(FailureClassifier.isRetryable(new DownstreamServiceException("503", 503))).isTrue();
+        assertThat(FailureClassifier.isRetryable(new ConcurrencyLimitExceededException("core-service"))).isTrue();
+        assertThat(FailureClassifier.isRetryable(new OfxParseException("Falha ao ler stream do OFX", new IOException("reset")))).isTrue();
+
+        assertThat(FailureClassifier.isRetryable(new OfxParseException("OFX sem STMTTRN"))).isFalse();
+        assertThat(FailureClassifier.isRetryable(new DownstreamServiceException("400", 400))).isFalse();
+        assertThat(FailureClassifier.isRetryable(new StorageException("download", new IllegalStateException("NoSuchKey")))).isFalse();
+    }
+
+    private static IngestionEvent event() {
+        return new IngestionEvent("m1", OffsetDateTime.parse("2024-01-05T12:00:00Z"), "UPLOAD", "INGESTION_REQUESTED",
+                new IngestionJobPayload("job-1", "u1/extrato.ofx", new IngestionJobPayload.ProfileInfo("p1", "User", "u1@poupe.ai"),
+                        new IngestionJobPayload.AccountInfo("a1", "Conta"), null, null, null));
+    }
+
+    /**
+     * Substituto do broker: conhece as filas declaradas pela topologia e aplica seus argumentos de TTL
+     * e dead-letter (ou a policy da fila de jobs) quando o teste expira (ou rejeita) as mensagens de uma fila.
+     */
+    private static final class InMemoryBroker extends RabbitTemplate {
+        private final Map<String, Queue> queues = new HashMap<>();
+        private final Map<String, Deque<Message>> messages = new HashMap<>();
+        private final Map<String, Map<String, Object>> policies = new HashMap<>();
+
+        private InMemoryBroker(RetryTopology topology) {
+            setMessageConverter(new Jackson2JsonMessageConverter(new RabbitMQConfig().objectMapper()));
+            declare(topology.jobQueue());
+            topology.declarables().getDeclarablesByType(Queue.class).forEach(this::declare);
+            policies.put(topology.queue(), topology.jobQueuePolicy());
+        }
+
+        private void declare(Queue queue) {
+            queues.put(queue.getName(), queue);
+            messages.put(queue.getName(), new ArrayDeque<>());
+        }
+
+        @Override
+        public void convertAndSend(String exchange, String routingKey, Object payload,
+                                   MessagePostProcessor postProcessor, CorrelationData correlation) {
+            Message message = postProcessor.postProcessMessage(getMessageConverter().toMessage(payload, new MessageProperties()));
+            if (exchange.isEmpty() && queues.containsKey(routingKey)) {
+                messages.get(routingKey).add(message);
+            } else {
+                correlation.setReturned(new ReturnedMessage(message, 312, "NO_ROUTE", exchange, routingKey));
+            }
+            correlation.getFuture().complete(new CorrelationData.Confirm(true, null));
+        }
+
+        void expire(String queue) {
+            Map<String, Object> arguments = queues.get(queue).getArguments();
+            Map<String, Object> policy = policies.getOrDefault(queue, Map.of());
+            assertThat(arguments.getOrDefault("x-dead-letter-exchange", policy.get("dead-letter-exchange"))).isEqualTo("");
+            Deque<Message> target = messages.get((String) arguments.getOrDefault("x-dead-letter-routing-key",
+                    policy.get("dead-letter-routing-key")));
+            Deque<Message> source = messages.get(queue);
+            while (!source.isEmpty()) target.add(source.poll());
+        }
+
+        Duration ttl(String queue) {
+            return Duration.ofMillis((Integer) queues.get(queue).getArguments().get("x-message-ttl"));
+        }
+
+        int depth(String queue) {
+            return messages.get(queue).size();
+        }
+
+        Message take(String queue) {
+            Message message = messages.get(queue).poll();
+            assertThat(message).as("mensagem em " + queue).isNotNull();
+            return message;
+        }
+
+        IngestionEvent payload(Message message) {
+            message.getMessageProperties().setInferredArgumentType(IngestionEvent.class);
+            return (IngestionEvent) getMessageConverter().fromMessage(message);
+        }
+    }
+}
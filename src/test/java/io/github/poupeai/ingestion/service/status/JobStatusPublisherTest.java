@@ -0,0 +1,121 @@
+package io.github.poupeai.ingestion.service.status;
+
+import io.github.poupeai.ingestion.client.CoreServiceClient;
+import io.github.poupeai.ingestion.client.dto.CreateTransactionRequest;
+import io.github.poupeai.ingestion.client.dto.ExistingTransaction;
+import io.github.poupeai.ingestion.client.dto.TransactionLookupRequest;
+import io.github.poupeai.ingestion.client.dto.UpdateIngestionJobRequest;
+import io.github.poupeai.ingestion.dto.CategoryDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JobStatusPublisherTest {
+
+    private final RecordingCoreClient core = new RecordingCoreClient();
+
+    @Test
+    void sendsOnlyLatestIntermediateStateWithinDebounceWindow() throws Exception {
+        JobStatusPublisher publisher = publisher(Duration.ofMillis(100));
+        core.expect(1);
+
+        for (int i = 1; i <= 10; i++) {
+            publisher.publish("job-1", "PROCESSING", "{\"persisted\": " + i + "}", null);
+        }
+
+        assertThat(core.await()).isTrue();
+        Thread.sleep(200);
+        assertThat(core.updates).extracting(UpdateIngestionJobRequest::getSummary).containsExactly("{\"persisted\": 10}");
+        publisher.destroy();
+    }
+
+    @Test
+    void terminalStateSupersedesPendingProgressAndIsRetried() throws Exception {
+        JobStatusPublisher publisher = publisher(Duration.ofHours(1));
+        core.failures.set(2);
+        core.expect(3);
+
+        publisher.publish("job-1", "PROCESSING", "{\"persisted\": 500}", null);
+        publisher.publish("job-1", "COMPLETED", "{\"total\": 1000}", null);
+        publisher.publish("job-1", "PROCESSING", "{\"persisted\": 1000}", null);
+
+        assertThat(core.await()).isTrue();
+        publisher.destroy();
+        assertThat(core.updates).hasSize(3).extracting(UpdateIngestionJobRequest::getStatus).containsOnly("COMPLETED");
+    }
+
+    @Test
+    void shutdownFlushesPendingStateWithoutWaitingForWindow() throws Exception {
+        JobStatusPublisher publisher = publisher(Duration.ofHours(1));
+
+        publisher.publish("job-1", "PROCESSING", "{\"step\": \"START\"}", null);
+        publisher.publish("job-2", "PROCESSING", "{\"step\": \"START\"}", null);
+        publisher.destroy();
+
+        assertThat(core.updates).hasSize(2);
+    }
+
+    @Test
+    void releaseFlushesPendingStateAndDropsChannel() throws Exception {
+        JobStatusPublisher publisher = publisher(Duration.ofHours(1));
+        core.expect(1);
+
+        publisher.publish("job-1", "PROCESSING", "{\"step\": \"RETRY_SCHEDULED\"}", null);
+        publisher.release("job-1");
+
+        assertThat(core.await()).isTrue();
+        for (int i = 0; i < 100 && publisher.openChannels() > 0; i++) Thread.sleep(10);
+        assertThat(publisher.openChannels()).isZero();
+        assertThat(core.updates).extracting(UpdateIngestionJobRequest::getSummary).containsExactly("{\"step\": \"RETRY_SCHEDULED\"}");
+        publisher.destroy();
+    }
+
+    private JobStatusPublisher publisher(Duration debounce) {
+        return new JobStatusPublisher(core, new SimpleMeterRegistry(), debounce, 3, Duration.ofMillis(1));
+    }
+
+    private static final class RecordingCoreClient implements CoreServiceClient {
+        private final List<UpdateIngestionJobRequest> updates = new CopyOnWriteArrayList<>();
+        private final AtomicInteger failures = new AtomicInteger();
+        private volatile CountDownLatch latch = new CountDownLatch(0);
+
+        void expect(int calls) {
+            latch = new CountDownLatch(calls);
+        }
+
+        boolean await() throws InterruptedException {
+            return latch.await(5, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public void updateStatus(String id, UpdateIngestionJobRequest request) {
+            updates.add(request);
+            latch.countDown();
+            if (failures.getAndDecrement() > 0) throw new IllegalStateException("Core indisponível");
+        }
+
+        @Override
+        public ResponseEntity<List<CategoryDTO>> getCategories(String profileId, String ifNoneMatch) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void createTransactionsBatch(List<CreateTransactionRequest> transactions) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<ExistingTransaction> lookupTransactions(TransactionLookupRequest request) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}